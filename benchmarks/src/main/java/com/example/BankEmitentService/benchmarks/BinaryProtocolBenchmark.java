@@ -0,0 +1,139 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.benchmarks;
+
+import com.example.BankEmitentService.binary.BinaryLookupServer;
+import com.example.BankEmitentService.binary.BinaryProtocol;
+import com.example.BankEmitentService.services.CardValidationServices;
+import com.example.BankEmitentService.utils.IoThreads;
+import org.openjdk.jmh.annotations.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of the binary lookup protocol over loopback TCP, one request at a
+ * time and pipelined, against a server answering from an in-memory index.
+ * Each benchmark thread uses its own connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx2g"})
+@Threads(4)
+public class BinaryProtocolBenchmark {
+
+    private static final int SAMPLES = 1 << 14;
+    private static final int PIPELINE_DEPTH = 64;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    private BinaryLookupServer server;
+    private int port;
+    private byte[][] requests;
+
+    /**
+     * A client connection with its own request cursor.
+     */
+    @State(Scope.Thread)
+    public static class Connection {
+
+        private Socket socket;
+        private DataOutputStream output;
+        private DataInputStream input;
+        private int next;
+        private long requestId;
+
+        @Setup(Level.Trial)
+        public void connect(BinaryProtocolBenchmark benchmark) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), benchmark.port);
+            socket.setTcpNoDelay(true);
+            output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        void send(byte[] pan) throws IOException {
+            output.writeInt(BinaryProtocol.HEADER + Byte.BYTES + pan.length);
+            output.writeByte(BinaryProtocol.LOOKUP);
+            output.writeLong(requestId++);
+            output.writeByte(pan.length);
+            output.write(pan);
+        }
+
+        /**
+         * Reads one response and returns its status.
+         */
+        int receive() throws IOException {
+            int length = input.readInt();
+            input.skipNBytes(Byte.BYTES + Long.BYTES);
+            int status = input.readByte();
+            input.skipNBytes(length - BinaryProtocol.HEADER - Byte.BYTES);
+            return status;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(catalogSize, 1);
+        server = new BinaryLookupServer(CardValidationServices.inMemory(catalog.toIndex()), new IoThreads(false));
+        port = server.start(0);
+
+        String[] cardNumbers = SyntheticCatalog.toRequestStrings(catalog.sampleCards(SAMPLES, 0.9, 2));
+        requests = new byte[SAMPLES][];
+        for (int i = 0; i < SAMPLES; i++) {
+            requests[i] = cardNumbers[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * One lookup per round trip; the score is lookups per second.
+     */
+    @Benchmark
+    public int singleRoundTrip(Connection connection) throws IOException {
+        connection.send(requests[connection.next++ & (SAMPLES - 1)]);
+        connection.output.flush();
+        return connection.receive();
+    }
+
+    /**
+     * {@value #PIPELINE_DEPTH} lookups written before any response is read; the score is lookups per second.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public int pipelined(Connection connection) throws IOException {
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            connection.send(requests[connection.next++ & (SAMPLES - 1)]);
+        }
+        connection.output.flush();
+
+        int found = 0;
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            if (connection.receive() == BinaryProtocol.FOUND)
+                found++;
+        }
+        return found;
+    }
+}
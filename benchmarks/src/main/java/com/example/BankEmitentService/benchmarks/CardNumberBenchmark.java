@@ -0,0 +1,59 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.benchmarks;
+
+import com.example.BankEmitentService.utils.CardNumberParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PAN normalization: the single-pass parser against the original
+ * substring / replace / concat / parseLong sequence.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CardNumberBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private String[] cardNumbers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(10_000, 1);
+        cardNumbers = SyntheticCatalog.toRequestStrings(catalog.sampleCards(SAMPLES, 1.0, 2));
+        // The original implementation only accepted plain digits and masks.
+        for (int i = 0; i < cardNumbers.length; i++) {
+            cardNumbers[i] = cardNumbers[i].replace(" ", "");
+        }
+    }
+
+    @Benchmark
+    public long parser() {
+        return CardNumberParser.normalize(nextCardNumber(), true);
+    }
+
+    @Benchmark
+    public void original(Blackhole blackhole) {
+        String cardNumber = nextCardNumber();
+        blackhole.consume(Integer.parseInt(cardNumber.substring(0, 6)));
+        String fullCardNumber = cardNumber.replace("*", "0");
+        if (fullCardNumber.length() == 16)
+            fullCardNumber = fullCardNumber.concat("000");
+        blackhole.consume(Long.parseLong(fullCardNumber));
+    }
+
+    private String nextCardNumber() {
+        return cardNumbers[next++ & (SAMPLES - 1)];
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.benchmarks;
+
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import com.example.BankEmitentService.index.MappedBinSnapshot;
+import com.example.BankEmitentService.services.CardValidationService;
+import com.example.BankEmitentService.services.CardValidationServices;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single and batch card lookups against the heap index and the mapped snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class LookupBenchmark {
+
+    private static final int SAMPLES = 1 << 16;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"100000", "2000000"})
+    public int catalogSize;
+
+    @Param({"heap", "mapped"})
+    public String storage;
+
+    @Param({"0.9"})
+    public double hitRatio;
+
+    private Path snapshotFile;
+    private BinRangeLookup index;
+    private CardValidationService service;
+    private long[] cards;
+    private String[] cardNumbers;
+    private long[] batch;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(catalogSize, 1);
+        BinRangeIndex heapIndex = catalog.toIndex();
+
+        if ("mapped".equals(storage)) {
+            snapshotFile = Files.createTempFile("bininfo", ".snap");
+            MappedBinSnapshot.write(heapIndex, snapshotFile);
+            index = MappedBinSnapshot.open(snapshotFile);
+        } else {
+            index = heapIndex;
+        }
+
+        service = CardValidationServices.inMemory(index);
+        cards = catalog.sampleCards(SAMPLES, hitRatio, 2);
+        cardNumbers = SyntheticCatalog.toRequestStrings(cards);
+        batch = catalog.sampleCards(BATCH_SIZE, hitRatio, 3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (snapshotFile != null)
+            Files.deleteIfExists(snapshotFile);
+    }
+
+    /**
+     * The raw index probe for a normalized card number.
+     */
+    @Benchmark
+    public int indexLookup(Cursor cursor) {
+        return index.indexOf(cards[cursor.next++ & (SAMPLES - 1)]);
+    }
+
+    /**
+     * A full single lookup: parsing the request string, probing the index and building the DTO.
+     */
+    @Benchmark
+    public Object singleLookup(Cursor cursor) {
+        return service.checkCardRange(cardNumbers[cursor.next++ & (SAMPLES - 1)]);
+    }
+
+    /**
+     * A batch lookup of {@value #BATCH_SIZE} normalized card numbers; the score is per card.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchLookup(Blackhole blackhole) throws IOException {
+        service.checkCardRanges(batch, batch.length, (position, card, result) -> blackhole.consume(result));
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.benchmarks;
+
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.utils.ParseUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON parse throughput of the catalog file: the list parser, the chunked
+ * streaming parser and the full parse into a lookup index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class ParseBenchmark {
+
+    private static final int CHUNK_SIZE = 5_000;
+
+    @Param({"100000", "2000000"})
+    public int catalogSize;
+
+    private Path jsonFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        jsonFile = Files.createTempFile("bininfo", ".json");
+        SyntheticCatalog.generate(catalogSize, 1).writeJson(jsonFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jsonFile);
+    }
+
+    @Benchmark
+    public Object listParser() {
+        return ParseUtils.jsonFileParser(jsonFile.toString());
+    }
+
+    @Benchmark
+    public int streamingParser(Blackhole blackhole) {
+        return ParseUtils.jsonFileStreamParser(jsonFile.toString(), CHUNK_SIZE, blackhole::consume);
+    }
+
+    @Benchmark
+    public BinRangeIndex parseIntoIndex() {
+        BinRangeIndex.Builder builder = BinRangeIndex.builder();
+        ParseUtils.jsonFileStreamParser(jsonFile.toString(), CHUNK_SIZE, chunk -> chunk.forEach(builder::add));
+        return builder.build();
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.benchmarks;
+
+import com.example.BankEmitentService.index.BinRangeIndex;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Deterministic generator of catalogs shaped like the production BIN catalog.
+ * <p>
+ * Ranges are grouped by BIN, each BIN is split into one or more consecutive
+ * sub-ranges, and alpha codes and bank names are drawn from small pools so the
+ * dictionary has a realistic number of distinct entries. The same size and seed
+ * always produce the same catalog.
+ */
+public final class SyntheticCatalog {
+
+    private static final long BIN_FACTOR = 10_000_000_000_000L;
+    private static final String[] ALPHA_CODES = {"UKR", "POL", "DEU", "FRA", "USA", "GBR", "ITA", "ESP", "NLD", "CZE",
+                                                 "SVK", "HUN", "ROU", "BGR", "LTU", "LVA", "EST", "FIN", "SWE", "NOR"};
+    private static final int BANK_NAMES = 5_000;
+    private static final int MAX_SUB_RANGES = 4;
+
+    private final int[] bins;
+    private final long[] minRanges;
+    private final long[] maxRanges;
+    private final String[] alphaCodes;
+    private final String[] bankNames;
+
+    private SyntheticCatalog(int size) {
+        this.bins = new int[size];
+        this.minRanges = new long[size];
+        this.maxRanges = new long[size];
+        this.alphaCodes = new String[size];
+        this.bankNames = new String[size];
+    }
+
+    /**
+     * Generates a catalog.
+     *
+     * @param size The number of ranges.
+     * @param seed The random seed.
+     * @return The generated catalog.
+     */
+    public static SyntheticCatalog generate(int size, long seed) {
+        SyntheticCatalog catalog = new SyntheticCatalog(size);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        // Spread the BINs over the 6-digit space so lookups touch the whole index.
+        int binCount = Math.max(1, size * 2 / (MAX_SUB_RANGES + 1));
+        int binStep = Math.max(1, 900_000 / binCount);
+
+        int bin = 100_000;
+        int row = 0;
+        while (row < size) {
+            int subRanges = Math.min(size - row, 1 + random.nextInt(MAX_SUB_RANGES));
+            long binStart = bin * BIN_FACTOR;
+            long width = BIN_FACTOR / subRanges;
+            String alphaCode = ALPHA_CODES[random.nextInt(ALPHA_CODES.length)];
+
+            for (int i = 0; i < subRanges; i++, row++) {
+                catalog.bins[row] = bin;
+                catalog.minRanges[row] = binStart + i * width;
+                catalog.maxRanges[row] = binStart + (i + 1) * width - 1;
+                catalog.alphaCodes[row] = alphaCode;
+                catalog.bankNames[row] = STR."Synthetic Bank \{random.nextInt(BANK_NAMES)}";
+            }
+            bin = Math.min(999_999, bin + 1 + random.nextInt(binStep));
+        }
+        return catalog;
+    }
+
+    /**
+     * @return The number of ranges.
+     */
+    public int size() {
+        return bins.length;
+    }
+
+    /**
+     * Builds the in-memory lookup index of the catalog.
+     *
+     * @return The index.
+     */
+    public BinRangeIndex toIndex() {
+        BinRangeIndex.Builder builder = BinRangeIndex.builder();
+        for (int i = 0; i < size(); i++) {
+            builder.add(bins[i], minRanges[i], maxRanges[i], alphaCodes[i], bankNames[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the catalog in the JSON format of the online catalog.
+     *
+     * @param path The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeJson(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeJson(writer);
+        }
+    }
+
+    /**
+     * Writes the catalog as a ZIP archive holding a single JSON entry.
+     *
+     * @param path The archive to write.
+     * @param entryName The name of the JSON entry.
+     * @throws IOException if the archive cannot be written.
+     */
+    public void writeZip(Path path, String entryName) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(path))) {
+            zip.putNextEntry(new ZipEntry(entryName));
+            // The writer is flushed but not closed, closing it would close the archive.
+            Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+            writeJson(writer);
+            writer.flush();
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Draws card numbers for lookups. Hits fall inside a random range; misses use
+     * BINs below the catalog and never match.
+     *
+     * @param count The number of card numbers.
+     * @param hitRatio The share of card numbers that match a range.
+     * @param seed The random seed.
+     * @return The normalized 19-digit card numbers.
+     */
+    public long[] sampleCards(int count, double hitRatio, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] cards = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (random.nextDouble() < hitRatio) {
+                int row = random.nextInt(size());
+                cards[i] = random.nextLong(minRanges[row], maxRanges[row] + 1);
+            } else {
+                cards[i] = random.nextLong(BIN_FACTOR * 10_000, BIN_FACTOR * 99_999);
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * Formats card numbers the way clients send them: 16 digits, some grouped
+     * with spaces and some masked in the middle.
+     *
+     * @param cards The normalized card numbers.
+     * @return The card numbers as request strings.
+     */
+    public static String[] toRequestStrings(long[] cards) {
+        return Arrays.stream(cards)
+                .mapToObj(card -> {
+                    String digits = String.format("%019d", card).substring(0, 16);
+                    return switch ((int) (card % 3)) {
+                        case 0 -> digits;
+                        case 1 -> STR."\{digits.substring(0, 4)} \{digits.substring(4, 8)} \{digits.substring(8, 12)} \{digits.substring(12)}";
+                        default -> STR."\{digits.substring(0, 6)}******\{digits.substring(12)}";
+                    };
+                })
+                .toArray(String[]::new);
+    }
+
+    private void writeJson(Writer writer) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                writer.write(',');
+            writer.write(STR."""
+                    {"bin":\{bins[i]},"min_range":"\{minRanges[i]}","max_range":"\{maxRanges[i]}",\
+                    "alpha_code":"\{alphaCodes[i]}","bank_name":"\{bankNames[i]}"}""");
+            writer.write('\n');
+        }
+        writer.write(']');
+    }
+}
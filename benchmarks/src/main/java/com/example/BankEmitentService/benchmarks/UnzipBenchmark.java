@@ -0,0 +1,84 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.benchmarks;
+
+import com.example.BankEmitentService.utils.ParseUtils;
+import com.example.BankEmitentService.utils.ZipFileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Unzip throughput of the catalog archive: extraction to disk as done by the
+ * file-based refresh, and in-memory decompression straight into the parser as
+ * done by the streaming pipeline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx4g"})
+public class UnzipBenchmark {
+
+    private static final String ENTRY_NAME = "bininfo.json";
+
+    @Param({"100000", "2000000"})
+    public int catalogSize;
+
+    private Path workDir;
+    private Path zipFile;
+    private Path extractDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("unzip-benchmark");
+        zipFile = workDir.resolve("bininfo.json.zip");
+        extractDir = workDir.resolve("extract");
+        SyntheticCatalog.generate(catalogSize, 1).writeZip(zipFile, ENTRY_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long unzipToDisk() throws IOException {
+        ZipFileUtils.unzip(zipFile.toString(), extractDir.toString());
+        return Files.size(extractDir.resolve(ENTRY_NAME));
+    }
+
+    @Benchmark
+    public long inflateOnly() throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
+            zis.getNextEntry();
+            return zis.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public int inflateAndParse(Blackhole blackhole) throws IOException {
+        try (InputStream in = Files.newInputStream(zipFile);
+             ZipInputStream zis = new ZipInputStream(in)) {
+            zis.getNextEntry();
+            return ParseUtils.jsonStreamParser(new InputStreamReader(zis, StandardCharsets.UTF_8), 5_000, blackhole::consume);
+        }
+    }
+}
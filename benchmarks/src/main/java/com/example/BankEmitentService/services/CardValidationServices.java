@@ -0,0 +1,36 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.services;
+
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import com.example.BankEmitentService.logging.LookupLogger;
+import com.example.BankEmitentService.metrics.LookupMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Creates {@link CardValidationService} instances outside of a Spring context.
+ */
+public final class CardValidationServices {
+
+    private CardValidationServices() {
+    }
+
+    /**
+     * Creates a service answering every lookup from the given index. The service
+     * has no database, so it must not be used before an index is published.
+     *
+     * @param index The index to publish.
+     * @return The service.
+     */
+    public static CardValidationService inMemory(BinRangeLookup index) {
+        BinRangeIndexHolder holder = new BinRangeIndexHolder();
+        holder.publish(index);
+        return new CardValidationService(null, holder, null, 1, new LookupMetrics(new SimpleMeterRegistry()),
+                new LookupLogger(0, 0, 0), null, false);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.BankEmitentService.loadtest;
+
+import com.example.BankEmitentService.BankEmitentServiceApplication;
+import com.example.BankEmitentService.LatencyRecorder;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.services.BankEmitmentDataUpdater;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives Zipf-distributed card lookups at the whole service, running against
+ * PostgreSQL in a container and a local stub of the online catalog.
+ * <p>
+ * The first refresh loads the catalog from the stub. Lookups are then measured
+ * on their own, and again while the stub serves a revised catalog and a refresh
+ * loads it, as the hourly schedule does in production.
+ * <p>
+ * Tunable with system properties: {@code loadtest.clients}, {@code loadtest.seconds},
+ * {@code loadtest.warmup.seconds}, {@code loadtest.bins} and {@code loadtest.zipf}.
+ * Settings the service reads from the Spring Environment can be set the same way,
+ * e.g. {@code -Dlookup.engine=database} or {@code -Dcatalog.refresh.mode=delta}.
+ */
+@Testcontainers
+@SpringBootTest(classes = BankEmitentServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CatalogRefreshLoadTests {
+
+	private static final int CLIENTS = Integer.getInteger("loadtest.clients", 64);
+	private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmup.seconds", 5));
+	private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("loadtest.seconds", 20));
+	private static final int BINS = Integer.getInteger("loadtest.bins", 100_000);
+	private static final double ZIPF_EXPONENT = Double.parseDouble(System.getProperty("loadtest.zipf", "1.1"));
+	private static final double MISS_RATIO = 0.05;
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	static final LoadTestCatalog CATALOG = LoadTestCatalog.generate(BINS, 1);
+	static final CatalogStub STUB = CatalogStub.start(CATALOG.toZip("bininfo.json"));
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) throws IOException {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		String baseFolder = Files.createTempDirectory("bininfo-loadtest").toString();
+		registry.add("base.folder", () -> baseFolder);
+		registry.add("online.catalog.uri", STUB::url);
+		// Dynamic properties take precedence over system properties, so a -D setting is passed on explicitly.
+		registry.add("catalog.refresh.mode", () -> System.getProperty("catalog.refresh.mode", "full"));
+	}
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	BankEmitmentDataUpdater updater;
+
+	@Autowired
+	BinRangeIndexHolder indexHolder;
+
+	@AfterAll
+	static void stopStub() {
+		STUB.stop();
+	}
+
+	@Test
+	void lookupsDuringHourlyRefresh() throws Exception {
+		long started = System.nanoTime();
+		updater.saveBankEmitment();
+		System.out.printf("initial load: %d ranges in %.1fs%n", CATALOG.size(), (System.nanoTime() - started) / 1e9);
+		assertThat(indexHolder.current()).isNotNull();
+		assertThat(indexHolder.current().size()).isEqualTo(CATALOG.size());
+
+		LoadTestCatalog.Traffic traffic = CATALOG.traffic(ZIPF_EXPONENT, MISS_RATIO, 7);
+		report("steady", run(traffic, null));
+
+		STUB.publish(CATALOG.revise(0.1, 2).toZip("bininfo.json"));
+		long generation = indexHolder.generation();
+		report("refresh", run(traffic, updater::saveBankEmitment));
+
+		assertThat(indexHolder.generation()).isGreaterThan(generation);
+		assertThat(STUB.fullResponses()).isEqualTo(2);
+	}
+
+	/**
+	 * Runs the clients through a warmup and a measurement. A background task starts
+	 * with the measurement, which lasts at least until the task has finished.
+	 */
+	private LoadResult run(LoadTestCatalog.Traffic traffic, Runnable background) throws Exception {
+		HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+		AtomicBoolean measuring = new AtomicBoolean();
+		AtomicBoolean stopped = new AtomicBoolean();
+
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			Future<?>[] results = new Future<?>[CLIENTS];
+			LatencyRecorder[] recorders = new LatencyRecorder[CLIENTS];
+			for (int c = 0; c < CLIENTS; c++) {
+				LatencyRecorder recorder = recorders[c] = new LatencyRecorder();
+				SplittableRandom random = new SplittableRandom(c);
+				results[c] = clients.submit(() -> {
+					while (!stopped.get()) {
+						HttpRequest request = HttpRequest.newBuilder(
+										URI.create("http://127.0.0.1:" + port + "/api/v1/card?cardNumber=" + traffic.nextCard(random)))
+								.POST(HttpRequest.BodyPublishers.noBody())
+								.build();
+						long requestStarted = System.nanoTime();
+						int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+						if (measuring.get())
+							recorder.record(status, System.nanoTime() - requestStarted);
+					}
+					return null;
+				});
+			}
+
+			Thread.sleep(WARMUP);
+			measuring.set(true);
+			long measurementStarted = System.nanoTime();
+			long backgroundNanos = 0;
+			if (background != null) {
+				background.run();
+				backgroundNanos = System.nanoTime() - measurementStarted;
+			}
+			long remaining = MEASUREMENT.toNanos() - (System.nanoTime() - measurementStarted);
+			if (remaining > 0)
+				Thread.sleep(Duration.ofNanos(remaining));
+			stopped.set(true);
+			long measuredNanos = System.nanoTime() - measurementStarted;
+
+			for (Future<?> result : results) {
+				result.get();
+			}
+			return new LoadResult(LatencyRecorder.merge(recorders), measuredNanos, backgroundNanos);
+		}
+	}
+
+	private static void report(String scenario, LoadResult result) {
+		LatencyRecorder.Result requests = result.requests();
+		System.out.printf("%-8s clients=%d zipf=%.2f rps=%.0f p50=%.2fms p99=%.2fms p999=%.2fms ok=%d rejected=%d errors=%d%s%n",
+				scenario, CLIENTS, ZIPF_EXPONENT, requests.completed() / (result.measuredNanos() / 1e9),
+				requests.percentileMillis(0.50), requests.percentileMillis(0.99), requests.percentileMillis(0.999),
+				requests.completed(), requests.rejected(), requests.errors(),
+				result.backgroundNanos() > 0 ? String.format(" refresh=%.1fs", result.backgroundNanos() / 1e9) : "");
+
+		assertThat(requests.completed()).isPositive();
+		assertThat(requests.errors()).isZero();
+	}
+
+	private record LoadResult(LatencyRecorder.Result requests, long measuredNanos, long backgroundNanos) {
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.BankEmitentService.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server standing in for the online catalog.
+ * <p>
+ * Serves the published archive with an ETag derived from its content and answers
+ * conditional requests for the same archive with 304, like the real catalog host.
+ */
+final class CatalogStub {
+
+	static final String PATH = "/bininfo.json.zip";
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final AtomicInteger fullResponses = new AtomicInteger();
+	private volatile Archive archive;
+
+	private record Archive(byte[] bytes, String etag) {
+	}
+
+	private CatalogStub(byte[] archive) throws IOException {
+		publish(archive);
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext(PATH, this::serve);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Starts a stub serving the given archive.
+	 */
+	static CatalogStub start(byte[] archive) {
+		try {
+			return new CatalogStub(archive);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Replaces the served archive, as the catalog host does when a new catalog is released.
+	 */
+	void publish(byte[] bytes) {
+		try {
+			// Not shaped like an MD5 digest, so the downloader does not try to verify the archive against it.
+			String etag = "\"catalog-" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 8) + "\"";
+			archive = new Archive(bytes, etag);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+	}
+
+	/**
+	 * @return The number of requests answered with the whole archive.
+	 */
+	int fullResponses() {
+		return fullResponses.get();
+	}
+
+	void stop() {
+		server.stop(0);
+		executor.close();
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		Archive current = archive;
+		try (exchange) {
+			if (current.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+
+			fullResponses.incrementAndGet();
+			exchange.getResponseHeaders().add("ETag", current.etag());
+			exchange.sendResponseHeaders(200, current.bytes().length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(current.bytes());
+			}
+		}
+	}
+}
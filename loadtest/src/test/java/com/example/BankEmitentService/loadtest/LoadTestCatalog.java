@@ -0,0 +1,195 @@
+package com.example.BankEmitentService.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Deterministic catalog in the format of the online catalog, with Zipf-distributed
+ * card traffic over its BINs.
+ * <p>
+ * Each BIN is split into one, two or four consecutive ranges. Range bounds are
+ * multiples of 1000, so a 16-digit card number drawn from a range still falls into
+ * it once the service pads it back to 19 digits.
+ */
+final class LoadTestCatalog {
+
+	private static final long BIN_FACTOR = 10_000_000_000_000L;
+	private static final long CARD_STEP = 1_000;
+	private static final int FIRST_BIN = 400_000;
+	private static final int[] SUB_RANGES = {1, 2, 4};
+	private static final String[] ALPHA_CODES = {"UKR", "POL", "DEU", "FRA", "USA", "GBR", "ITA", "ESP", "NLD", "CZE"};
+	private static final int BANK_NAMES = 5_000;
+
+	private final int[] bins;
+	private final long[] minRanges;
+	private final long[] maxRanges;
+	private final String[] alphaCodes;
+	private final String[] bankNames;
+
+	/**
+	 * The first row of each BIN, plus the row count as the last element.
+	 */
+	private final int[] binStarts;
+
+	private LoadTestCatalog(int[] bins, long[] minRanges, long[] maxRanges, String[] alphaCodes, String[] bankNames, int[] binStarts) {
+		this.bins = bins;
+		this.minRanges = minRanges;
+		this.maxRanges = maxRanges;
+		this.alphaCodes = alphaCodes;
+		this.bankNames = bankNames;
+		this.binStarts = binStarts;
+	}
+
+	/**
+	 * Generates a catalog with consecutive BINs starting at {@value #FIRST_BIN}.
+	 */
+	static LoadTestCatalog generate(int binCount, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		int[] subRanges = new int[binCount];
+		int size = 0;
+		for (int b = 0; b < binCount; b++)
+			size += subRanges[b] = SUB_RANGES[random.nextInt(SUB_RANGES.length)];
+
+		int[] bins = new int[size];
+		long[] minRanges = new long[size];
+		long[] maxRanges = new long[size];
+		String[] alphaCodes = new String[size];
+		String[] bankNames = new String[size];
+		int[] binStarts = new int[binCount + 1];
+
+		int row = 0;
+		for (int b = 0; b < binCount; b++) {
+			int bin = FIRST_BIN + b;
+			long binStart = bin * BIN_FACTOR;
+			long width = BIN_FACTOR / subRanges[b] / CARD_STEP * CARD_STEP;
+			String alphaCode = ALPHA_CODES[random.nextInt(ALPHA_CODES.length)];
+			String bankName = "Load Test Bank " + random.nextInt(BANK_NAMES);
+
+			binStarts[b] = row;
+			for (int i = 0; i < subRanges[b]; i++, row++) {
+				bins[row] = bin;
+				minRanges[row] = binStart + i * width;
+				maxRanges[row] = i == subRanges[b] - 1 ? binStart + BIN_FACTOR - 1 : binStart + (i + 1) * width - 1;
+				alphaCodes[row] = alphaCode;
+				bankNames[row] = bankName;
+			}
+		}
+		binStarts[binCount] = size;
+		return new LoadTestCatalog(bins, minRanges, maxRanges, alphaCodes, bankNames, binStarts);
+	}
+
+	/**
+	 * Derives the next release of the catalog, with the bank name changed for a share of the ranges.
+	 */
+	LoadTestCatalog revise(double changedShare, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		String[] revisedNames = bankNames.clone();
+		for (int i = 0; i < revisedNames.length; i++) {
+			if (random.nextDouble() < changedShare)
+				revisedNames[i] = "Revised Bank " + random.nextInt(BANK_NAMES);
+		}
+		return new LoadTestCatalog(bins, minRanges, maxRanges, alphaCodes, revisedNames, binStarts);
+	}
+
+	int size() {
+		return bins.length;
+	}
+
+	int binCount() {
+		return binStarts.length - 1;
+	}
+
+	/**
+	 * Packs the catalog as a ZIP archive holding a single JSON entry.
+	 */
+	byte[] toZip(String entryName) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(size() * 64);
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry(entryName));
+			// The writer is flushed but not closed, closing it would close the archive.
+			Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+			writer.write('[');
+			for (int i = 0; i < size(); i++) {
+				if (i > 0)
+					writer.write(",\n");
+				writer.write("{\"bin\":" + bins[i] + ",\"min_range\":\"" + minRanges[i] + "\",\"max_range\":\"" + maxRanges[i]
+						+ "\",\"alpha_code\":\"" + alphaCodes[i] + "\",\"bank_name\":\"" + bankNames[i] + "\"}");
+			}
+			writer.write(']');
+			writer.flush();
+			zip.closeEntry();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Creates a traffic source in which the popularity of BINs follows Zipf's law.
+	 *
+	 * @param exponent The Zipf exponent; around 1 a few hundred BINs draw most of the traffic.
+	 * @param missRatio The share of card numbers with a BIN outside the catalog.
+	 * @param seed The seed of the popularity ranking, shared by all clients.
+	 */
+	Traffic traffic(double exponent, double missRatio, long seed) {
+		return new Traffic(exponent, missRatio, seed);
+	}
+
+	/**
+	 * Draws card numbers for lookups. Thread-safe, as long as each thread uses its own random.
+	 */
+	final class Traffic {
+
+		private final double[] cumulative;
+		private final int[] binByRank;
+		private final double missRatio;
+
+		private Traffic(double exponent, double missRatio, long seed) {
+			int binCount = binCount();
+			this.missRatio = missRatio;
+			this.cumulative = new double[binCount];
+			double sum = 0;
+			for (int rank = 0; rank < binCount; rank++)
+				cumulative[rank] = sum += 1 / Math.pow(rank + 1, exponent);
+			for (int rank = 0; rank < binCount; rank++)
+				cumulative[rank] /= sum;
+
+			// Shuffle the ranking, so the popular BINs are spread over the index.
+			SplittableRandom random = new SplittableRandom(seed);
+			binByRank = new int[binCount];
+			for (int i = 0; i < binCount; i++)
+				binByRank[i] = i;
+			for (int i = binCount - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int swap = binByRank[i];
+				binByRank[i] = binByRank[j];
+				binByRank[j] = swap;
+			}
+		}
+
+		/**
+		 * @return A 16-digit card number.
+		 */
+		String nextCard(SplittableRandom random) {
+			long card;
+			if (random.nextDouble() < missRatio) {
+				card = random.nextLong(300_000 * BIN_FACTOR, FIRST_BIN * BIN_FACTOR);
+			} else {
+				int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+				int b = binByRank[Math.min(rank < 0 ? -rank - 1 : rank, binByRank.length - 1)];
+				int row = random.nextInt(binStarts[b], binStarts[b + 1]);
+				card = random.nextLong(minRanges[row], maxRanges[row] + 1);
+			}
+			return Long.toString(card).substring(0, 16);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.binary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns stable numeric ids to bank names for the binary protocol.
+ * <p>
+ * Ids are handed out on first sight and never reassigned, so clients can cache
+ * the id to name mapping for as long as they stay connected to the same server,
+ * across catalog refreshes and lookup engines. Names are appended to an array
+ * indexed by id, which doubles when full, so resolving an id is a plain array
+ * read. Since names are never dropped, the dictionary is bounded by
+ * {@code binary.server.bank.names.max}; once full, new names get {@link #NO_NAME}
+ * and clients have to fall back to the REST API for them.
+ */
+public class BankNameDictionary {
+
+    /**
+     * The id of an absent bank name.
+     */
+    public static final int NO_NAME = -1;
+
+    private static final Logger logger = LoggerFactory.getLogger(BankNameDictionary.class);
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int maximumSize;
+
+    /**
+     * The names by id. Entries are written before the array is republished, so a
+     * reader of this field sees every name assigned before it.
+     */
+    private volatile String[] names = new String[64];
+    private int size;
+    private boolean full;
+
+    /**
+     * @param maximumSize The maximum number of distinct bank names given an id.
+     */
+    public BankNameDictionary(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the id of a bank name, assigning one if the name is new.
+     *
+     * @param name The bank name, may be null.
+     * @return The id of the name, or {@link #NO_NAME} for null or if the dictionary is full.
+     */
+    public int idOf(String name) {
+        if (name == null)
+            return NO_NAME;
+
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null)
+                return id;
+
+            if (size == maximumSize) {
+                if (!full) {
+                    full = true;
+                    logger.warn("Bank name dictionary is full with {} names; new bank names are sent without an id.", size);
+                }
+                return NO_NAME;
+            }
+
+            String[] array = names;
+            if (size == array.length)
+                array = Arrays.copyOf(array, Math.min(size * 2, maximumSize));
+            array[size] = name;
+            names = array;
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the bank name of an id.
+     *
+     * @param id The id returned by {@link #idOf(String)}.
+     * @return The bank name, or null if the id was never assigned.
+     */
+    public String nameOf(int id) {
+        String[] array = names;
+        return id >= 0 && id < array.length ? array[id] : null;
+    }
+}
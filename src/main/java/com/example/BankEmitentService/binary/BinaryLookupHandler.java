@@ -0,0 +1,160 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.binary;
+
+import com.example.BankEmitentService.dto.BankEmitmentDTO;
+import com.example.BankEmitentService.services.CardValidationService;
+import com.example.BankEmitentService.services.LookupCapacityExceededException;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.AsciiString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.example.BankEmitentService.binary.BinaryProtocol.*;
+
+/**
+ * Answers binary protocol frames with the lookup engine of {@link CardValidationService}.
+ * <p>
+ * Lookups served from memory are answered on the event loop, and the responses
+ * of a read burst are flushed together once the burst has been read. Lookups
+ * that would query the database are handed to the blocking executor, so a slow
+ * query never stalls the other connections of the event loop; their responses
+ * are flushed as soon as they are ready. When the blocking executor is saturated,
+ * the lookup is answered with {@link BinaryProtocol#UNAVAILABLE} right away.
+ */
+@ChannelHandler.Sharable
+class BinaryLookupHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryLookupHandler.class);
+
+    private final CardValidationService cardValidationService;
+    private final BankNameDictionary bankNames;
+    private final Executor blockingExecutor;
+
+    /**
+     * @param cardValidationService The lookup engine.
+     * @param bankNames The dictionary assigning bank name ids.
+     * @param blockingExecutor The executor running lookups that may query the database.
+     */
+    BinaryLookupHandler(CardValidationService cardValidationService, BankNameDictionary bankNames, Executor blockingExecutor) {
+        this.cardValidationService = cardValidationService;
+        this.bankNames = bankNames;
+        this.blockingExecutor = blockingExecutor;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+        if (frame.readableBytes() < HEADER) {
+            ctx.close();
+            return;
+        }
+
+        byte opcode = frame.readByte();
+        long requestId = frame.readLong();
+
+        switch (opcode) {
+            case LOOKUP -> {
+                int panLength = frame.isReadable() ? frame.readUnsignedByte() : 0;
+                if (panLength > frame.readableBytes()) {
+                    ctx.write(status(ctx, opcode, requestId, INVALID));
+                    return;
+                }
+                byte[] pan = new byte[panLength];
+                frame.readBytes(pan);
+                AsciiString cardNumber = new AsciiString(pan, false);
+
+                if (cardValidationService.servesFromMemory()) {
+                    ctx.write(lookup(ctx, requestId, cardNumber));
+                } else {
+                    try {
+                        blockingExecutor.execute(() -> ctx.writeAndFlush(lookup(ctx, requestId, cardNumber)));
+                    } catch (RejectedExecutionException e) {
+                        ctx.write(status(ctx, opcode, requestId, UNAVAILABLE));
+                    }
+                }
+            }
+            case BANK_NAME -> {
+                String name = frame.readableBytes() >= Integer.BYTES ? bankNames.nameOf(frame.readInt()) : null;
+                ctx.write(name == null ? status(ctx, opcode, requestId, NOT_FOUND) : bankName(ctx, requestId, name));
+            }
+            default -> ctx.write(status(ctx, opcode, requestId, UNKNOWN_OPCODE));
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.warn("Closing binary lookup connection {}: {}", ctx.channel().remoteAddress(), cause.getMessage());
+        ctx.close();
+    }
+
+    /**
+     * Runs a lookup and encodes its response.
+     */
+    private ByteBuf lookup(ChannelHandlerContext ctx, long requestId, CharSequence cardNumber) {
+        Optional<BankEmitmentDTO> result;
+        try {
+            result = cardValidationService.checkCardRange(cardNumber);
+        } catch (IllegalArgumentException e) {
+            return status(ctx, LOOKUP, requestId, INVALID);
+        } catch (LookupCapacityExceededException e) {
+            return status(ctx, LOOKUP, requestId, UNAVAILABLE);
+        }
+
+        if (result.isEmpty())
+            return status(ctx, LOOKUP, requestId, NOT_FOUND);
+
+        BankEmitmentDTO emitment = result.get();
+        String alphaCode = emitment.getAlphaCode() == null ? "" : emitment.getAlphaCode();
+        int alphaCodeLength = Math.min(alphaCode.length(), 255);
+
+        ByteBuf response = header(ctx, LOOKUP, requestId, FOUND, Integer.BYTES + Byte.BYTES + alphaCodeLength + Integer.BYTES);
+        response.writeInt(emitment.getBin());
+        response.writeByte(alphaCodeLength);
+        response.writeCharSequence(alphaCode.subSequence(0, alphaCodeLength), StandardCharsets.US_ASCII);
+        response.writeInt(bankNames.idOf(emitment.getBankName()));
+        return response;
+    }
+
+    private static ByteBuf bankName(ChannelHandlerContext ctx, long requestId, String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(utf8.length, Short.MAX_VALUE);
+
+        ByteBuf response = header(ctx, BANK_NAME, requestId, FOUND, Short.BYTES + length);
+        response.writeShort(length);
+        response.writeBytes(utf8, 0, length);
+        return response;
+    }
+
+    private static ByteBuf status(ChannelHandlerContext ctx, byte opcode, long requestId, byte status) {
+        return header(ctx, opcode, requestId, status, 0);
+    }
+
+    /**
+     * Allocates a response and writes its length prefix, opcode, request id and status.
+     */
+    private static ByteBuf header(ChannelHandlerContext ctx, byte opcode, long requestId, byte status, int bodyLength) {
+        int frameLength = HEADER + Byte.BYTES + bodyLength;
+        ByteBuf response = ctx.alloc().buffer(LENGTH_FIELD + frameLength);
+        response.writeInt(frameLength);
+        response.writeByte(opcode);
+        response.writeLong(requestId);
+        response.writeByte(status);
+        return response;
+    }
+}
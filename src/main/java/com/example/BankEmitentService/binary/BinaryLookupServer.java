@@ -0,0 +1,169 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.binary;
+
+import com.example.BankEmitentService.services.CardValidationService;
+import com.example.BankEmitentService.utils.IoThreads;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.BankEmitentService.constants.Constants.BINARY_SERVER_BANK_NAMES_MAX;
+import static com.example.BankEmitentService.constants.Constants.BINARY_SERVER_BLOCKING_QUEUE;
+import static com.example.BankEmitentService.constants.Constants.BINARY_SERVER_BLOCKING_THREADS;
+import static com.example.BankEmitentService.constants.Constants.BINARY_SERVER_ENABLED;
+import static com.example.BankEmitentService.constants.Constants.BINARY_SERVER_PORT;
+
+/**
+ * Optional TCP listener serving card lookups over the compact {@link BinaryProtocol},
+ * for internal clients that find JSON over HTTP too heavy per lookup.
+ * <p>
+ * Enabled with {@code binary.server.enabled=true} on {@code binary.server.port}. It
+ * answers from the same {@link CardValidationService} as the REST API, so lookups
+ * share the index, the database fallback, the metrics and the lookup log.
+ */
+@Component
+public class BinaryLookupServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryLookupServer.class);
+
+    private final CardValidationService cardValidationService;
+    private final IoThreads ioThreads;
+    private final BankNameDictionary bankNames = new BankNameDictionary(BINARY_SERVER_BANK_NAMES_MAX);
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private ExecutorService blockingExecutor;
+    private Channel serverChannel;
+
+    /**
+     * Constructs a new instance of BinaryLookupServer.
+     *
+     * @param cardValidationService The lookup engine shared with the REST API.
+     * @param ioThreads The builder of the threads running database lookups.
+     */
+    @Autowired
+    public BinaryLookupServer(CardValidationService cardValidationService, IoThreads ioThreads) {
+        this.cardValidationService = cardValidationService;
+        this.ioThreads = ioThreads;
+    }
+
+    /**
+     * Starts the listener once the application is ready, if it is enabled.
+     *
+     * @throws InterruptedException if interrupted while binding.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() throws InterruptedException {
+        if (!BINARY_SERVER_ENABLED)
+            return;
+
+        int port = start(BINARY_SERVER_PORT);
+        logger.info("Binary lookup server listening on port {}.", port);
+    }
+
+    /**
+     * Binds the listener.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The bound port.
+     * @throws InterruptedException if interrupted while binding.
+     */
+    public synchronized int start(int port) throws InterruptedException {
+        if (serverChannel != null)
+            throw new IllegalStateException("Binary lookup server is already running.");
+
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup();
+        blockingExecutor = newBlockingExecutor();
+        BinaryLookupHandler handler = new BinaryLookupHandler(cardValidationService, bankNames, blockingExecutor);
+
+        serverChannel = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                .addLast(newFrameDecoder())
+                                .addLast(handler);
+                    }
+                })
+                .bind(port)
+                .sync()
+                .channel();
+
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    /**
+     * Creates the executor running lookups that may query the database.
+     * <p>
+     * With virtual threads every lookup gets its own thread, and the lookup semaphore
+     * of {@link CardValidationService} bounds the database work. Platform threads are
+     * pooled instead: {@code binary.server.blocking.threads} of them, with up to
+     * {@code binary.server.blocking.queue} waiting lookups. Lookups beyond that are
+     * rejected and answered with {@link BinaryProtocol#UNAVAILABLE}.
+     *
+     * @return The blocking executor.
+     */
+    private ExecutorService newBlockingExecutor() {
+        if (ioThreads.virtual())
+            return Executors.newThreadPerTaskExecutor(ioThreads.factory("binary-lookup-"));
+
+        return new ThreadPoolExecutor(BINARY_SERVER_BLOCKING_THREADS, BINARY_SERVER_BLOCKING_THREADS,
+                                      0L, TimeUnit.MILLISECONDS,
+                                      new ArrayBlockingQueue<>(BINARY_SERVER_BLOCKING_QUEUE),
+                                      ioThreads.factory("binary-lookup-"));
+    }
+
+    /**
+     * Creates the decoder splitting the byte stream of a connection into request frames.
+     * Frames longer than {@link BinaryProtocol#MAX_REQUEST_LENGTH} fail the connection.
+     *
+     * @return A new frame decoder; one is needed per connection.
+     */
+    static LengthFieldBasedFrameDecoder newFrameDecoder() {
+        return new LengthFieldBasedFrameDecoder(BinaryProtocol.MAX_REQUEST_LENGTH + BinaryProtocol.LENGTH_FIELD,
+                                                0, BinaryProtocol.LENGTH_FIELD, 0, BinaryProtocol.LENGTH_FIELD);
+    }
+
+    /**
+     * Closes the listener and every open connection.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (serverChannel == null)
+            return;
+
+        serverChannel.close().syncUninterruptibly();
+        blockingExecutor.close();
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+        serverChannel = null;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.binary;
+
+/**
+ * Layout of the binary lookup protocol served by {@link BinaryLookupServer}.
+ * <p>
+ * Every frame starts with a big-endian {@code int} holding the length of the rest
+ * of the frame, followed by an opcode and a request id chosen by the client.
+ * Responses repeat both, so a client may pipeline any number of requests on one
+ * connection and match responses by id. Responses are not guaranteed to arrive in
+ * request order.
+ * <pre>
+ * request  : int length | byte opcode | long requestId | body
+ * response : int length | byte opcode | long requestId | byte status | body
+ *
+ * LOOKUP     request body : byte panLength | panLength ASCII bytes
+ *            response body: int bin | byte alphaCodeLength | ASCII alpha code | int bankNameId  (FOUND only)
+ * BANK_NAME  request body : int bankNameId
+ *            response body: short nameLength | UTF-8 bank name                              (FOUND only)
+ * </pre>
+ * The PAN accepts the same formats as the REST API: digits, spaces, dashes and
+ * {@code *} for masked digits. Bank name ids are assigned by the server, stay
+ * stable for the lifetime of the server process, and are {@code -1} when a range
+ * has no bank name or the server already holds {@code binary.server.bank.names.max}
+ * other names.
+ */
+public final class BinaryProtocol {
+
+    public static final byte LOOKUP = 1;
+    public static final byte BANK_NAME = 2;
+
+    public static final byte FOUND = 0;
+    public static final byte NOT_FOUND = 1;
+    public static final byte INVALID = 2;
+    public static final byte UNAVAILABLE = 3;
+    public static final byte UNKNOWN_OPCODE = 4;
+
+    /**
+     * Size of the length prefix.
+     */
+    public static final int LENGTH_FIELD = Integer.BYTES;
+
+    /**
+     * Size of the opcode and request id that start every frame body.
+     */
+    public static final int HEADER = Byte.BYTES + Long.BYTES;
+
+    /**
+     * The longest accepted PAN, leaving room for separators.
+     */
+    public static final int MAX_PAN_LENGTH = 64;
+
+    /**
+     * The longest accepted request frame, excluding the length prefix.
+     */
+    public static final int MAX_REQUEST_LENGTH = HEADER + Byte.BYTES + MAX_PAN_LENGTH;
+
+    private BinaryProtocol() {
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.cache;
+
+import com.example.BankEmitentService.dto.BankEmitmentDTO;
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import static com.example.BankEmitentService.constants.Constants.BIN_RESULT_CACHE_MAX_SIZE;
+import static com.example.BankEmitentService.constants.Constants.BIN_RESULT_CACHE_TTL_SECONDS;
+
+/**
+ * Bounded cache of the ranges of a BIN, placed in front of database lookups.
+ * <p>
+ * Every range of a BIN is cached under one entry with its DTO already built, so
+ * any card number of a cached BIN is resolved without a query. Unknown BINs are
+ * cached as empty entries. Entries are evicted by size ({@code bin.result.cache.max.size})
+ * and age ({@code bin.result.cache.ttl.seconds}), and hit, miss and eviction counts
+ * are published as the {@code bin.results} cache metrics.
+ * <p>
+ * Keys include the generation of {@link BinRangeIndexHolder}, which advances
+ * whenever the data updater finishes a load. A new generation therefore starts
+ * with an empty cache, and entries of the previous one age out without a
+ * separate invalidation step.
+ * <p>
+ * A {@code bin.result.cache.max.size} of 0 disables the cache; database lookups
+ * then match the card number with a single indexed query instead of reading
+ * the whole BIN.
+ */
+@Component
+public class BinResultCache {
+
+    private final Cache<Key, BinRanges> cache;
+    private final BinRangeIndexHolder indexHolder;
+    private final boolean enabled;
+
+    /**
+     * Constructs a BinResultCache with the configured size and TTL.
+     *
+     * @param indexHolder The holder whose generation versions the cached entries.
+     * @param registry The registry the cache statistics are registered in.
+     */
+    @Autowired
+    public BinResultCache(BinRangeIndexHolder indexHolder, MeterRegistry registry) {
+        this(indexHolder, registry, BIN_RESULT_CACHE_MAX_SIZE, Duration.ofSeconds(BIN_RESULT_CACHE_TTL_SECONDS));
+    }
+
+    /**
+     * Constructs a BinResultCache.
+     *
+     * @param indexHolder The holder whose generation versions the cached entries.
+     * @param registry The registry the cache statistics are registered in.
+     * @param maximumSize The maximum number of cached BINs, 0 to disable the cache.
+     * @param timeToLive How long a BIN stays cached after it was loaded.
+     */
+    public BinResultCache(BinRangeIndexHolder indexHolder, MeterRegistry registry, long maximumSize, Duration timeToLive) {
+        this.indexHolder = indexHolder;
+        this.enabled = maximumSize > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "bin.results");
+    }
+
+    /**
+     * Tells whether BINs are cached at all. Callers should not go through
+     * {@link #find(int, long, IntFunction)} otherwise, since every call would
+     * load the whole BIN only to drop it again.
+     *
+     * @return false if {@code bin.result.cache.max.size} is 0.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Resolves a card number from the cached ranges of its BIN, loading them on a miss.
+     * <p>
+     * The loader runs outside the cache's internal locks, so a virtual thread
+     * waiting on the database is never pinned. Concurrent misses for the same
+     * BIN may each query; the last result wins and is identical anyway.
+     *
+     * @param bin The BIN of the card number.
+     * @param cardAsLong The normalized card number.
+     * @param loader Loads the ranges of a BIN ordered by lower bound.
+     * @return An Optional containing a BankEmitmentDTO if a range matches, or an empty Optional.
+     */
+    public Optional<BankEmitmentDTO> find(int bin, long cardAsLong, IntFunction<List<BankEmitment>> loader) {
+        Key key = new Key(indexHolder.generation(), bin);
+        BinRanges ranges = cache.getIfPresent(key);
+        if (ranges == null) {
+            ranges = BinRanges.of(loader.apply(bin));
+            cache.put(key, ranges);
+        }
+        return Optional.ofNullable(ranges.find(cardAsLong));
+    }
+
+    private record Key(long generation, int bin) {
+    }
+
+    /**
+     * The ranges of one BIN, ordered by lower bound.
+     */
+    private record BinRanges(long[] minRanges, long[] maxRanges, BankEmitmentDTO[] results) {
+
+        private static final BinRanges EMPTY = new BinRanges(new long[0], new long[0], new BankEmitmentDTO[0]);
+
+        static BinRanges of(List<BankEmitment> emitments) {
+            if (emitments.isEmpty())
+                return EMPTY;
+
+            int size = emitments.size();
+            long[] minRanges = new long[size];
+            long[] maxRanges = new long[size];
+            BankEmitmentDTO[] results = new BankEmitmentDTO[size];
+            for (int i = 0; i < size; i++) {
+                BankEmitment emitment = emitments.get(i);
+                minRanges[i] = emitment.getMinRange() == null ? Long.MAX_VALUE : emitment.getMinRange();
+                maxRanges[i] = emitment.getMaxRange() == null ? Long.MIN_VALUE : emitment.getMaxRange();
+                results[i] = BankEmitmentDTO.builder()
+                        .bin(emitment.getBin())
+                        .alphaCode(emitment.getAlphaCode())
+                        .bankName(emitment.getBankName())
+                        .build();
+            }
+            return new BinRanges(minRanges, maxRanges, results);
+        }
+
+        /**
+         * Finds the range containing the card number; the greatest lower bound wins
+         * when ranges overlap, as in the database query and the in-memory index.
+         */
+        BankEmitmentDTO find(long cardAsLong) {
+            for (int i = minRanges.length - 1; i >= 0; i--) {
+                if (minRanges[i] <= cardAsLong && maxRanges[i] >= cardAsLong)
+                    return results[i];
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.cluster;
+
+import java.time.Instant;
+
+/**
+ * The catalog generation currently stored in the shared bank_emitments table, as
+ * recorded by the node that loaded it.
+ * <p>
+ * Published as an application event when another node has loaded a new generation,
+ * so this node can rebuild its in-memory index from the database.
+ *
+ * @param number The generation number, increased by every load. 0 before the first recorded load.
+ * @param loadedAt The database time the generation was loaded, or null before the first recorded load.
+ * @param loadedBy The id of the node that loaded the generation, or null before the first recorded load.
+ * @param checkedAt The database time of the last completed refresh on any node, whether it changed the table or not.
+ */
+public record CatalogGeneration(long number, Instant loadedAt, String loadedBy, Instant checkedAt) {
+}
@@ -0,0 +1,417 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.cluster;
+
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.repositories.CatalogGenerationRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static com.example.BankEmitentService.constants.Constants.CLUSTER_COORDINATION_ENABLED;
+import static com.example.BankEmitentService.constants.Constants.CLUSTER_REFRESH_JITTER_SECONDS;
+import static com.example.BankEmitentService.constants.Constants.CLUSTER_REFRESH_RETRY_SECONDS;
+import static com.example.BankEmitentService.constants.Constants.CLUSTER_REFRESH_WINDOW_SECONDS;
+
+/**
+ * Coordinates catalog refreshes between replicas sharing one database, so that
+ * only one of them downloads the catalog and rewrites bank_emitments per refresh.
+ * <p>
+ * On every scheduled refresh each node waits a random jitter and then tries to take
+ * a PostgreSQL session-level advisory lock. The node that gets it is the leader: it
+ * runs the refresh and records the outcome in the catalog_generation table. A new
+ * generation is announced with {@code NOTIFY}; every other node listens on a
+ * dedicated connection and rebuilds its in-memory index from the database when it
+ * is notified, by way of a {@link CatalogGeneration} application event.
+ * <p>
+ * Nodes that do not get the lock keep retrying at jittered intervals until a
+ * refresh has been recorded for the current round or the refresh window has
+ * passed. If the leader dies mid-load, its session ends and PostgreSQL releases the
+ * lock, so the next follower to retry takes over. The staging table is only
+ * swapped in once it has been validated, so a takeover starts from a clean state.
+ * <p>
+ * Disabled by default with {@code cluster.coordination.enabled=false}, in which case
+ * every refresh simply runs locally.
+ */
+@Component
+public class RefreshCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshCoordinator.class);
+
+    /**
+     * Arbitrary application-wide key of the refresh advisory lock.
+     */
+    private static final long REFRESH_LOCK_KEY = 0x42494E5F52454EL;
+
+    /**
+     * How long before the start of a round a completed refresh still counts for it,
+     * covering the clock skew between the nodes' schedulers.
+     */
+    private static final Duration ROUND_TOLERANCE = Duration.ofMinutes(1);
+
+    private static final int LISTEN_POLL_MILLIS = 5_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final HikariDataSource writerDataSource;
+    private final CatalogGenerationRepository generations;
+    private final BinRangeIndexHolder indexHolder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long jitterSeconds;
+    private final long retrySeconds;
+    private final long windowSeconds;
+
+    /**
+     * The generation the local index was built from, or -1 until it is known.
+     */
+    private final AtomicLong appliedGeneration = new AtomicLong(-1);
+
+    private volatile boolean listening;
+    private volatile Connection listenConnection;
+    private Thread listener;
+
+    /**
+     * Constructs a new instance of RefreshCoordinator.
+     *
+     * @param writerDataSource The writer pool, which the advisory lock connection is taken from
+     *                         and whose settings the listener connection is opened with.
+     * @param generations The repository of the catalog_generation table.
+     * @param indexHolder The holder of the local index, used to detect a stale index on startup.
+     * @param eventPublisher The publisher of {@link CatalogGeneration} events.
+     * @param nodeId The {@code cluster.node.id} setting; blank for {@code pid@host}.
+     */
+    @Autowired
+    public RefreshCoordinator(@Qualifier("writerDataSource") HikariDataSource writerDataSource,
+                              CatalogGenerationRepository generations,
+                              BinRangeIndexHolder indexHolder,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${cluster.node.id:}") String nodeId) {
+        this(writerDataSource, generations, indexHolder, eventPublisher, CLUSTER_COORDINATION_ENABLED,
+             nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId,
+             CLUSTER_REFRESH_JITTER_SECONDS, CLUSTER_REFRESH_RETRY_SECONDS, CLUSTER_REFRESH_WINDOW_SECONDS);
+    }
+
+    /**
+     * Constructs a RefreshCoordinator with explicit coordination settings.
+     *
+     * @param writerDataSource The writer pool, which the advisory lock connection is taken from
+     *                         and whose settings the listener connection is opened with.
+     * @param generations The repository of the catalog_generation table.
+     * @param indexHolder The holder of the local index, used to detect a stale index on startup.
+     * @param eventPublisher The publisher of {@link CatalogGeneration} events.
+     * @param enabled Whether refreshes are coordinated, or simply run locally.
+     * @param nodeId The id this node records in catalog_generation.
+     * @param jitterSeconds The maximum random delay before the first attempt to take the refresh lock.
+     * @param retrySeconds The average delay between two attempts to take the refresh lock.
+     * @param windowSeconds How long to keep retrying before giving up until the next round.
+     */
+    RefreshCoordinator(HikariDataSource writerDataSource,
+                       CatalogGenerationRepository generations,
+                       BinRangeIndexHolder indexHolder,
+                       ApplicationEventPublisher eventPublisher,
+                       boolean enabled,
+                       String nodeId,
+                       long jitterSeconds,
+                       long retrySeconds,
+                       long windowSeconds) {
+        this.writerDataSource = writerDataSource;
+        this.generations = generations;
+        this.indexHolder = indexHolder;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.jitterSeconds = jitterSeconds;
+        this.retrySeconds = retrySeconds;
+        this.windowSeconds = windowSeconds;
+    }
+
+    /**
+     * @return The id this node records in catalog_generation.
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Creates the catalog_generation table if needed and starts listening for new
+     * generations. Called once the local index has been loaded on startup, so that
+     * an index older than the last recorded generation is rebuilt right away.
+     */
+    public synchronized void start() {
+        if (!enabled || listener != null)
+            return;
+
+        generations.createTable();
+
+        listening = true;
+        listener = Thread.ofPlatform().name("catalog-listener").daemon().start(this::listen);
+
+        logger.info("Cluster coordination enabled as node {}.", nodeId);
+    }
+
+    /**
+     * Stops listening for new generations.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (listener == null)
+            return;
+
+        listening = false;
+        listener.interrupt();
+        closeQuietly(listenConnection);
+        listener = null;
+    }
+
+    /**
+     * Runs a scheduled refresh on the elected node only.
+     * <p>
+     * Without coordination the refresh just runs. Otherwise this method waits a random
+     * jitter, then tries to take the refresh lock until either this node gets it or a
+     * refresh has been completed for the current round by another node. The calling
+     * thread is blocked for at most {@code cluster.refresh.window.seconds}, which must
+     * be shorter than the refresh period.
+     * <p>
+     * A refresh that reports success is recorded as completed, whether it loaded a new
+     * generation or found the catalog unchanged. A refresh that fails or throws is not
+     * recorded, so another node takes over on its next retry.
+     *
+     * @param refresh The refresh to run if this node is elected. Returns true if it completed.
+     * @return true if the refresh ran and completed on this node.
+     */
+    public boolean runElected(BooleanSupplier refresh) {
+        if (!enabled)
+            return refresh.getAsBoolean();
+
+        try {
+            Instant round = generations.databaseTime().minus(ROUND_TOLERANCE);
+            Instant deadline = Instant.now().plusSeconds(windowSeconds);
+            Thread.sleep(jitterMillis(jitterSeconds));
+
+            while (true) {
+                Boolean ran = tryRefresh(round, refresh);
+                if (ran != null)
+                    return ran;
+
+                if (Instant.now().isAfter(deadline)) {
+                    logger.warn("No node completed the refresh within {} seconds, giving up until the next round.", windowSeconds);
+                    return false;
+                }
+
+                logger.debug("Another node holds the refresh lock, retrying later.");
+                Thread.sleep(retrySeconds * 500 + jitterMillis(retrySeconds));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for the refresh lock.");
+            return false;
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Coordinated refresh failed on this node, another node may take over! {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Takes the refresh lock if it is free and runs the refresh unless another node
+     * has already completed it for the current round. Only a completed refresh is
+     * recorded; after a failure the lock is released with the round still open.
+     *
+     * @param round The database time the current round started at, less the tolerance.
+     * @param refresh The refresh to run.
+     * @return true if the refresh ran and completed, false if it failed or was already
+     *         completed, or null if another node holds the lock.
+     */
+    private Boolean tryRefresh(Instant round, BooleanSupplier refresh) throws SQLException {
+        try (Connection connection = writerDataSource.getConnection()) {
+            if (!advisoryLock(connection, "pg_try_advisory_lock"))
+                return isCompleted(round) ? false : null;
+
+            try {
+                if (isCompleted(round)) {
+                    logger.info("Refresh already completed by another node, skipping.");
+                    return false;
+                }
+
+                logger.info("Elected to refresh the catalog as node {}.", nodeId);
+                if (!refresh.getAsBoolean()) {
+                    logger.warn("Refresh failed on node {}, leaving the round to another node.", nodeId);
+                    return false;
+                }
+                generations.recordCheck();
+                return true;
+            } finally {
+                unlock(connection);
+            }
+        }
+    }
+
+    private boolean isCompleted(Instant round) {
+        Instant checkedAt = generations.current().checkedAt();
+        return checkedAt != null && !checkedAt.isBefore(round);
+    }
+
+    /**
+     * Releases the refresh lock. If that fails on a live connection, the connection
+     * is evicted from the pool so the lock cannot outlive the refresh.
+     */
+    private void unlock(Connection connection) {
+        try {
+            advisoryLock(connection, "pg_advisory_unlock");
+        } catch (SQLException e) {
+            logger.warn("Failed to release the refresh lock, evicting its connection: {}", e.getMessage());
+            writerDataSource.evictConnection(connection);
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(STR."SELECT \{function}(?)")) {
+            statement.setLong(1, REFRESH_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Records that this node has loaded a new generation into bank_emitments and
+     * notifies the other nodes. Does nothing without coordination.
+     */
+    public void generationLoaded() {
+        if (!enabled)
+            return;
+
+        try {
+            CatalogGeneration generation = generations.recordLoad(nodeId);
+            appliedGeneration.set(generation.number());
+
+            logger.info("Generation {} recorded and announced.", generation.number());
+        } catch (RuntimeException e) {
+            logger.error("Failed to announce the new generation, other nodes will pick it up on reconnect or their next refresh! {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Listens for new generations until stopped, reconnecting after a failure. On every
+     * (re)connection the recorded generation is compared with the local one, so
+     * notifications missed while disconnected are caught up on.
+     */
+    private void listen() {
+        while (listening) {
+            try (Connection connection = DriverManager.getConnection(writerDataSource.getJdbcUrl(),
+                                                                     writerDataSource.getUsername(),
+                                                                     writerDataSource.getPassword())) {
+                listenConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(STR."LISTEN \{CatalogGenerationRepository.CHANNEL}");
+                }
+                catchUp();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (listening) {
+                    PGNotification[] notifications = pgConnection.getNotifications(LISTEN_POLL_MILLIS);
+                    if (notifications != null && notifications.length > 0)
+                        onNotifications(notifications);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!listening)
+                    return;
+                logger.warn("Generation listener failed, reconnecting: {}", e.getMessage());
+            } finally {
+                listenConnection = null;
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS + jitterMillis(1));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the local index if a newer generation was recorded while this node
+     * was not listening. On the first connection the local index is compared by
+     * time, since the generation it was built from is not known yet.
+     */
+    void catchUp() {
+        CatalogGeneration current = generations.current();
+        long applied = appliedGeneration.get();
+
+        boolean stale = applied < 0
+                ? current.loadedAt() != null && current.loadedAt().toEpochMilli() > indexHolder.publishedAt()
+                : current.number() > applied;
+
+        if (stale)
+            apply(current);
+        else
+            appliedGeneration.compareAndSet(applied, current.number());
+    }
+
+    /**
+     * Applies the newest generation announced by another node.
+     */
+    void onNotifications(PGNotification[] notifications) {
+        long newest = -1;
+        for (PGNotification notification : notifications) {
+            String payload = notification.getParameter();
+            int separator = payload.indexOf(':');
+            if (separator < 0 || nodeId.equals(payload.substring(separator + 1)))
+                continue;
+            newest = Math.max(newest, Long.parseLong(payload, 0, separator, 10));
+        }
+
+        if (newest > appliedGeneration.get())
+            apply(generations.current());
+    }
+
+    /**
+     * Publishes the generation to the local listeners, which rebuild the index from
+     * the database. The generation only counts as applied once they have succeeded,
+     * so a failed rebuild is retried on the next notification or reconnection.
+     */
+    private void apply(CatalogGeneration generation) {
+        logger.info("Generation {} was loaded by {}, rebuilding the local index.", generation.number(), generation.loadedBy());
+
+        eventPublisher.publishEvent(generation);
+        appliedGeneration.accumulateAndGet(generation.number(), Math::max);
+    }
+
+    private static long jitterMillis(long maxSeconds) {
+        return maxSeconds <= 0 ? 0 : ThreadLocalRandom.current().nextLong(maxSeconds * 1000);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null)
+            return;
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // The listener is shutting down anyway.
+        }
+    }
+}
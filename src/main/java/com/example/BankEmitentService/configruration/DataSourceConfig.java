@@ -0,0 +1,71 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.configruration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Configures two connection pools, one for the catalog refresh and one for lookups,
+ * behind a single data source that picks the pool by transaction.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * The pool used by the catalog refresh: bulk loads, staging table swaps and deltas.
+     * Configured by the standard {@code spring.datasource.*} properties.
+     *
+     * @param properties The standard data source properties.
+     * @return The writer connection pool.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writerDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * The pool used by read-only transactions, mainly card lookups. It connects to the
+     * same database as the writer unless {@code lookup.datasource.hikari.jdbc-url}
+     * points it at a read replica.
+     *
+     * @param properties The standard data source properties.
+     * @return The lookup connection pool.
+     */
+    @Bean
+    @ConfigurationProperties("lookup.datasource.hikari")
+    public HikariDataSource lookupDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * The application data source. Connections are fetched lazily, so a transaction
+     * marked read-only gets a connection from the lookup pool and every other
+     * transaction gets one from the writer pool.
+     *
+     * @param writerDataSource The writer connection pool.
+     * @param lookupDataSource The lookup connection pool.
+     * @return A data source routing each transaction to one of the pools.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writerDataSource") DataSource writerDataSource,
+                                 @Qualifier("lookupDataSource") DataSource lookupDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writerDataSource);
+        dataSource.setReadOnlyDataSource(lookupDataSource);
+        return dataSource;
+    }
+}
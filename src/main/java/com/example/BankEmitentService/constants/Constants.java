@@ -6,7 +6,6 @@
 
 package com.example.BankEmitentService.constants;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
@@ -14,31 +13,90 @@ import java.util.Properties;
 /**
  * This class contains constants used for file handling and download paths
  * related to bank information processing.
+ * <p>
+ * Values are read from the bundled application.properties once, when the class
+ * is first used. Settings that deployments or tests need to change, such as the
+ * catalog location or the lookup engine, are bound through the Spring
+ * Environment instead and are not listed here.
  */
 public final class Constants {
 
-    public static final String BASE_FOLDER;
     public static final String BIN_INFO_JSON;
-    public static final String BIN_INFO_ZIP;
-    public static final String ONLINE_CATALOG_URI;
-    public static final String ZIP_DOWNLOAD_FOLDER;
-    public static final String ZIP_EXTRACT_FOLDER_PATH;
-    public static final String ZIP_FILE_PATH;
-    public static final String BIN_INFO_JSON_PATH;
+    public static final int DOWNLOAD_CONNECT_TIMEOUT_MS;
+    public static final int DOWNLOAD_READ_TIMEOUT_MS;
+    public static final int DOWNLOAD_MAX_ATTEMPTS;
+    public static final long DOWNLOAD_BACKOFF_INITIAL_MS;
+    public static final long DOWNLOAD_BACKOFF_MAX_MS;
+    public static final int PARSE_CHUNK_SIZE;
+    public static final String PARSE_MODE;
+    public static final int PARSE_PARALLELISM;
+    public static final String BULK_LOAD_MODE;
+    public static final int BULK_LOAD_WRITERS;
+    public static final boolean CATALOG_PIPELINE_ENABLED;
+    public static final double CATALOG_DELTA_MAX_RATIO;
+    public static final int BATCH_MAX_SIZE;
+    public static final boolean CARD_LUHN_CHECK_ENABLED;
+    public static final long LOOKUP_DB_ACQUIRE_TIMEOUT_MS;
+    public static final double LOOKUP_LOG_SAMPLE_HIT;
+    public static final double LOOKUP_LOG_SAMPLE_MISS;
+    public static final double LOOKUP_LOG_SAMPLE_INVALID;
+    public static final long BIN_CACHE_MAX_AGE_SECONDS;
+    public static final boolean LOOKUP_PRESENCE_FILTER_ENABLED;
+    public static final int LOOKUP_PRESENCE_BLOOM_BITS;
+    public static final boolean SEARCH_ENABLED;
+    public static final int SEARCH_MAX_PAGE_SIZE;
+    public static final long BIN_RESULT_CACHE_MAX_SIZE;
+    public static final long BIN_RESULT_CACHE_TTL_SECONDS;
+    public static final boolean BINARY_SERVER_ENABLED;
+    public static final int BINARY_SERVER_PORT;
+    public static final int BINARY_SERVER_BLOCKING_THREADS;
+    public static final int BINARY_SERVER_BLOCKING_QUEUE;
+    public static final int BINARY_SERVER_BANK_NAMES_MAX;
+    public static final boolean CLUSTER_COORDINATION_ENABLED;
+    public static final long CLUSTER_REFRESH_JITTER_SECONDS;
+    public static final long CLUSTER_REFRESH_RETRY_SECONDS;
+    public static final long CLUSTER_REFRESH_WINDOW_SECONDS;
 
     static {
         Properties properties = new Properties();
         try (InputStream input = Constants.class.getClassLoader().getResourceAsStream("application.properties")) {
             if (input != null) {
                 properties.load(input);
-                BASE_FOLDER = properties.getProperty("base.folder");
                 BIN_INFO_JSON = properties.getProperty("bin.info.json");
-                BIN_INFO_ZIP = properties.getProperty("bin.info.zip");
-                ONLINE_CATALOG_URI = properties.getProperty("online.catalog.uri");
-                ZIP_DOWNLOAD_FOLDER = BASE_FOLDER + File.separator + properties.getProperty("zip.download.folder");
-                ZIP_EXTRACT_FOLDER_PATH = BASE_FOLDER + File.separator + properties.getProperty("zip.extract.folder.path");
-                ZIP_FILE_PATH = ZIP_DOWNLOAD_FOLDER + File.separator + BIN_INFO_ZIP;
-                BIN_INFO_JSON_PATH = ZIP_EXTRACT_FOLDER_PATH + File.separator + BIN_INFO_JSON;
+                DOWNLOAD_CONNECT_TIMEOUT_MS = Integer.parseInt(properties.getProperty("download.connect.timeout.ms"));
+                DOWNLOAD_READ_TIMEOUT_MS = Integer.parseInt(properties.getProperty("download.read.timeout.ms"));
+                DOWNLOAD_MAX_ATTEMPTS = Integer.parseInt(properties.getProperty("download.max.attempts"));
+                DOWNLOAD_BACKOFF_INITIAL_MS = Long.parseLong(properties.getProperty("download.backoff.initial.ms"));
+                DOWNLOAD_BACKOFF_MAX_MS = Long.parseLong(properties.getProperty("download.backoff.max.ms"));
+                PARSE_CHUNK_SIZE = Integer.parseInt(properties.getProperty("parse.chunk.size"));
+                PARSE_MODE = properties.getProperty("parse.mode");
+                PARSE_PARALLELISM = Integer.parseInt(properties.getProperty("parse.parallelism"));
+                BULK_LOAD_MODE = properties.getProperty("bulk.load.mode");
+                BULK_LOAD_WRITERS = Integer.parseInt(properties.getProperty("bulk.load.writers"));
+                CATALOG_PIPELINE_ENABLED = Boolean.parseBoolean(properties.getProperty("catalog.pipeline.enabled"));
+                CATALOG_DELTA_MAX_RATIO = Double.parseDouble(properties.getProperty("catalog.delta.max.ratio"));
+                BATCH_MAX_SIZE = Integer.parseInt(properties.getProperty("batch.max.size"));
+                CARD_LUHN_CHECK_ENABLED = Boolean.parseBoolean(properties.getProperty("card.luhn.check.enabled"));
+                LOOKUP_DB_ACQUIRE_TIMEOUT_MS = Long.parseLong(properties.getProperty("lookup.db.acquire.timeout.ms"));
+                LOOKUP_LOG_SAMPLE_HIT = Double.parseDouble(properties.getProperty("lookup.log.sample.hit"));
+                LOOKUP_LOG_SAMPLE_MISS = Double.parseDouble(properties.getProperty("lookup.log.sample.miss"));
+                LOOKUP_LOG_SAMPLE_INVALID = Double.parseDouble(properties.getProperty("lookup.log.sample.invalid"));
+                BIN_CACHE_MAX_AGE_SECONDS = Long.parseLong(properties.getProperty("bin.cache.max-age.seconds"));
+                LOOKUP_PRESENCE_FILTER_ENABLED = Boolean.parseBoolean(properties.getProperty("lookup.presence.filter.enabled"));
+                LOOKUP_PRESENCE_BLOOM_BITS = Integer.parseInt(properties.getProperty("lookup.presence.bloom.bits"));
+                SEARCH_ENABLED = Boolean.parseBoolean(properties.getProperty("search.enabled"));
+                SEARCH_MAX_PAGE_SIZE = Integer.parseInt(properties.getProperty("search.max.page.size"));
+                BIN_RESULT_CACHE_MAX_SIZE = Long.parseLong(properties.getProperty("bin.result.cache.max.size"));
+                BIN_RESULT_CACHE_TTL_SECONDS = Long.parseLong(properties.getProperty("bin.result.cache.ttl.seconds"));
+                BINARY_SERVER_ENABLED = Boolean.parseBoolean(properties.getProperty("binary.server.enabled"));
+                BINARY_SERVER_PORT = Integer.parseInt(properties.getProperty("binary.server.port"));
+                BINARY_SERVER_BLOCKING_THREADS = Integer.parseInt(properties.getProperty("binary.server.blocking.threads"));
+                BINARY_SERVER_BLOCKING_QUEUE = Integer.parseInt(properties.getProperty("binary.server.blocking.queue"));
+                BINARY_SERVER_BANK_NAMES_MAX = Integer.parseInt(properties.getProperty("binary.server.bank.names.max"));
+                CLUSTER_COORDINATION_ENABLED = Boolean.parseBoolean(properties.getProperty("cluster.coordination.enabled"));
+                CLUSTER_REFRESH_JITTER_SECONDS = Long.parseLong(properties.getProperty("cluster.refresh.jitter.seconds"));
+                CLUSTER_REFRESH_RETRY_SECONDS = Long.parseLong(properties.getProperty("cluster.refresh.retry.seconds"));
+                CLUSTER_REFRESH_WINDOW_SECONDS = Long.parseLong(properties.getProperty("cluster.refresh.window.seconds"));
             } else {
                 throw new IOException("Unable to find config.properties");
             }
@@ -7,16 +7,45 @@
 package com.example.BankEmitentService.controllers.api;
 
 import com.example.BankEmitentService.dto.BankEmitmentDTO;
+import com.example.BankEmitentService.dto.BankSearchPageDTO;
+import com.example.BankEmitentService.services.BankSearchService;
 import com.example.BankEmitentService.services.CardValidationService;
+import com.example.BankEmitentService.services.CatalogNotLoadedException;
+import com.example.BankEmitentService.services.LookupCapacityExceededException;
+import com.example.BankEmitentService.services.SearchDisabledException;
+import com.example.BankEmitentService.utils.ParseUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
+import static com.example.BankEmitentService.constants.Constants.BATCH_MAX_SIZE;
+import static com.example.BankEmitentService.constants.Constants.BIN_CACHE_MAX_AGE_SECONDS;
+
 /**
  * This controller handles requests related to bank emitment data.
  */
@@ -24,16 +53,22 @@ import java.util.Optional;
 @CrossOrigin(origins = "http://localhost:63342")
 public class BankEmitmentController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final CacheControl BIN_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(BIN_CACHE_MAX_AGE_SECONDS)).cachePublic();
+
     private final CardValidationService cardValidationService;
+    private final BankSearchService bankSearchService;
 
     /**
      * Constructs a new instance of BankEmitmentController with the specified CardValidationService.
      *
      * @param cardValidationService the service used for validating card numbers and retrieving bank information
+     * @param bankSearchService the service used for searching card ranges by bank name and alpha code
      */
     @Autowired
-    BankEmitmentController(CardValidationService cardValidationService){
+    BankEmitmentController(CardValidationService cardValidationService, BankSearchService bankSearchService){
         this.cardValidationService =  cardValidationService;
+        this.bankSearchService = bankSearchService;
     }
 
     /**
@@ -52,4 +87,227 @@ public class BankEmitmentController {
                                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Looks up a card number prefix, such as a BIN, with HTTP caching.
+     * <p>
+     * The answer only depends on the prefix and the loaded catalog, so both found
+     * and not found responses carry an {@code ETag} derived from the catalog
+     * content and a public {@code Cache-Control} of {@code bin.cache.max-age.seconds}.
+     * A request whose {@code If-None-Match} matches the current catalog is answered
+     * with 304 Not Modified, whether the prefix was found or not. Answers read from
+     * the database, before the catalog is loaded, are not cacheable.
+     *
+     * @param prefix the card number prefix of 6 to 19 digits
+     * @param request the request, checked for a matching {@code If-None-Match}
+     * @return ResponseEntity containing BankEmitmentDTO if a range matches,
+     *         a 404 Not Found response if the bank information is not available,
+     *         or a 304 Not Modified response if the cached answer is still current.
+     */
+    @GetMapping("/api/v1/bin/{prefix}")
+    public ResponseEntity<BankEmitmentDTO> getBinPrefix(@PathVariable String prefix, WebRequest request) {
+
+        CardValidationService.PrefixResult checkedPrefix = this.cardValidationService.checkPrefix(prefix);
+        String etag = checkedPrefix.generation() == null ? null : checkedPrefix.generation().etag();
+
+        // Spring only checks If-None-Match for a 200 on its own, so the check covers cached 404s too.
+        // checkNotModified sets the status and the ETag of the 304.
+        if (etag != null && request.checkNotModified(etag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(BIN_CACHE_CONTROL).build();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(checkedPrefix.result().isPresent() ? HttpStatus.OK : HttpStatus.NOT_FOUND);
+        if (etag == null)
+            response.cacheControl(CacheControl.noStore());
+        else
+            response.eTag(etag).cacheControl(BIN_CACHE_CONTROL);
+
+        return checkedPrefix.result().map(response::body)
+                                     .orElseGet(response::build);
+    }
+
+    /**
+     * Validates a batch of card numbers and streams one result per card as NDJSON.
+     * <p>
+     * The body is either a JSON array of card numbers or NDJSON with one card number
+     * per line. Results are written as soon as they are resolved, in card-number order
+     * rather than input order; each line carries the {@code index} of the card in the
+     * request. Card numbers are never echoed back.
+     *
+     * @param contentType the content type of the request body
+     * @param body the request body
+     * @return ResponseEntity streaming the NDJSON results.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping(value = "/api/v1/cards/batch",
+                 consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON},
+                 produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> postCardNumbers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                 InputStream body) throws IOException {
+
+        boolean ndjson = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON));
+        CardBatch batch = new CardBatch();
+        ParseUtils.readCardNumbers(new InputStreamReader(body, StandardCharsets.UTF_8), ndjson, BATCH_MAX_SIZE,
+                cardNumber -> batch.add(this.cardValidationService.toNormalizedCardNumber(cardNumber)));
+
+        StreamingResponseBody results = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            this.cardValidationService.checkCardRanges(batch.cards, batch.size,
+                    (index, normalizedCard, result) -> writeResult(writer, index, normalizedCard, result));
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                             .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                             .body(results);
+    }
+
+    /**
+     * Searches card ranges by bank name and alpha code.
+     * <p>
+     * Every word of the query must be the beginning of a word in the bank name or
+     * the alpha code of a range, ignoring case and accents. Results are paginated
+     * and ordered by bank name, then alpha code, then range.
+     *
+     * @param q the query, such as {@code privat} or {@code ukr}
+     * @param page the zero-based page number
+     * @param size the page size, at most {@code search.max.page.size}
+     * @return ResponseEntity containing the page of matching ranges and the total number of matches.
+     */
+    @GetMapping("/api/v1/banks/search")
+    public ResponseEntity<BankSearchPageDTO> searchBanks(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(this.bankSearchService.search(q, page, size));
+    }
+
+    /**
+     * Suggests bank names for typeahead, banks with more ranges first.
+     *
+     * @param q the text typed so far
+     * @param limit the maximum number of suggestions
+     * @return ResponseEntity containing the suggested bank names.
+     */
+    @GetMapping("/api/v1/banks/suggest")
+    public ResponseEntity<List<String>> suggestBanks(@RequestParam String q,
+                                                     @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(this.bankSearchService.suggest(q, limit));
+    }
+
+    /**
+     * Maps malformed requests, such as oversized batches or empty search queries, to 400 Bad Request.
+     *
+     * @param e the exception describing the invalid request
+     * @return ResponseEntity containing the error message.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * Maps exhausted lookup capacity to 503 Service Unavailable, so clients back off
+     * instead of waiting for a connection.
+     *
+     * @param e the exception describing the unavailable capacity
+     * @return ResponseEntity containing the error message.
+     */
+    @ExceptionHandler(LookupCapacityExceededException.class)
+    public ResponseEntity<String> handleUnavailable(LookupCapacityExceededException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER, "1")
+                             .body(e.getMessage());
+    }
+
+    /**
+     * Maps searches made before the first catalog load to 503 Service Unavailable.
+     *
+     * @param e the exception describing the missing catalog
+     * @return ResponseEntity containing the error message.
+     */
+    @ExceptionHandler(CatalogNotLoadedException.class)
+    public ResponseEntity<String> handleCatalogNotLoaded(CatalogNotLoadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+
+    /**
+     * Maps searches made with {@code search.enabled} off to 404 Not Found.
+     *
+     * @param e the exception describing the disabled search
+     * @return ResponseEntity containing the error message.
+     */
+    @ExceptionHandler(SearchDisabledException.class)
+    public ResponseEntity<String> handleSearchDisabled(SearchDisabledException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    /**
+     * Writes a single batch result as one NDJSON line.
+     */
+    private static void writeResult(Writer writer, int index, long normalizedCard, BankEmitmentDTO result) throws IOException {
+        writer.write("{\"index\":");
+        writer.write(Integer.toString(index));
+
+        if (normalizedCard == CardValidationService.INVALID_CARD) {
+            writer.write(",\"error\":\"invalid card number\"}\n");
+            return;
+        }
+        if (result == null) {
+            writer.write(",\"found\":false}\n");
+            return;
+        }
+
+        writer.write(",\"found\":true,\"bin\":");
+        writer.write(Integer.toString(result.getBin()));
+        writer.write(",\"alphaCode\":");
+        writeString(writer, result.getAlphaCode());
+        writer.write(",\"bankName\":");
+        writeString(writer, result.getBankName());
+        writer.write("}\n");
+    }
+
+    /**
+     * Writes a JSON string literal, or null.
+     */
+    private static void writeString(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20)
+                        writer.write(String.format("\\u%04x", (int) c));
+                    else
+                        writer.write(c);
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Growable array of normalized card numbers read from a batch request.
+     */
+    private static final class CardBatch {
+
+        private long[] cards = new long[256];
+        private int size;
+
+        void add(long card) {
+            if (size == cards.length)
+                cards = Arrays.copyOf(cards, size << 1);
+            cards[size++] = card;
+        }
+    }
+
 }
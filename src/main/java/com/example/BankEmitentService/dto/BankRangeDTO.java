@@ -0,0 +1,31 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.dto;
+
+import lombok.*;
+
+/**
+ * Data Transfer Object for a single card range of a bank, as returned by the bank search.
+ * The range bounds are 19-digit numbers, sent as strings so JavaScript clients keep every digit.
+ */
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BankRangeDTO {
+
+    private int bin;
+
+    private String minRange;
+
+    private String maxRange;
+
+    private String alphaCode;
+
+    private String bankName;
+}
@@ -0,0 +1,32 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for one page of bank search results.
+ */
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BankSearchPageDTO {
+
+    private String query;
+
+    private int page;
+
+    private int size;
+
+    private int total;
+
+    private List<BankRangeDTO> results;
+}
@@ -6,15 +6,22 @@
 
 package com.example.BankEmitentService.entity;
 
+import com.example.BankEmitentService.utils.LenientLongTypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import jakarta.persistence.*;
 import lombok.*;
 
 /**
  * Represents a bank emitment entity in the database.
+ * <p>
+ * Ranges are stored as normalized 19-digit card numbers in bigint columns. A BIN
+ * may be split into several ranges, which are all read with a single range scan
+ * of the composite (bin, min_range, max_range) index.
  **/
 @Builder
-@Table(name = "bank_emitments")
+@Table(name = "bank_emitments",
+       indexes = @Index(name = "idx_bank_emitments_bin_range", columnList = "bin, min_range, max_range"))
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
@@ -31,11 +38,13 @@ public class BankEmitment {
 
     @Column(name = "min_range")
     @SerializedName("min_range")
-    String minRange;
+    @JsonAdapter(LenientLongTypeAdapter.class)
+    Long minRange;
 
     @Column(name = "max_range")
     @SerializedName("max_range")
-    String maxRange;
+    @JsonAdapter(LenientLongTypeAdapter.class)
+    Long maxRange;
 
     @Column(name = "alpha_code")
     @SerializedName("alpha_code")
@@ -0,0 +1,355 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Reverse lookup of a catalog by bank name and alpha code.
+ * <p>
+ * Bank names and alpha codes are split into words, folded to lower case without
+ * accents, and kept in a sorted term dictionary. Like a prefix trie, the sorted
+ * terms give every term starting with a prefix as one contiguous slice, found
+ * with two binary searches. Each term points to the dictionary entries of the
+ * catalog containing it, an inverted index.
+ * <p>
+ * Rows are grouped by their pair of bank name and alpha code, and groups are
+ * ordered by bank name, then alpha code. Each dictionary entry points to the
+ * groups using it, and each group to its rows in range order. Queries are
+ * matched per group rather than per row, and a page is cut straight from the
+ * row lists of the matching groups. All lists are flat int arrays.
+ * <p>
+ * A query matches a row when every word of the query is the prefix of a word in
+ * the bank name or the alpha code of the row.
+ */
+public final class BankSearchIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER);
+
+    private final BinRangeLookup index;
+    private final String[] terms;
+
+    /**
+     * The dictionary entries containing each term, {@code termEntries[termStarts[t]]} up to
+     * {@code termEntries[termStarts[t + 1]]}.
+     */
+    private final int[] termStarts;
+    private final int[] termEntries;
+
+    /**
+     * The groups using each dictionary entry as bank name or alpha code,
+     * {@code entryGroups[entryStarts[e]]} up to {@code entryGroups[entryStarts[e + 1]]}.
+     */
+    private final int[] entryStarts;
+    private final int[] entryGroups;
+
+    /**
+     * The bank name and alpha code of each group, and its rows,
+     * {@code groupRows[groupStarts[g]]} up to {@code groupRows[groupStarts[g + 1]]}.
+     */
+    private final int[] groupBankNames;
+    private final int[] groupAlphaCodes;
+    private final int[] groupStarts;
+    private final int[] groupRows;
+
+    /**
+     * The number of rows using each dictionary entry as bank name, used to rank suggestions.
+     */
+    private final int[] bankNameRows;
+
+    private BankSearchIndex(BinRangeLookup index, String[] terms, int[] termStarts, int[] termEntries,
+                            int[] entryStarts, int[] entryGroups, int[] groupBankNames, int[] groupAlphaCodes,
+                            int[] groupStarts, int[] groupRows, int[] bankNameRows) {
+        this.index = index;
+        this.terms = terms;
+        this.termStarts = termStarts;
+        this.termEntries = termEntries;
+        this.entryStarts = entryStarts;
+        this.entryGroups = entryGroups;
+        this.groupBankNames = groupBankNames;
+        this.groupAlphaCodes = groupAlphaCodes;
+        this.groupStarts = groupStarts;
+        this.groupRows = groupRows;
+        this.bankNameRows = bankNameRows;
+    }
+
+    /**
+     * Builds the search index of a catalog.
+     *
+     * @param index The catalog.
+     * @return The search index.
+     */
+    public static BankSearchIndex of(BinRangeLookup index) {
+        int entries = index.dictionarySize();
+
+        // Number the distinct pairs of bank name and alpha code in order of appearance.
+        Map<Long, Integer> pairs = new HashMap<>();
+        int[] rowPairs = new int[index.size()];
+        for (int row = 0; row < index.size(); row++)
+            rowPairs[row] = pairs.computeIfAbsent(pair(index.bankNameId(row), index.alphaCodeId(row)), p -> pairs.size());
+
+        Integer[] order = new Integer[pairs.size()];
+        int[] bankNames = new int[pairs.size()];
+        int[] alphaCodes = new int[pairs.size()];
+        for (Map.Entry<Long, Integer> pair : pairs.entrySet()) {
+            int p = pair.getValue();
+            order[p] = p;
+            bankNames[p] = (int) (pair.getKey() >> 32);
+            alphaCodes[p] = (int) (long) pair.getKey();
+        }
+        Arrays.sort(order, Comparator.comparing((Integer p) -> index.dictionaryEntry(bankNames[p]), NAME_ORDER)
+                                     .thenComparing(p -> index.dictionaryEntry(alphaCodes[p]), NAME_ORDER));
+
+        int groups = order.length;
+        int[] groupOf = new int[groups];
+        int[] groupBankNames = new int[groups];
+        int[] groupAlphaCodes = new int[groups];
+        for (int g = 0; g < groups; g++) {
+            groupOf[order[g]] = g;
+            groupBankNames[g] = bankNames[order[g]];
+            groupAlphaCodes[g] = alphaCodes[order[g]];
+        }
+
+        // Rows are visited in order, so every group lists its rows in range order.
+        int[] groupStarts = new int[groups + 1];
+        for (int row = 0; row < index.size(); row++)
+            groupStarts[groupOf[rowPairs[row]] + 1]++;
+        for (int g = 0; g < groups; g++)
+            groupStarts[g + 1] += groupStarts[g];
+        int[] groupRows = new int[index.size()];
+        int[] nextRow = Arrays.copyOf(groupStarts, groups);
+        for (int row = 0; row < index.size(); row++)
+            groupRows[nextRow[groupOf[rowPairs[row]]]++] = row;
+
+        int[] entryStarts = new int[entries + 1];
+        int[] bankNameRows = new int[entries];
+        for (int g = 0; g < groups; g++) {
+            if (groupBankNames[g] != BinRangeLookup.NO_VALUE) {
+                entryStarts[groupBankNames[g] + 1]++;
+                bankNameRows[groupBankNames[g]] += groupStarts[g + 1] - groupStarts[g];
+            }
+            if (groupAlphaCodes[g] != BinRangeLookup.NO_VALUE && groupAlphaCodes[g] != groupBankNames[g])
+                entryStarts[groupAlphaCodes[g] + 1]++;
+        }
+        for (int e = 0; e < entries; e++)
+            entryStarts[e + 1] += entryStarts[e];
+        int[] entryGroups = new int[entryStarts[entries]];
+        int[] nextGroup = Arrays.copyOf(entryStarts, entries);
+        for (int g = 0; g < groups; g++) {
+            if (groupBankNames[g] != BinRangeLookup.NO_VALUE)
+                entryGroups[nextGroup[groupBankNames[g]]++] = g;
+            if (groupAlphaCodes[g] != BinRangeLookup.NO_VALUE && groupAlphaCodes[g] != groupBankNames[g])
+                entryGroups[nextGroup[groupAlphaCodes[g]]++] = g;
+        }
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int e = 0; e < entries; e++) {
+            if (entryStarts[e + 1] == entryStarts[e])
+                continue;
+            for (String term : words(index.dictionaryEntry(e)))
+                postings.computeIfAbsent(term, t -> new ArrayList<>()).add(e);
+        }
+
+        String[] terms = postings.keySet().toArray(String[]::new);
+        Arrays.sort(terms);
+        int[] termStarts = new int[terms.length + 1];
+        int[] termEntries = new int[postings.values().stream().mapToInt(List::size).sum()];
+        for (int t = 0; t < terms.length; t++) {
+            List<Integer> list = postings.get(terms[t]);
+            for (int i = 0; i < list.size(); i++)
+                termEntries[termStarts[t] + i] = list.get(i);
+            termStarts[t + 1] = termStarts[t] + list.size();
+        }
+
+        return new BankSearchIndex(index, terms, termStarts, termEntries, entryStarts, entryGroups,
+                                   groupBankNames, groupAlphaCodes, groupStarts, groupRows, bankNameRows);
+    }
+
+    /**
+     * A page of search results.
+     *
+     * @param total The number of rows matching the query.
+     * @param rows The positions of the rows on the page.
+     */
+    public record Page(int total, int[] rows) {
+    }
+
+    /**
+     * Finds the rows whose bank name or alpha code matches every word of the query.
+     * Rows are ordered by bank name, then alpha code, then range.
+     *
+     * @param query The query.
+     * @param offset The number of matching rows to skip.
+     * @param limit The maximum number of rows to return.
+     * @return The matching rows.
+     * @throws IllegalArgumentException if the query has no letters or digits.
+     */
+    public Page search(String query, int offset, int limit) {
+        BitSet[] matches = matchingEntries(query);
+
+        // Start from the groups of the most selective word and check the other words per group.
+        int driver = 0;
+        long driverGroups = Long.MAX_VALUE;
+        for (int w = 0; w < matches.length; w++) {
+            long count = 0;
+            for (int e = matches[w].nextSetBit(0); e >= 0; e = matches[w].nextSetBit(e + 1))
+                count += entryStarts[e + 1] - entryStarts[e];
+            if (count < driverGroups) {
+                driver = w;
+                driverGroups = count;
+            }
+        }
+
+        // A bit set visits the candidates in group order and drops groups reached twice.
+        BitSet candidates = new BitSet(groupBankNames.length);
+        for (int e = matches[driver].nextSetBit(0); e >= 0; e = matches[driver].nextSetBit(e + 1)) {
+            for (int i = entryStarts[e]; i < entryStarts[e + 1]; i++)
+                candidates.set(entryGroups[i]);
+        }
+
+        int total = 0;
+        int[] page = new int[Math.max(0, limit)];
+        int pageSize = 0;
+        for (int g = candidates.nextSetBit(0); g >= 0; g = candidates.nextSetBit(g + 1)) {
+            if (!matchesAll(matches, driver, g))
+                continue;
+
+            int rows = groupStarts[g + 1] - groupStarts[g];
+            int from = Math.max(offset - total, 0);
+            int to = Math.min(rows, from + page.length - pageSize);
+            if (from < to) {
+                System.arraycopy(groupRows, groupStarts[g] + from, page, pageSize, to - from);
+                pageSize += to - from;
+            }
+            total += rows;
+        }
+        return new Page(total, Arrays.copyOf(page, pageSize));
+    }
+
+    /**
+     * Suggests bank names containing every word of the query, the last one possibly
+     * incomplete. Banks with more ranges come first.
+     *
+     * @param query The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return The suggested bank names.
+     * @throws IllegalArgumentException if the query has no letters or digits.
+     */
+    public List<String> suggest(String query, int limit) {
+        BitSet[] matches = matchingEntries(query);
+        BitSet entries = matches[0];
+        for (int w = 1; w < matches.length; w++)
+            entries.and(matches[w]);
+
+        // Keep the best suggestions in a min-heap, so its head is the first to drop.
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, limit), (a, b) -> {
+            int byRows = Integer.compare(bankNameRows[a], bankNameRows[b]);
+            return byRows != 0 ? byRows : index.dictionaryEntry(b).compareTo(index.dictionaryEntry(a));
+        });
+        for (int e = entries.nextSetBit(0); e >= 0 && limit > 0; e = entries.nextSetBit(e + 1)) {
+            if (bankNameRows[e] == 0)
+                continue;
+            best.add(e);
+            if (best.size() > limit)
+                best.poll();
+        }
+
+        String[] suggestions = new String[best.size()];
+        for (int i = suggestions.length - 1; i >= 0; i--)
+            suggestions[i] = index.dictionaryEntry(best.poll());
+        return List.of(suggestions);
+    }
+
+    /**
+     * @return The catalog the rows belong to.
+     */
+    public BinRangeLookup index() {
+        return index;
+    }
+
+    /**
+     * Resolves every word of a query to the dictionary entries containing a word it is a prefix of.
+     */
+    private BitSet[] matchingEntries(String query) {
+        Set<String> words = words(query);
+        if (words.isEmpty())
+            throw new IllegalArgumentException("Search query must contain letters or digits.");
+
+        BitSet[] matches = new BitSet[words.size()];
+        int w = 0;
+        for (String word : words) {
+            BitSet entries = new BitSet(index.dictionarySize());
+            int to = firstTermNotBelow(word + Character.MAX_VALUE);
+            for (int t = firstTermNotBelow(word); t < to; t++) {
+                for (int i = termStarts[t]; i < termStarts[t + 1]; i++)
+                    entries.set(termEntries[i]);
+            }
+            matches[w++] = entries;
+        }
+        return matches;
+    }
+
+    private boolean matchesAll(BitSet[] matches, int skipped, int group) {
+        int bankName = groupBankNames[group];
+        int alphaCode = groupAlphaCodes[group];
+        for (int w = 0; w < matches.length; w++) {
+            if (w == skipped)
+                continue;
+            boolean matched = bankName != BinRangeLookup.NO_VALUE && matches[w].get(bankName)
+                    || alphaCode != BinRangeLookup.NO_VALUE && matches[w].get(alphaCode);
+            if (!matched)
+                return false;
+        }
+        return true;
+    }
+
+    private static long pair(int bankName, int alphaCode) {
+        return (long) bankName << 32 | alphaCode & 0xFFFFFFFFL;
+    }
+
+    private int firstTermNotBelow(String key) {
+        int position = Arrays.binarySearch(terms, key);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Splits a text into distinct words of letters and digits, in lower case without accents.
+     */
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null)
+            return words;
+
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                                       .replaceAll("")
+                                       .toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers whether a card number can belong to any range of a catalog, without
+ * searching the catalog.
+ * <p>
+ * Every 6-digit BIN touched by a range is marked in a bitset of one bit per BIN,
+ * 125 KB for the whole BIN space, so an unknown BIN is rejected with a single
+ * memory read. Optionally, the 8-digit prefixes covered by the ranges are added
+ * to a Bloom filter, which also rejects most card numbers that fall between the
+ * ranges of a known BIN. Neither stage has false negatives: a card number that
+ * is rejected is never in the catalog.
+ * <p>
+ * Ranges wider than {@link #MAX_PREFIXES_PER_RANGE} prefixes are left out of the
+ * Bloom filter. The BINs they touch are marked in a second bitset of the same
+ * size, and card numbers of those BINs skip the Bloom stage, so one wide range
+ * only costs the Bloom stage of its own BINs.
+ */
+public final class BinPresenceFilter {
+
+    private static final int BIN_COUNT = 1_000_000;
+    private static final long BIN_DIVISOR = 10_000_000_000_000L;
+    private static final long PREFIX_DIVISOR = 100_000_000_000L;
+
+    private static final Logger logger = LoggerFactory.getLogger(BinPresenceFilter.class);
+
+    /**
+     * Ranges covering more 8-digit prefixes than this, 10 full BINs, exempt their
+     * BINs from the Bloom stage. Covering such ranges prefix by prefix would bloat
+     * the filter, and the BIN bitset already answers for them.
+     */
+    private static final long MAX_PREFIXES_PER_RANGE = 1_000;
+
+    /**
+     * The largest Bloom filter built, 64 MB.
+     */
+    private static final int MAX_BLOOM_WORDS = 1 << 23;
+
+    private final long[] bins;
+    private final long[] bloomExempt;
+    private final long[] bloom;
+    private final long bloomMask;
+    private final int bloomHashes;
+
+    private BinPresenceFilter(long[] bins, long[] bloomExempt, long[] bloom, int bloomHashes) {
+        this.bins = bins;
+        this.bloomExempt = bloomExempt;
+        this.bloom = bloom;
+        this.bloomMask = bloom == null ? 0 : (long) bloom.length * Long.SIZE - 1;
+        this.bloomHashes = bloomHashes;
+    }
+
+    /**
+     * Builds the filter for a catalog.
+     *
+     * @param index The catalog.
+     * @param bloomBitsPerPrefix The Bloom filter bits per 8-digit prefix, or 0 for the BIN bitset alone.
+     *                           10 bits give a false positive rate of about 1%.
+     * @return The filter.
+     */
+    public static BinPresenceFilter of(BinRangeLookup index, int bloomBitsPerPrefix) {
+        long[] bins = new long[(BIN_COUNT + Long.SIZE - 1) / Long.SIZE];
+        long[] bloomExempt = new long[bins.length];
+        long prefixes = 0;
+        int wideRanges = 0;
+        for (int i = 0; i < index.size(); i++) {
+            long minRange = Math.max(index.minRange(i), 0);
+            long maxRange = index.maxRange(i);
+            if (maxRange < minRange)
+                continue;
+
+            long span = maxRange / PREFIX_DIVISOR - minRange / PREFIX_DIVISOR + 1;
+            boolean wide = span > MAX_PREFIXES_PER_RANGE;
+            int lastBin = (int) Math.min(maxRange / BIN_DIVISOR, BIN_COUNT - 1);
+            for (int bin = (int) (minRange / BIN_DIVISOR); bin <= lastBin; bin++) {
+                bins[bin >>> 6] |= 1L << bin;
+                if (wide)
+                    bloomExempt[bin >>> 6] |= 1L << bin;
+            }
+
+            if (wide)
+                wideRanges++;
+            else
+                prefixes += span;
+        }
+
+        if (bloomBitsPerPrefix <= 0 || prefixes == 0)
+            return new BinPresenceFilter(bins, null, null, 0);
+
+        if (wideRanges > 0)
+            logger.info("{} ranges wider than {} prefixes, their BINs skip the Bloom stage.", wideRanges, MAX_PREFIXES_PER_RANGE);
+
+        // A power-of-two size lets the hash be reduced with a mask.
+        long words = Math.max(1, prefixes * bloomBitsPerPrefix / Long.SIZE);
+        if (words > MAX_BLOOM_WORDS) {
+            logger.warn("The Bloom stage of the presence filter is disabled: {} prefixes need more than {} MB.",
+                    prefixes, MAX_BLOOM_WORDS * (long) Long.BYTES >> 20);
+            return new BinPresenceFilter(bins, null, null, 0);
+        }
+        long[] bloom = new long[(int) Long.highestOneBit(words * 2 - 1)];
+        int hashes = (int) Math.clamp(Math.round(bloomBitsPerPrefix * Math.log(2)), 1, 8);
+
+        BinPresenceFilter filter = new BinPresenceFilter(bins, bloomExempt, bloom, hashes);
+        for (int i = 0; i < index.size(); i++) {
+            long minRange = Math.max(index.minRange(i), 0);
+            long maxRange = index.maxRange(i);
+            if (maxRange < minRange || maxRange / PREFIX_DIVISOR - minRange / PREFIX_DIVISOR + 1 > MAX_PREFIXES_PER_RANGE)
+                continue;
+
+            for (long prefix = minRange / PREFIX_DIVISOR; prefix <= maxRange / PREFIX_DIVISOR; prefix++)
+                filter.addPrefix(prefix);
+        }
+        return filter;
+    }
+
+    /**
+     * Tells whether a card number can be in the catalog.
+     *
+     * @param normalizedCard The normalized 19-digit card number.
+     * @return false if no range of the catalog contains the card number, true if one may.
+     */
+    public boolean mightContain(long normalizedCard) {
+        int bin = (int) (normalizedCard / BIN_DIVISOR);
+        if (bin < 0 || bin >= BIN_COUNT || (bins[bin >>> 6] & 1L << bin) == 0)
+            return false;
+        return bloom == null
+                || (bloomExempt[bin >>> 6] & 1L << bin) != 0
+                || mightContainPrefix(normalizedCard / PREFIX_DIVISOR);
+    }
+
+    /**
+     * @return true if the filter checks 8-digit prefixes in addition to BINs.
+     */
+    public boolean checksPrefixes() {
+        return bloom != null;
+    }
+
+    /**
+     * @return The number of BINs checked by the BIN bitset alone, because a range of
+     *         theirs is too wide for the Bloom stage; 0 if there is no Bloom stage.
+     */
+    public int bloomExemptBins() {
+        if (bloomExempt == null)
+            return 0;
+
+        int count = 0;
+        for (long word : bloomExempt)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    private void addPrefix(long prefix) {
+        long hash = hash(prefix);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = (h1 + (long) i * h2) & bloomMask;
+            bloom[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean mightContainPrefix(long prefix) {
+        long hash = hash(prefix);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = (h1 + (long) i * h2) & bloomMask;
+            if ((bloom[(int) (bit >>> 6)] & 1L << bit) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Spreads the bits of a prefix with the finalizer of SplitMix64.
+     */
+    private static long hash(long prefix) {
+        long h = prefix * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
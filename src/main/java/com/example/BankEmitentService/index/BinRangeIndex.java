@@ -0,0 +1,335 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.index;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory lookup structure over the bank emitment catalog.
+ * <p>
+ * Ranges are kept in primitive {@code long[]} arrays sorted by the lower bound,
+ * with the payload (BIN, alpha code, bank name) stored in parallel arrays.
+ * Alpha codes and bank names are dictionary-encoded, so every row costs a few
+ * primitives instead of a full {@link BankEmitment} object.
+ * <p>
+ * A lookup is a binary search over the lower bounds followed by a short
+ * backward walk that is only needed when ranges overlap.
+ */
+public final class BinRangeIndex implements BinRangeLookup {
+
+    private final long[] minRanges;
+    private final long[] maxRanges;
+    private final long[] maxReach;
+    private final int[] bins;
+    private final int[] alphaCodeIds;
+    private final int[] bankNameIds;
+    private final String[] dictionary;
+
+    private BinRangeIndex(long[] minRanges, long[] maxRanges, int[] bins,
+                          int[] alphaCodeIds, int[] bankNameIds, String[] dictionary) {
+        this.minRanges = minRanges;
+        this.maxRanges = maxRanges;
+        this.bins = bins;
+        this.alphaCodeIds = alphaCodeIds;
+        this.bankNameIds = bankNameIds;
+        this.dictionary = dictionary;
+        this.maxReach = new long[minRanges.length];
+
+        long reach = Long.MIN_VALUE;
+        for (int i = 0; i < maxRanges.length; i++) {
+            reach = Math.max(reach, maxRanges[i]);
+            maxReach[i] = reach;
+        }
+    }
+
+    @Override
+    public int indexOf(long cardNumber) {
+        int low = 0;
+        int high = minRanges.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (minRanges[mid] <= cardNumber)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+
+        for (int i = high; i >= 0 && maxReach[i] >= cardNumber; i--) {
+            if (maxRanges[i] >= cardNumber)
+                return i;
+        }
+        return NO_VALUE;
+    }
+
+    @Override
+    public int size() {
+        return minRanges.length;
+    }
+
+    @Override
+    public long minRange(int position) {
+        return minRanges[position];
+    }
+
+    @Override
+    public long maxRange(int position) {
+        return maxRanges[position];
+    }
+
+    @Override
+    public long maxReach(int position) {
+        return maxReach[position];
+    }
+
+    @Override
+    public int bin(int position) {
+        return bins[position];
+    }
+
+    @Override
+    public int alphaCodeId(int position) {
+        return alphaCodeIds[position];
+    }
+
+    @Override
+    public int bankNameId(int position) {
+        return bankNameIds[position];
+    }
+
+    @Override
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    @Override
+    public String dictionaryEntry(int id) {
+        return id == NO_VALUE ? null : dictionary[id];
+    }
+
+    /**
+     * @return A new builder for accumulating catalog rows.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Accumulates catalog rows into growable primitive buffers and
+     * produces a sorted {@link BinRangeIndex}.
+     * <p>
+     * A builder is not thread-safe and must not be reused after {@link #build()}.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] minRanges = new long[INITIAL_CAPACITY];
+        private long[] maxRanges = new long[INITIAL_CAPACITY];
+        private int[] bins = new int[INITIAL_CAPACITY];
+        private int[] alphaCodeIds = new int[INITIAL_CAPACITY];
+        private int[] bankNameIds = new int[INITIAL_CAPACITY];
+        private final Map<String, Integer> dictionaryIds = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int size;
+        private int rejected;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a parsed catalog entity. Rows with missing or non-numeric ranges are counted and skipped.
+         *
+         * @param emitment The catalog entity to add.
+         * @return This builder.
+         */
+        public Builder add(BankEmitment emitment) {
+            if (emitment.getMinRange() == null || emitment.getMaxRange() == null)
+                return reject();
+
+            return add(emitment.getBin(),
+                       emitment.getMinRange(),
+                       emitment.getMaxRange(),
+                       emitment.getAlphaCode(),
+                       emitment.getBankName());
+        }
+
+        /**
+         * Adds a single catalog row.
+         *
+         * @param bin The BIN of the range.
+         * @param minRange The lower bound of the range, inclusive.
+         * @param maxRange The upper bound of the range, inclusive.
+         * @param alphaCode The country alpha code, may be null.
+         * @param bankName The bank name, may be null.
+         * @return This builder.
+         */
+        public Builder add(int bin, long minRange, long maxRange, String alphaCode, String bankName) {
+            if (size == minRanges.length)
+                grow();
+
+            minRanges[size] = minRange;
+            maxRanges[size] = maxRange;
+            bins[size] = bin;
+            alphaCodeIds[size] = encode(alphaCode);
+            bankNameIds[size] = encode(bankName);
+            size++;
+            return this;
+        }
+
+        /**
+         * Counts a row that was skipped because its ranges are missing.
+         *
+         * @return This builder.
+         */
+        public Builder reject() {
+            rejected++;
+            return this;
+        }
+
+        /**
+         * @return The number of rows added so far.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return The number of rows skipped because their ranges could not be parsed.
+         */
+        public int rejected() {
+            return rejected;
+        }
+
+        /**
+         * Sorts the accumulated rows and creates the index.
+         *
+         * @return The built index.
+         */
+        public BinRangeIndex build() {
+            long[] min = Arrays.copyOf(minRanges, size);
+            long[] max = Arrays.copyOf(maxRanges, size);
+            int[] binArray = Arrays.copyOf(bins, size);
+            int[] alphaArray = Arrays.copyOf(alphaCodeIds, size);
+            int[] bankArray = Arrays.copyOf(bankNameIds, size);
+
+            new RowSorter(min, max, binArray, alphaArray, bankArray).sort();
+
+            return new BinRangeIndex(min, max, binArray, alphaArray, bankArray, dictionary.toArray(new String[0]));
+        }
+
+        private int encode(String value) {
+            if (value == null)
+                return NO_VALUE;
+
+            Integer id = dictionaryIds.get(value);
+            if (id == null) {
+                id = dictionary.size();
+                dictionaryIds.put(value, id);
+                dictionary.add(value);
+            }
+            return id;
+        }
+
+        private void grow() {
+            int capacity = minRanges.length << 1;
+            minRanges = Arrays.copyOf(minRanges, capacity);
+            maxRanges = Arrays.copyOf(maxRanges, capacity);
+            bins = Arrays.copyOf(bins, capacity);
+            alphaCodeIds = Arrays.copyOf(alphaCodeIds, capacity);
+            bankNameIds = Arrays.copyOf(bankNameIds, capacity);
+        }
+    }
+
+    /**
+     * In-place quicksort over the parallel row arrays, ordered by (minRange, maxRange, bin).
+     * Sorting the columns together avoids boxing a permutation of millions of rows.
+     * <p>
+     * The partition is three-way, so runs of rows with equal keys, such as duplicated
+     * catalog rows, are set aside in one pass instead of degrading the sort to quadratic time.
+     */
+    private record RowSorter(long[] min, long[] max, int[] bins, int[] alphaCodeIds, int[] bankNameIds) {
+
+        private static final int INSERTION_SORT_THRESHOLD = 16;
+
+        void sort() {
+            if (!isSorted())
+                sort(0, min.length - 1);
+        }
+
+        private boolean isSorted() {
+            for (int i = 1; i < min.length; i++) {
+                if (compare(i - 1, i) > 0)
+                    return false;
+            }
+            return true;
+        }
+
+        private void sort(int low, int high) {
+            while (high - low > INSERTION_SORT_THRESHOLD) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, low) < 0) swap(mid, low);
+                if (compare(high, low) < 0) swap(high, low);
+                if (compare(high, mid) < 0) swap(high, mid);
+                swap(low, mid);
+
+                // Rows in [low, lt) sort before the pivot, [lt, i) equal it and (gt, high] sort after it.
+                // The row at lt always equals the pivot, so it serves as the pivot while rows move.
+                int lt = low;
+                int gt = high;
+                int i = low + 1;
+                while (i <= gt) {
+                    int order = compare(i, lt);
+                    if (order < 0)
+                        swap(lt++, i++);
+                    else if (order > 0)
+                        swap(i, gt--);
+                    else
+                        i++;
+                }
+
+                if (lt - low < high - gt) {
+                    sort(low, lt - 1);
+                    low = gt + 1;
+                } else {
+                    sort(gt + 1, high);
+                    high = lt - 1;
+                }
+            }
+            insertionSort(low, high);
+        }
+
+        private void insertionSort(int low, int high) {
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && compare(j - 1, j) > 0; j--)
+                    swap(j - 1, j);
+            }
+        }
+
+        private int compare(int a, int b) {
+            int result = Long.compare(min[a], min[b]);
+            if (result == 0)
+                result = Long.compare(max[a], max[b]);
+            if (result == 0)
+                result = Integer.compare(bins[a], bins[b]);
+            return result;
+        }
+
+        private void swap(int a, int b) {
+            long minValue = min[a]; min[a] = min[b]; min[b] = minValue;
+            long maxValue = max[a]; max[a] = max[b]; max[b] = maxValue;
+            int bin = bins[a]; bins[a] = bins[b]; bins[b] = bin;
+            int alpha = alphaCodeIds[a]; alphaCodeIds[a] = alphaCodeIds[b]; alphaCodeIds[b] = alpha;
+            int bank = bankNameIds[a]; bankNameIds[a] = bankNameIds[b]; bankNameIds[b] = bank;
+        }
+    }
+}
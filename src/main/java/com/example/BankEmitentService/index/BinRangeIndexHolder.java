@@ -0,0 +1,153 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.index;
+
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicReference;
+import static com.example.BankEmitentService.constants.Constants.LOOKUP_PRESENCE_BLOOM_BITS;
+import static com.example.BankEmitentService.constants.Constants.LOOKUP_PRESENCE_FILTER_ENABLED;
+import static com.example.BankEmitentService.constants.Constants.SEARCH_ENABLED;
+
+/**
+ * Holds the currently published {@link BinRangeLookup}.
+ * <p>
+ * The catalog is rebuilt off to the side by the data updater, either as a heap
+ * {@link BinRangeIndex} or as a {@link MappedBinSnapshot}, and swapped in with a
+ * single atomic write, so readers always see a complete {@link Generation}.
+ */
+@Component
+public class BinRangeIndexHolder {
+
+    /**
+     * A published index together with what identifies it and the structures derived from it.
+     * <p>
+     * The {@link BinPresenceFilter} and the {@link BankSearchIndex} are immutable and built
+     * from the complete catalog before the swap, so they are published in the same generation
+     * as the index they were built from and readers never pair them with another catalog.
+     *
+     * @param index The published catalog.
+     * @param number The number of indexes published since startup, including this one.
+     * @param fingerprint A hash of the catalog content, equal for equal catalogs on every instance.
+     * @param publishedAt The time the catalog was loaded, in epoch milliseconds.
+     * @param presence The presence filter of the catalog, or null if {@code lookup.presence.filter.enabled} is off.
+     * @param search The bank name and alpha code search index of the catalog, or null if {@code search.enabled} is off.
+     */
+    public record Generation(BinRangeLookup index, long number, long fingerprint, long publishedAt,
+                             BinPresenceFilter presence, BankSearchIndex search) {
+
+        /**
+         * @return The fingerprint as a quoted entity tag.
+         */
+        public String etag() {
+            return STR."\"\{Long.toHexString(fingerprint)}\"";
+        }
+    }
+
+    private final AtomicReference<Generation> current = new AtomicReference<>();
+
+    /**
+     * Returns the current index.
+     *
+     * @return The published index, or null if no catalog has been loaded yet.
+     */
+    public BinRangeLookup current() {
+        Generation generation = current.get();
+        return generation == null ? null : generation.index();
+    }
+
+    /**
+     * Returns the presence filter of the current index.
+     *
+     * @return The filter, or null if no catalog has been loaded yet or the filter is disabled.
+     */
+    public BinPresenceFilter presence() {
+        Generation generation = current.get();
+        return generation == null ? null : generation.presence();
+    }
+
+    /**
+     * Returns the current index with its generation, so callers can tie a result
+     * to the exact catalog it was read from.
+     *
+     * @return The current generation, or null if no catalog has been loaded yet.
+     */
+    public Generation currentGeneration() {
+        return current.get();
+    }
+
+    /**
+     * Atomically replaces the published index and advances the generation.
+     *
+     * @param index The freshly built or mapped catalog.
+     */
+    public void publish(BinRangeLookup index) {
+        publish(index, System.currentTimeMillis());
+    }
+
+    /**
+     * Atomically replaces the published index and advances the generation.
+     *
+     * @param index The freshly built or mapped catalog.
+     * @param catalogTime The time the catalog was loaded, in epoch milliseconds.
+     */
+    public void publish(BinRangeLookup index, long catalogTime) {
+        long fingerprint = fingerprint(index);
+        BinPresenceFilter presence = LOOKUP_PRESENCE_FILTER_ENABLED
+                ? BinPresenceFilter.of(index, LOOKUP_PRESENCE_BLOOM_BITS)
+                : null;
+        BankSearchIndex search = SEARCH_ENABLED ? BankSearchIndex.of(index) : null;
+        current.updateAndGet(previous -> new Generation(index, previous == null ? 1 : previous.number() + 1,
+                                                        fingerprint, catalogTime, presence, search));
+    }
+
+    /**
+     * @return The time the current catalog was loaded in epoch milliseconds, or 0 if none has been published.
+     */
+    public long publishedAt() {
+        Generation generation = current.get();
+        return generation == null ? 0 : generation.publishedAt();
+    }
+
+    /**
+     * @return The number of indexes published since startup.
+     */
+    public long generation() {
+        Generation generation = current.get();
+        return generation == null ? 0 : generation.number();
+    }
+
+    /**
+     * Hashes every row of a catalog. Dictionary entries are hashed by value, so
+     * the result does not depend on how the dictionary ids were assigned.
+     */
+    private static long fingerprint(BinRangeLookup index) {
+        long[] entryHashes = new long[index.dictionarySize()];
+        for (int id = 0; id < entryHashes.length; id++) {
+            String entry = index.dictionaryEntry(id);
+            entryHashes[id] = entry == null ? 0 : entry.hashCode();
+        }
+
+        long hash = index.size();
+        for (int i = 0; i < index.size(); i++) {
+            hash = mix(hash, index.bin(i));
+            hash = mix(hash, index.minRange(i));
+            hash = mix(hash, index.maxRange(i));
+            hash = mix(hash, entryHash(entryHashes, index.alphaCodeId(i)));
+            hash = mix(hash, entryHash(entryHashes, index.bankNameId(i)));
+        }
+        return hash;
+    }
+
+    private static long entryHash(long[] entryHashes, int id) {
+        return id == BinRangeLookup.NO_VALUE ? -1 : entryHashes[id];
+    }
+
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.index;
+
+/**
+ * Read-only view of a sorted, dictionary-encoded bank emitment catalog.
+ * <p>
+ * Rows are addressed by position. Positions are ordered by the lower bound
+ * of the range, and alpha codes and bank names are stored as ids into a
+ * shared dictionary.
+ */
+public interface BinRangeLookup {
+
+    /**
+     * Identifier returned for absent values and unmatched lookups.
+     */
+    int NO_VALUE = -1;
+
+    /**
+     * Finds the position of the range that contains the given normalized card number.
+     * When several ranges overlap, the one with the greatest lower bound wins.
+     *
+     * @param cardNumber The normalized card number.
+     * @return The position of the matching range, or -1 if no range contains the card number.
+     */
+    int indexOf(long cardNumber);
+
+    /**
+     * @return The number of ranges in the catalog.
+     */
+    int size();
+
+    long minRange(int position);
+
+    long maxRange(int position);
+
+    /**
+     * Returns the highest upper bound among the ranges up to and including the given position.
+     * Lookups use it to stop walking back over overlapping ranges.
+     *
+     * @param position The row position.
+     * @return The running maximum of the upper bounds.
+     */
+    long maxReach(int position);
+
+    int bin(int position);
+
+    int alphaCodeId(int position);
+
+    int bankNameId(int position);
+
+    /**
+     * @return The number of distinct alpha codes and bank names.
+     */
+    int dictionarySize();
+
+    /**
+     * Decodes a dictionary id.
+     *
+     * @param id The dictionary id, or -1.
+     * @return The decoded value, or null for -1.
+     */
+    String dictionaryEntry(int id);
+
+    default String alphaCode(int position) {
+        return dictionaryEntry(alphaCodeId(position));
+    }
+
+    default String bankName(int position) {
+        return dictionaryEntry(bankNameId(position));
+    }
+}
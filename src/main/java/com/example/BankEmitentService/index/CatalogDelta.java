@@ -0,0 +1,136 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.index;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Row-level difference between two catalog generations, keyed by (bin, minRange, maxRange).
+ * <p>
+ * Both catalogs are sorted by (minRange, maxRange, bin), so the difference is
+ * computed with a single merge walk over the two row sets without hashing.
+ * <p>
+ * Rows sharing a key cannot be told apart by the key. When either generation holds
+ * several rows with a key that both generations contain, and the rows differ, all of
+ * them are deleted and inserted again. Every key in {@code deleted} and {@code updated}
+ * therefore stands for all rows with that key, and can be applied by key.
+ *
+ * @param previous The currently loaded generation.
+ * @param next The newly parsed generation.
+ * @param deleted Positions in {@code previous} of rows that no longer exist.
+ * @param inserted Positions in {@code next} of rows that did not exist before.
+ * @param updated Positions in {@code next} of rows whose alpha code or bank name changed.
+ */
+public record CatalogDelta(BinRangeLookup previous, BinRangeLookup next,
+                           int[] deleted, int[] inserted, int[] updated) {
+
+    /**
+     * Computes the difference between two generations.
+     *
+     * @param previous The currently loaded generation.
+     * @param next The newly parsed generation.
+     * @return The inserts, updates and deletes turning {@code previous} into {@code next}.
+     */
+    public static CatalogDelta between(BinRangeLookup previous, BinRangeLookup next) {
+        PositionList deleted = new PositionList();
+        PositionList inserted = new PositionList();
+        PositionList updated = new PositionList();
+
+        int i = 0;
+        int j = 0;
+        while (i < previous.size() && j < next.size()) {
+            int order = compareKeys(previous, i, next, j);
+            if (order < 0) {
+                deleted.add(i++);
+            } else if (order > 0) {
+                inserted.add(j++);
+            } else {
+                int previousEnd = runEnd(previous, i);
+                int nextEnd = runEnd(next, j);
+                if (previousEnd - i == 1 && nextEnd - j == 1) {
+                    if (!sameValues(previous, i, next, j))
+                        updated.add(j);
+                } else if (!sameRows(previous, i, previousEnd, next, j, nextEnd)) {
+                    while (i < previousEnd) deleted.add(i++);
+                    while (j < nextEnd) inserted.add(j++);
+                }
+                i = previousEnd;
+                j = nextEnd;
+            }
+        }
+        while (i < previous.size()) deleted.add(i++);
+        while (j < next.size()) inserted.add(j++);
+
+        return new CatalogDelta(previous, next, deleted.toArray(), inserted.toArray(), updated.toArray());
+    }
+
+    /**
+     * @return The total number of changed rows.
+     */
+    public int total() {
+        return deleted.length + inserted.length + updated.length;
+    }
+
+    @Override
+    public String toString() {
+        return STR."CatalogDelta[inserted=\{inserted.length}, updated=\{updated.length}, deleted=\{deleted.length}]";
+    }
+
+    /**
+     * @return The position after the last row with the same key as the row at {@code start}.
+     */
+    private static int runEnd(BinRangeLookup lookup, int start) {
+        int end = start + 1;
+        while (end < lookup.size() && compareKeys(lookup, start, lookup, end) == 0)
+            end++;
+        return end;
+    }
+
+    private static boolean sameRows(BinRangeLookup left, int i, int leftEnd, BinRangeLookup right, int j, int rightEnd) {
+        if (leftEnd - i != rightEnd - j)
+            return false;
+        for (; i < leftEnd; i++, j++) {
+            if (!sameValues(left, i, right, j))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean sameValues(BinRangeLookup left, int i, BinRangeLookup right, int j) {
+        return Objects.equals(left.alphaCode(i), right.alphaCode(j))
+                && Objects.equals(left.bankName(i), right.bankName(j));
+    }
+
+    private static int compareKeys(BinRangeLookup left, int i, BinRangeLookup right, int j) {
+        int result = Long.compare(left.minRange(i), right.minRange(j));
+        if (result == 0)
+            result = Long.compare(left.maxRange(i), right.maxRange(j));
+        if (result == 0)
+            result = Integer.compare(left.bin(i), right.bin(j));
+        return result;
+    }
+
+    /**
+     * Growable list of primitive positions.
+     */
+    private static final class PositionList {
+
+        private int[] positions = new int[16];
+        private int size;
+
+        void add(int position) {
+            if (size == positions.length)
+                positions = Arrays.copyOf(positions, size << 1);
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
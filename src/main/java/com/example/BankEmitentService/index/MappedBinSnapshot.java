@@ -0,0 +1,220 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link BinRangeLookup} served directly from a memory-mapped binary snapshot file.
+ * <p>
+ * The snapshot is a versioned, fixed-width, column-oriented image of a
+ * {@link BinRangeIndex}. All range data stays off-heap in the page cache,
+ * only the small name dictionary is decoded onto the heap when the file is opened.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header   : int magic, int version, int rows, int dictionarySize, long dictionaryOffset, long reserved
+ * columns  : long minRange[rows], long maxRange[rows], long maxReach[rows],
+ *            int bin[rows], int alphaCodeId[rows], int bankNameId[rows]
+ * dictionary: (int byteLength, byte[] utf8)[dictionarySize]
+ * </pre>
+ */
+public final class MappedBinSnapshot implements BinRangeLookup {
+
+    private static final int MAGIC = 0x42494E53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ROW_BYTES = 3 * Long.BYTES + 3 * Integer.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final String[] dictionary;
+    private final long maxRangeOffset;
+    private final long maxReachOffset;
+    private final long binOffset;
+    private final long alphaCodeOffset;
+    private final long bankNameOffset;
+
+    private MappedBinSnapshot(MappedByteBuffer buffer, int rows, String[] dictionary) {
+        this.buffer = buffer;
+        this.rows = rows;
+        this.dictionary = dictionary;
+        this.maxRangeOffset = HEADER_SIZE + (long) rows * Long.BYTES;
+        this.maxReachOffset = maxRangeOffset + (long) rows * Long.BYTES;
+        this.binOffset = maxReachOffset + (long) rows * Long.BYTES;
+        this.alphaCodeOffset = binOffset + (long) rows * Integer.BYTES;
+        this.bankNameOffset = alphaCodeOffset + (long) rows * Integer.BYTES;
+    }
+
+    /**
+     * Writes the given catalog to a snapshot file.
+     * <p>
+     * The data is written to a temporary file next to the target and moved into
+     * place afterwards, so a reader never maps a half-written snapshot.
+     *
+     * @param lookup The catalog to persist.
+     * @param path The snapshot file path.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(BinRangeLookup lookup, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        int rows = lookup.size();
+        long dictionaryOffset = HEADER_SIZE + (long) rows * ROW_BYTES;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows);
+            out.writeInt(lookup.dictionarySize());
+            out.writeLong(dictionaryOffset);
+            out.writeLong(0L);
+
+            for (int i = 0; i < rows; i++) out.writeLong(lookup.minRange(i));
+            for (int i = 0; i < rows; i++) out.writeLong(lookup.maxRange(i));
+            for (int i = 0; i < rows; i++) out.writeLong(lookup.maxReach(i));
+            for (int i = 0; i < rows; i++) out.writeInt(lookup.bin(i));
+            for (int i = 0; i < rows; i++) out.writeInt(lookup.alphaCodeId(i));
+            for (int i = 0; i < rows; i++) out.writeInt(lookup.bankNameId(i));
+
+            for (int id = 0; id < lookup.dictionarySize(); id++) {
+                byte[] bytes = lookup.dictionaryEntry(id).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps an existing snapshot file.
+     *
+     * @param path The snapshot file path.
+     * @return A lookup backed by the mapped file.
+     * @throws IOException if the file cannot be read, if it is not a snapshot of a supported version,
+     *                     or if its header or dictionary do not fit the file, e.g. after a truncated copy.
+     */
+    public static MappedBinSnapshot open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Unsupported snapshot size: " + channel.size());
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a BIN snapshot: " + path);
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported BIN snapshot version: " + buffer.getInt(4));
+
+        int rows = buffer.getInt(8);
+        int dictionarySize = buffer.getInt(12);
+        long dictionaryOffset = buffer.getLong(16);
+        if (rows < 0 || dictionarySize < 0)
+            throw new IOException("Corrupt BIN snapshot header: " + rows + " rows, " + dictionarySize + " dictionary entries");
+        if (dictionaryOffset < HEADER_SIZE + (long) rows * ROW_BYTES || dictionaryOffset > buffer.capacity())
+            throw new IOException("Corrupt BIN snapshot header: dictionary offset " + dictionaryOffset + " for " + rows + " rows in " + buffer.capacity() + " bytes");
+
+        String[] dictionary = new String[dictionarySize];
+        int offset = (int) dictionaryOffset;
+        for (int id = 0; id < dictionary.length; id++) {
+            if (buffer.capacity() - offset < Integer.BYTES)
+                throw new IOException("Truncated BIN snapshot: dictionary entry " + id + " of " + dictionarySize + " is missing");
+            int length = buffer.getInt(offset);
+            if (length < 0 || length > buffer.capacity() - offset - Integer.BYTES)
+                throw new IOException("Truncated BIN snapshot: dictionary entry " + id + " declares " + length + " bytes");
+
+            byte[] bytes = new byte[length];
+            buffer.get(offset + Integer.BYTES, bytes);
+            dictionary[id] = new String(bytes, StandardCharsets.UTF_8);
+            offset += Integer.BYTES + length;
+        }
+
+        return new MappedBinSnapshot(buffer, rows, dictionary);
+    }
+
+    @Override
+    public int indexOf(long cardNumber) {
+        int low = 0;
+        int high = rows - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (minRange(mid) <= cardNumber)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+
+        for (int i = high; i >= 0 && maxReach(i) >= cardNumber; i--) {
+            if (maxRange(i) >= cardNumber)
+                return i;
+        }
+        return NO_VALUE;
+    }
+
+    @Override
+    public int size() {
+        return rows;
+    }
+
+    @Override
+    public long minRange(int position) {
+        return buffer.getLong(HEADER_SIZE + position * Long.BYTES);
+    }
+
+    @Override
+    public long maxRange(int position) {
+        return buffer.getLong((int) (maxRangeOffset + (long) position * Long.BYTES));
+    }
+
+    @Override
+    public long maxReach(int position) {
+        return buffer.getLong((int) (maxReachOffset + (long) position * Long.BYTES));
+    }
+
+    @Override
+    public int bin(int position) {
+        return buffer.getInt((int) (binOffset + (long) position * Integer.BYTES));
+    }
+
+    @Override
+    public int alphaCodeId(int position) {
+        return buffer.getInt((int) (alphaCodeOffset + (long) position * Integer.BYTES));
+    }
+
+    @Override
+    public int bankNameId(int position) {
+        return buffer.getInt((int) (bankNameOffset + (long) position * Integer.BYTES));
+    }
+
+    @Override
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    @Override
+    public String dictionaryEntry(int id) {
+        return id == NO_VALUE ? null : dictionary[id];
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.logging;
+
+import com.example.BankEmitentService.metrics.LookupMetrics.Outcome;
+import com.example.BankEmitentService.utils.CardNumberParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.BankEmitentService.constants.Constants.LOOKUP_LOG_SAMPLE_HIT;
+import static com.example.BankEmitentService.constants.Constants.LOOKUP_LOG_SAMPLE_INVALID;
+import static com.example.BankEmitentService.constants.Constants.LOOKUP_LOG_SAMPLE_MISS;
+
+/**
+ * Sampled log of single card lookups, written to the {@value #LOGGER_NAME} logger.
+ * <p>
+ * Each outcome has its own sample rate ({@code lookup.log.sample.*}), so rare
+ * outcomes such as invalid input can be logged in full while hits are only
+ * sampled. Card numbers are masked to the first six and last four digits, and
+ * the masking only happens for lookups that are actually logged. With the
+ * logger disabled or a rate of zero, a lookup costs a level check.
+ */
+@Component
+public class LookupLogger {
+
+    /**
+     * The name of the logger, so it can be configured separately from the application loggers.
+     */
+    public static final String LOGGER_NAME = "lookup";
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final double[] sampleRates = new double[Outcome.values().length];
+
+    /**
+     * Constructs a LookupLogger with the configured sample rates.
+     */
+    public LookupLogger() {
+        this(LOOKUP_LOG_SAMPLE_HIT, LOOKUP_LOG_SAMPLE_MISS, LOOKUP_LOG_SAMPLE_INVALID);
+    }
+
+    /**
+     * Constructs a LookupLogger with the given sample rates, each between 0 (never) and 1 (always).
+     *
+     * @param hitRate The share of logged hits.
+     * @param missRate The share of logged misses.
+     * @param invalidRate The share of logged invalid card numbers.
+     */
+    public LookupLogger(double hitRate, double missRate, double invalidRate) {
+        sampleRates[Outcome.HIT.ordinal()] = hitRate;
+        sampleRates[Outcome.MISS.ordinal()] = missRate;
+        sampleRates[Outcome.INVALID.ordinal()] = invalidRate;
+    }
+
+    /**
+     * Logs a lookup if its outcome is sampled.
+     *
+     * @param outcome The outcome of the lookup.
+     * @param cardNumber The card number as received, masked before it is logged.
+     * @param bin The BIN of the card, or a negative value if the card number is invalid.
+     */
+    public void log(Outcome outcome, CharSequence cardNumber, int bin) {
+        if (!logger.isInfoEnabled() || !sampled(outcome))
+            return;
+
+        if (bin < 0)
+            logger.info("Card lookup {}: card={}", outcome, CardNumberParser.mask(cardNumber));
+        else
+            logger.info("Card lookup {}: card={}, bin={}", outcome, CardNumberParser.mask(cardNumber), bin);
+    }
+
+    private boolean sampled(Outcome outcome) {
+        double rate = sampleRates[outcome.ordinal()];
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of card lookups, split by outcome.
+ * <p>
+ * Timers are registered once, so recording a lookup is a map read and a
+ * histogram update without any meter lookup on the request path.
+ */
+@Component
+public class LookupMetrics {
+
+    /**
+     * The outcome of a single card lookup.
+     */
+    public enum Outcome {
+        HIT, MISS, INVALID
+    }
+
+    private final Map<Outcome, Timer> lookupTimers = new EnumMap<>(Outcome.class);
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+
+    /**
+     * Constructs a new instance of LookupMetrics.
+     *
+     * @param registry The registry the meters are registered in.
+     */
+    public LookupMetrics(MeterRegistry registry) {
+        for (Outcome outcome : Outcome.values()) {
+            lookupTimers.put(outcome, Timer.builder("card.lookup")
+                    .description("Latency of single card lookups")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.batchTimer = Timer.builder("card.lookup.batch")
+                .description("Latency of batch card lookups")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("card.lookup.batch.size")
+                .description("Number of cards per batch lookup")
+                .baseUnit("cards")
+                .register(registry);
+    }
+
+    /**
+     * Records a single lookup.
+     *
+     * @param outcome The outcome of the lookup.
+     * @param startedNanos The {@link System#nanoTime()} at which the lookup started.
+     */
+    public void record(Outcome outcome, long startedNanos) {
+        lookupTimers.get(outcome).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a batch lookup.
+     *
+     * @param cards The number of cards in the batch.
+     * @param startedNanos The {@link System#nanoTime()} at which the batch started.
+     */
+    public void recordBatch(int cards, long startedNanos) {
+        batchTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        batchSize.record(cards);
+    }
+}
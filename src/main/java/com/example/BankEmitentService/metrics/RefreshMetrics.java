@@ -0,0 +1,180 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.metrics;
+
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import com.example.BankEmitentService.utils.CatalogDownload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timings and volumes of the catalog refresh, and the state of the published catalog.
+ * <p>
+ * Each refresh phase has its own timer. The outcome counter and the catalog age
+ * gauge are meant for alerting: a catalog that keeps getting older while refreshes
+ * fail is stale.
+ */
+@Component
+public class RefreshMetrics {
+
+    /**
+     * A phase of the catalog refresh.
+     */
+    public enum Phase {
+        DOWNLOAD, UNZIP, PARSE, LOAD, DELTA, SWAP, PUBLISH
+    }
+
+    /**
+     * How a scheduled refresh ended.
+     */
+    public enum Outcome {
+        FULL, DELTA, UNCHANGED, FAILED
+    }
+
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<Outcome, Counter> outcomeCounters = new EnumMap<>(Outcome.class);
+    private final Counter rowsLoaded;
+    private final Counter bytesDownloaded;
+    private final Counter bytesResumed;
+    private final Counter downloadRetries;
+    private final DistributionSummary downloadRate;
+
+    /**
+     * Constructs a new instance of RefreshMetrics.
+     *
+     * @param registry The registry the meters are registered in.
+     * @param indexHolder The holder of the published index, observed by the catalog gauges.
+     */
+    public RefreshMetrics(MeterRegistry registry, BinRangeIndexHolder indexHolder) {
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("catalog.refresh.phase")
+                    .description("Duration of a catalog refresh phase")
+                    .tag("phase", phase.name().toLowerCase())
+                    .register(registry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomeCounters.put(outcome, Counter.builder("catalog.refresh")
+                    .description("Catalog refreshes by outcome")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(registry));
+        }
+        this.rowsLoaded = Counter.builder("catalog.rows.loaded")
+                .description("Rows written to the database by catalog refreshes")
+                .baseUnit("rows")
+                .register(registry);
+        this.bytesDownloaded = Counter.builder("catalog.download")
+                .description("Catalog archive bytes downloaded")
+                .baseUnit("bytes")
+                .register(registry);
+        this.bytesResumed = Counter.builder("catalog.download.resumed")
+                .description("Catalog archive bytes kept from interrupted downloads instead of being downloaded again")
+                .baseUnit("bytes")
+                .register(registry);
+        this.downloadRetries = Counter.builder("catalog.download.retries")
+                .description("Catalog download attempts that failed and were retried")
+                .register(registry);
+        this.downloadRate = DistributionSummary.builder("catalog.download.rate")
+                .description("Transfer rate of catalog downloads")
+                .baseUnit("bytes.per.second")
+                .register(registry);
+
+        Gauge.builder("catalog.generation", indexHolder, BinRangeIndexHolder::generation)
+                .description("Number of catalog generations published since startup")
+                .register(registry);
+        Gauge.builder("catalog.age", indexHolder, RefreshMetrics::ageSeconds)
+                .description("Time since the published catalog was loaded")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("catalog.ranges", indexHolder, holder -> {
+                    BinRangeLookup current = holder.current();
+                    return current == null ? 0 : current.size();
+                })
+                .description("Number of ranges in the published catalog")
+                .register(registry);
+    }
+
+    /**
+     * Runs a phase and records its duration.
+     *
+     * @param phase The phase.
+     * @param task The work of the phase.
+     * @return The result of the task.
+     */
+    public <T> T time(Phase phase, Supplier<T> task) {
+        return phaseTimers.get(phase).record(task);
+    }
+
+    /**
+     * Runs a phase and records its duration.
+     *
+     * @param phase The phase.
+     * @param task The work of the phase.
+     */
+    public void time(Phase phase, Runnable task) {
+        phaseTimers.get(phase).record(task);
+    }
+
+    /**
+     * Records the duration of a phase measured elsewhere.
+     *
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(Phase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a finished refresh.
+     *
+     * @param outcome How the refresh ended.
+     */
+    public void refreshed(Outcome outcome) {
+        outcomeCounters.get(outcome).increment();
+    }
+
+    /**
+     * @param rows The number of rows written to the database.
+     */
+    public void rowsLoaded(long rows) {
+        rowsLoaded.increment(rows);
+    }
+
+    /**
+     * @param bytes The number of archive bytes downloaded.
+     */
+    public void bytesDownloaded(long bytes) {
+        bytesDownloaded.increment(bytes);
+    }
+
+    /**
+     * Records the volume, transfer rate, retries and resumed bytes of a download.
+     *
+     * @param download The outcome of the download.
+     */
+    public void downloaded(CatalogDownload download) {
+        bytesDownloaded(download.bytes());
+        bytesResumed.increment(download.resumedBytes());
+        downloadRetries.increment(Math.max(0, download.attempts() - 1));
+        if (download.bytes() > 0 && download.transferNanos() > 0)
+            downloadRate.record(download.bytesPerSecond());
+    }
+
+    private static double ageSeconds(BinRangeIndexHolder holder) {
+        long publishedAt = holder.publishedAt();
+        return publishedAt == 0 ? Double.NaN : (System.currentTimeMillis() - publishedAt) / 1000.0;
+    }
+}
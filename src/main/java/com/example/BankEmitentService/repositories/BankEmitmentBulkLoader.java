@@ -0,0 +1,374 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.repositories;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.utils.IoThreads;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import static com.example.BankEmitentService.constants.Constants.BULK_LOAD_MODE;
+import static com.example.BankEmitentService.constants.Constants.BULK_LOAD_WRITERS;
+
+/**
+ * Loads large numbers of bank emitment rows into PostgreSQL without going through JPA.
+ * <p>
+ * Rows are fed in chunks into a bounded queue and drained by several writer
+ * threads, each holding its own connection. Writers stream rows with the
+ * PostgreSQL {@code COPY ... FROM STDIN} protocol, or with plain JDBC batches
+ * when {@code bulk.load.mode=jdbc} is set or the driver does not support COPY.
+ * Once every writer has finished, the writer transactions are committed one
+ * after the other. This is not atomic: if a commit fails midway, the writers
+ * committed before it stay committed. Callers load into a staging table and
+ * validate its row count and checksum before using it, which catches such a
+ * partial load.
+ */
+@Repository
+public class BankEmitmentBulkLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BankEmitmentBulkLoader.class);
+    private static final String COLUMNS = "bin, min_range, max_range, alpha_code, bank_name";
+    private static final List<BankEmitment> END_OF_DATA = List.of();
+    private static final long ENQUEUE_TIMEOUT_MILLIS = 100;
+
+    private final DataSource dataSource;
+    private final IoThreads ioThreads;
+
+    /**
+     * Constructs a new instance of BankEmitmentBulkLoader.
+     *
+     * @param dataSource The writer pool the load connections are taken from.
+     * @param ioThreads The builder of the writer threads.
+     */
+    @Autowired
+    BankEmitmentBulkLoader(@Qualifier("writerDataSource") DataSource dataSource, IoThreads ioThreads) {
+        this.dataSource = dataSource;
+        this.ioThreads = ioThreads;
+    }
+
+    /**
+     * Opens a new load session targeting the given table.
+     *
+     * @param table The table to load rows into.
+     * @return A running session accepting chunks of rows.
+     */
+    public Session open(String table) {
+        return new Session(table, Math.max(1, BULK_LOAD_WRITERS), "copy".equalsIgnoreCase(BULK_LOAD_MODE));
+    }
+
+    /**
+     * The outcome of a finished load session.
+     *
+     * @param rows The number of rows written.
+     * @param elapsedMillis The time between opening and finishing the session.
+     */
+    public record Result(long rows, long elapsedMillis) {
+
+        public long rowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000 / elapsedMillis;
+        }
+    }
+
+    /**
+     * A running bulk load. Chunks passed to {@link #accept(List)} are written
+     * by the writer threads in parallel; {@link #finish()} waits for them and
+     * commits, while {@link #close()} rolls back a session that was not finished.
+     */
+    public final class Session implements Consumer<List<BankEmitment>>, AutoCloseable {
+
+        private final String table;
+        private final boolean useCopy;
+        private final long startedAt = System.nanoTime();
+        private final BlockingQueue<List<BankEmitment>> queue;
+        private final ExecutorService executor;
+        private final List<Future<?>> writerResults = new ArrayList<>();
+        private final List<Connection> connections = new ArrayList<>();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicReference<Exception> writerFailure = new AtomicReference<>();
+        private final int writers;
+        private boolean finished;
+
+        private Session(String table, int writers, boolean useCopy) {
+            this.table = table;
+            this.writers = writers;
+            this.useCopy = useCopy;
+            this.queue = new ArrayBlockingQueue<>(writers * 2);
+
+            // Exactly one task per writer is submitted, so a thread per task is bounded by the writer count.
+            this.executor = Executors.newThreadPerTaskExecutor(ioThreads.factory("bulk-loader-"));
+
+            for (int i = 0; i < writers; i++) {
+                writerResults.add(executor.submit(this::runWriter));
+            }
+        }
+
+        /**
+         * Queues a chunk of rows for writing, blocking while all writers are busy.
+         *
+         * @param chunk The rows to write.
+         * @throws IllegalStateException if a writer has already failed, with the failure of the writer as its cause.
+         */
+        @Override
+        public void accept(List<BankEmitment> chunk) {
+            if (chunk.isEmpty())
+                return;
+            if (writerFailure.get() != null)
+                throw new IllegalStateException("Bulk load aborted: a writer failed.", writerFailure.get());
+
+            try {
+                if (!enqueue(chunk))
+                    throw new IllegalStateException("Bulk load aborted: no writer is running.", writerFailure.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queuing rows.", e);
+            }
+        }
+
+        /**
+         * Waits for all queued rows to be written and commits the writer transactions one by one.
+         *
+         * @return The number of rows loaded and the throughput.
+         * @throws SQLException if any writer failed, in which case all writer transactions are rolled
+         *         back, or if a commit failed, in which case the writers committed before it stay committed.
+         */
+        public Result finish() throws SQLException {
+            SQLException failure = awaitWriters();
+            finished = true;
+
+            synchronized (connections) {
+                for (Connection connection : connections) {
+                    try {
+                        if (failure == null) connection.commit();
+                        else connection.rollback();
+                    } catch (SQLException e) {
+                        if (failure == null) failure = e;
+                    }
+                }
+            }
+            closeConnections();
+
+            if (failure != null)
+                throw failure;
+
+            Result result = new Result(rows.get(), (System.nanoTime() - startedAt) / 1_000_000);
+            logger.info("Bulk load into {} finished: {} rows in {} ms ({} rows/s, {} writers, {}).",
+                    table, result.rows(), result.elapsedMillis(), result.rowsPerSecond(), writers, useCopy ? "COPY" : "JDBC batch");
+            return result;
+        }
+
+        /**
+         * Rolls back and releases the session if {@link #finish()} has not been called.
+         */
+        @Override
+        public void close() {
+            if (finished)
+                return;
+
+            finished = true;
+            awaitWriters();
+            synchronized (connections) {
+                for (Connection connection : connections) {
+                    try {
+                        connection.rollback();
+                    } catch (SQLException e) {
+                        logger.warn("Failed to roll back bulk load writer: {}", e.getMessage());
+                    }
+                }
+            }
+            closeConnections();
+        }
+
+        private SQLException awaitWriters() {
+            SQLException failure = null;
+            try {
+                for (int i = 0; i < writers; i++) {
+                    if (!enqueue(END_OF_DATA))
+                        break;
+                }
+                for (Future<?> result : writerResults) {
+                    try {
+                        result.get();
+                    } catch (Exception e) {
+                        if (failure == null)
+                            failure = e.getCause() instanceof SQLException sqlException
+                                    ? sqlException
+                                    : new SQLException("Bulk load writer failed.", e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new SQLException("Interrupted while waiting for bulk load writers.", e);
+            } finally {
+                executor.shutdownNow();
+            }
+            return failure;
+        }
+
+        /**
+         * Offers a chunk to the writers, giving up once every writer has terminated.
+         */
+        private boolean enqueue(List<BankEmitment> chunk) throws InterruptedException {
+            while (!queue.offer(chunk, ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (writerResults.stream().allMatch(Future::isDone))
+                    return false;
+            }
+            return true;
+        }
+
+        private void closeConnections() {
+            synchronized (connections) {
+                for (Connection connection : connections) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        logger.warn("Failed to close bulk load connection: {}", e.getMessage());
+                    }
+                }
+                connections.clear();
+            }
+        }
+
+        private Void runWriter() throws SQLException, InterruptedException {
+            Connection connection = dataSource.getConnection();
+            synchronized (connections) {
+                connections.add(connection);
+            }
+            connection.setAutoCommit(false);
+
+            try {
+                if (useCopy && connection.isWrapperFor(PGConnection.class))
+                    writeWithCopy(connection.unwrap(PGConnection.class));
+                else
+                    writeWithBatches(connection);
+                return null;
+            } catch (SQLException | RuntimeException e) {
+                writerFailure.compareAndSet(null, e);
+                queue.clear();
+                throw e;
+            }
+        }
+
+        /**
+         * Takes the next chunk for this writer. Once another writer has failed, the
+         * session is rolled back anyway, so this writer stops as if the data had ended.
+         * It must not wait for the end-of-data marker then: the failed writer clears
+         * the queue and may remove markers queued by {@link #finish()} in doing so.
+         */
+        private List<BankEmitment> nextChunk() throws InterruptedException {
+            List<BankEmitment> chunk;
+            while ((chunk = queue.poll(ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (writerFailure.get() != null)
+                    return END_OF_DATA;
+            }
+            return chunk;
+        }
+
+        private void writeWithCopy(PGConnection connection) throws SQLException, InterruptedException {
+            CopyIn copyIn = connection.getCopyAPI().copyIn(STR."COPY \{table} (\{COLUMNS}) FROM STDIN");
+            StringBuilder text = new StringBuilder(1 << 16);
+
+            try {
+                List<BankEmitment> chunk;
+                while ((chunk = nextChunk()) != END_OF_DATA) {
+                    text.setLength(0);
+                    for (BankEmitment emitment : chunk) {
+                        appendCopyRow(text, emitment);
+                    }
+
+                    byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                    rows.addAndGet(chunk.size());
+                }
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive())
+                    copyIn.cancelCopy();
+            }
+        }
+
+        private void writeWithBatches(Connection connection) throws SQLException, InterruptedException {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    STR."INSERT INTO \{table} (\{COLUMNS}) VALUES (?, ?, ?, ?, ?)")) {
+                List<BankEmitment> chunk;
+                while ((chunk = nextChunk()) != END_OF_DATA) {
+                    for (BankEmitment emitment : chunk) {
+                        statement.setInt(1, emitment.getBin());
+                        statement.setObject(2, emitment.getMinRange(), Types.BIGINT);
+                        statement.setObject(3, emitment.getMaxRange(), Types.BIGINT);
+                        statement.setString(4, emitment.getAlphaCode());
+                        statement.setString(5, emitment.getBankName());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    rows.addAndGet(chunk.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a row in the COPY text format: tab-separated columns, newline-terminated,
+     * {@code \N} for null and backslash escapes for control characters.
+     */
+    static void appendCopyRow(StringBuilder text, BankEmitment emitment) {
+        text.append(emitment.getBin()).append('\t');
+        appendCopyValue(text, emitment.getMinRange());
+        text.append('\t');
+        appendCopyValue(text, emitment.getMaxRange());
+        text.append('\t');
+        appendCopyValue(text, emitment.getAlphaCode());
+        text.append('\t');
+        appendCopyValue(text, emitment.getBankName());
+        text.append('\n');
+    }
+
+    private static void appendCopyValue(StringBuilder text, Long value) {
+        if (value == null)
+            text.append("\\N");
+        else
+            text.append(value.longValue());
+    }
+
+    private static void appendCopyValue(StringBuilder text, String value) {
+        if (value == null) {
+            text.append("\\N");
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> text.append("\\\\");
+                case '\t' -> text.append("\\t");
+                case '\n' -> text.append("\\n");
+                case '\r' -> text.append("\\r");
+                default -> text.append(c);
+            }
+        }
+    }
+}
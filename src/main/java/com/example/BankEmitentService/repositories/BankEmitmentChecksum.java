@@ -0,0 +1,107 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.repositories;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Order-independent checksum over a set of bank emitment rows.
+ * <p>
+ * The same figures can be computed by the database with a single aggregate
+ * query, which lets a freshly loaded table be compared with the parsed catalog
+ * before it is swapped in.
+ * <p>
+ * Besides the row count, the BIN sum and the text length, the checksum holds
+ * exact sums of {@code min_range} and {@code max_range}, so shifted or corrupted
+ * ranges are caught too. Each range is split at {@value #RANGE_SPLIT} into a high
+ * and a low part that are summed separately, which keeps the sums within a long
+ * for any realistic catalog while PostgreSQL computes the same sums exactly.
+ * Missing ranges count as 0.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class BankEmitmentChecksum {
+
+    static final long RANGE_SPLIT = 1_000_000_000L;
+
+    private long rows;
+    private long binSum;
+    private long textLength;
+    private long minRangeHigh;
+    private long minRangeLow;
+    private long maxRangeHigh;
+    private long maxRangeLow;
+
+    public BankEmitmentChecksum() {
+    }
+
+    BankEmitmentChecksum(long rows, long binSum, long textLength,
+                         long minRangeHigh, long minRangeLow, long maxRangeHigh, long maxRangeLow) {
+        this.rows = rows;
+        this.binSum = binSum;
+        this.textLength = textLength;
+        this.minRangeHigh = minRangeHigh;
+        this.minRangeLow = minRangeLow;
+        this.maxRangeHigh = maxRangeHigh;
+        this.maxRangeLow = maxRangeLow;
+    }
+
+    /**
+     * Adds a row to the checksum.
+     *
+     * @param emitment The row to add.
+     */
+    public void add(BankEmitment emitment) {
+        add(emitment.getBin(),
+            emitment.getMinRange() == null ? 0 : emitment.getMinRange(),
+            emitment.getMaxRange() == null ? 0 : emitment.getMaxRange(),
+            emitment.getAlphaCode(),
+            emitment.getBankName());
+    }
+
+    /**
+     * Adds a row to the checksum.
+     *
+     * @param bin The BIN of the row.
+     * @param minRange The lower bound of the range, or 0 if missing.
+     * @param maxRange The upper bound of the range, or 0 if missing.
+     * @param alphaCode The alpha code of the row, may be null.
+     * @param bankName The bank name of the row, may be null.
+     */
+    public void add(int bin, long minRange, long maxRange, String alphaCode, String bankName) {
+        rows++;
+        binSum += bin;
+        textLength += length(alphaCode) + length(bankName);
+        minRangeHigh += minRange / RANGE_SPLIT;
+        minRangeLow += minRange % RANGE_SPLIT;
+        maxRangeHigh += maxRange / RANGE_SPLIT;
+        maxRangeLow += maxRange % RANGE_SPLIT;
+    }
+
+    /**
+     * Computes the checksum of every row of a catalog.
+     *
+     * @param lookup The catalog to summarize.
+     * @return The checksum of the catalog.
+     */
+    public static BankEmitmentChecksum of(BinRangeLookup lookup) {
+        BankEmitmentChecksum checksum = new BankEmitmentChecksum();
+        for (int i = 0; i < lookup.size(); i++) {
+            checksum.add(lookup.bin(i), lookup.minRange(i), lookup.maxRange(i), lookup.alphaCode(i), lookup.bankName(i));
+        }
+        return checksum;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.codePointCount(0, value.length());
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.repositories;
+
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import com.example.BankEmitentService.index.CatalogDelta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Plain JDBC access to the bank_emitments table for bulk operations
+ * where loading JPA entities would be too expensive.
+ * <p>
+ * New catalog generations are loaded into a staging table with the same
+ * structure and swapped in atomically by renaming the tables, so readers
+ * never observe an empty or partially loaded table.
+ */
+@Repository
+public class BankEmitmentJdbcRepository {
+
+    public static final String TABLE = "bank_emitments";
+    public static final String STAGING_TABLE = "bank_emitments_staging";
+
+    private static final String PREVIOUS_TABLE = "bank_emitments_previous";
+    private static final String RANGE_INDEX = "idx_bank_emitments_bin_range";
+    private static final String STAGING_RANGE_INDEX = "idx_bank_emitments_staging_bin_range";
+    private static final String PREVIOUS_RANGE_INDEX = "idx_bank_emitments_previous_bin_range";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new instance of BankEmitmentJdbcRepository.
+     *
+     * @param jdbcTemplate The JdbcTemplate bound to the application data source.
+     */
+    @Autowired
+    BankEmitmentJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams every row of the bank_emitments table into a new index builder.
+     * <p>
+     * The query runs inside a read-only transaction so that the PostgreSQL driver
+     * honours the fetch size and reads the table with a cursor instead of
+     * materializing the whole result set.
+     *
+     * @return A builder holding all rows currently stored in the table. Rows without
+     *         ranges are counted as rejected.
+     */
+    @Transactional(readOnly = true)
+    public BinRangeIndex.Builder loadIndex() {
+        return readIndex();
+    }
+
+    /**
+     * Streams every row of the bank_emitments table into a new index builder, like
+     * {@link #loadIndex()}, but through the writer pool. The rows are those the next
+     * write will see, never a lagging read replica.
+     *
+     * @return A builder holding all rows currently stored in the table. Rows without
+     *         ranges are counted as rejected.
+     */
+    @Transactional
+    public BinRangeIndex.Builder loadIndexForUpdate() {
+        return readIndex();
+    }
+
+    private BinRangeIndex.Builder readIndex() {
+        BinRangeIndex.Builder builder = BinRangeIndex.builder();
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT bin, min_range, max_range, alpha_code, bank_name FROM bank_emitments");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            int bin = resultSet.getInt(1);
+            long minRange = resultSet.getLong(2);
+            boolean missingRange = resultSet.wasNull();
+            long maxRange = resultSet.getLong(3);
+            missingRange |= resultSet.wasNull();
+
+            // Rows without ranges can never match a card, so they are left out of the index.
+            if (missingRange)
+                builder.reject();
+            else
+                builder.add(bin, minRange, maxRange, resultSet.getString(4), resultSet.getString(5));
+        });
+
+        return builder;
+    }
+
+    /**
+     * Converts the range columns of bank_emitments from their original varchar type
+     * to bigint and creates the composite range index. Values that are not valid
+     * 19-digit card numbers become null. Does nothing once the columns are bigint.
+     * <p>
+     * The staging table is dropped, so it is recreated from the migrated structure
+     * by the next full refresh.
+     *
+     * @return true if the columns were migrated, false if there was nothing to do.
+     * @see BankEmitmentSchemaMigration
+     */
+    @Transactional
+    public boolean migrateRangeColumns() {
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT data_type FROM information_schema.columns WHERE table_schema = current_schema() AND table_name = ? AND column_name = 'min_range'",
+                String.class, TABLE);
+        if (types.isEmpty() || "bigint".equals(types.getFirst()))
+            return false;
+
+        jdbcTemplate.execute(STR."DROP TABLE IF EXISTS \{STAGING_TABLE}");
+        jdbcTemplate.execute(STR."""
+                ALTER TABLE \{TABLE}
+                    ALTER COLUMN min_range TYPE bigint USING \{toBigint("min_range")},
+                    ALTER COLUMN max_range TYPE bigint USING \{toBigint("max_range")}
+                """);
+        jdbcTemplate.execute(STR."CREATE INDEX IF NOT EXISTS \{RANGE_INDEX} ON \{TABLE} (bin, min_range, max_range)");
+        return true;
+    }
+
+    private static String toBigint(String column) {
+        return STR."CASE WHEN \{column} ~ '^[0-9]{1,19}$' AND \{column}::numeric <= 9223372036854775807 THEN \{column}::bigint END";
+    }
+
+    /**
+     * Creates the staging table as a structural copy of bank_emitments, including
+     * indexes and identity columns, and empties it for a new load.
+     */
+    @Transactional
+    public void prepareStagingTable() {
+        jdbcTemplate.execute(STR."CREATE TABLE IF NOT EXISTS \{STAGING_TABLE} (LIKE \{TABLE} INCLUDING ALL)");
+        jdbcTemplate.execute(STR."TRUNCATE TABLE \{STAGING_TABLE}");
+    }
+
+    /**
+     * Computes the checksum of the given table with a single aggregate query.
+     * <p>
+     * Runs in a regular transaction so that it reads from the writer pool and sees
+     * a staging table that may not have reached a read replica yet.
+     *
+     * @param table The table to summarize.
+     * @return The row count, BIN sum, text length and range sums of the table.
+     * @see BankEmitmentChecksum
+     */
+    @Transactional
+    public BankEmitmentChecksum checksum(String table) {
+        long split = BankEmitmentChecksum.RANGE_SPLIT;
+        return jdbcTemplate.queryForObject(
+                STR."""
+                SELECT count(*),
+                       coalesce(sum(bin), 0),
+                       coalesce(sum(coalesce(length(alpha_code), 0) + coalesce(length(bank_name), 0)), 0),
+                       coalesce(sum(coalesce(min_range, 0) / \{split}), 0),
+                       coalesce(sum(coalesce(min_range, 0) % \{split}), 0),
+                       coalesce(sum(coalesce(max_range, 0) / \{split}), 0),
+                       coalesce(sum(coalesce(max_range, 0) % \{split}), 0)
+                FROM \{table}
+                """,
+                (resultSet, rowNum) -> new BankEmitmentChecksum(resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3),
+                                                                resultSet.getLong(4), resultSet.getLong(5),
+                                                                resultSet.getLong(6), resultSet.getLong(7)));
+    }
+
+    /**
+     * Swaps the staging table with bank_emitments in a single transaction.
+     * <p>
+     * Table renames are transactional in PostgreSQL, so concurrent readers either
+     * see the old generation or the new one. The old generation becomes the next
+     * staging table.
+     * <p>
+     * The range indexes are renamed along with the tables, so bank_emitments always
+     * carries the index name declared on the entity.
+     */
+    @Transactional
+    public void swapStagingTable() {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '10s'");
+        String stagingRangeIndex = rangeIndexName(STAGING_TABLE);
+        String liveRangeIndex = rangeIndexName(TABLE);
+
+        jdbcTemplate.execute(STR."ALTER TABLE \{TABLE} RENAME TO \{PREVIOUS_TABLE}");
+        jdbcTemplate.execute(STR."ALTER TABLE \{STAGING_TABLE} RENAME TO \{TABLE}");
+        jdbcTemplate.execute(STR."ALTER TABLE \{PREVIOUS_TABLE} RENAME TO \{STAGING_TABLE}");
+
+        if (liveRangeIndex != null)
+            jdbcTemplate.execute(STR."ALTER INDEX \{liveRangeIndex} RENAME TO \{PREVIOUS_RANGE_INDEX}");
+        if (stagingRangeIndex != null)
+            jdbcTemplate.execute(STR."ALTER INDEX \{stagingRangeIndex} RENAME TO \{RANGE_INDEX}");
+        if (liveRangeIndex != null)
+            jdbcTemplate.execute(STR."ALTER INDEX \{PREVIOUS_RANGE_INDEX} RENAME TO \{STAGING_RANGE_INDEX}");
+    }
+
+    /**
+     * Finds the composite range index of a table, whatever name it was created with.
+     *
+     * @param table The table to inspect.
+     * @return The name of the index, or null if the table has none.
+     */
+    private String rangeIndexName(String table) {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ? AND indexdef LIKE '%(bin, min_range, max_range)'",
+                String.class, table);
+        return names.isEmpty() ? null : names.getFirst();
+    }
+
+    /**
+     * Applies a row-level delta to bank_emitments in a single transaction.
+     * <p>
+     * The delta must have been computed against the rows returned by
+     * {@link #loadIndexForUpdate()}. Rows are matched by (bin, min_range, max_range),
+     * which {@link CatalogDelta} guarantees to be unambiguous. Rows without ranges
+     * are not part of any index, so they are deleted.
+     * <p>
+     * After the deletes, updates and inserts have been executed, the table checksum
+     * is compared with the checksum of the new generation. On a mismatch the whole
+     * transaction is rolled back, leaving the previous generation untouched.
+     *
+     * @param delta The difference between the loaded and the new generation.
+     * @param expected The checksum of the new generation.
+     * @throws IllegalStateException if the resulting table does not match the new generation.
+     */
+    @Transactional
+    public void applyDelta(CatalogDelta delta, BankEmitmentChecksum expected) {
+        BinRangeLookup previous = delta.previous();
+        BinRangeLookup next = delta.next();
+
+        jdbcTemplate.update(STR."DELETE FROM \{TABLE} WHERE min_range IS NULL OR max_range IS NULL");
+        batchUpdate(STR."DELETE FROM \{TABLE} WHERE bin = ? AND min_range = ? AND max_range = ?",
+                delta.deleted(), (statement, position) -> setKey(statement, previous, position, 1));
+
+        batchUpdate(STR."UPDATE \{TABLE} SET alpha_code = ?, bank_name = ? WHERE bin = ? AND min_range = ? AND max_range = ?",
+                delta.updated(), (statement, position) -> {
+                    statement.setString(1, next.alphaCode(position));
+                    statement.setString(2, next.bankName(position));
+                    setKey(statement, next, position, 3);
+                });
+
+        batchUpdate(STR."INSERT INTO \{TABLE} (bin, min_range, max_range, alpha_code, bank_name) VALUES (?, ?, ?, ?, ?)",
+                delta.inserted(), (statement, position) -> {
+                    setKey(statement, next, position, 1);
+                    statement.setString(4, next.alphaCode(position));
+                    statement.setString(5, next.bankName(position));
+                });
+
+        BankEmitmentChecksum actual = checksum(TABLE);
+        if (!expected.equals(actual))
+            throw new IllegalStateException(STR."Table does not match the new generation after the delta. Expected: \{expected}, actual: \{actual}");
+    }
+
+    private void batchUpdate(String sql, int[] positions, PositionSetter setter) {
+        if (positions.length == 0)
+            return;
+
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                setter.setValues(statement, positions[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return positions.length;
+            }
+        });
+    }
+
+    private static void setKey(PreparedStatement statement, BinRangeLookup lookup, int position, int firstIndex) throws SQLException {
+        statement.setInt(firstIndex, lookup.bin(position));
+        statement.setLong(firstIndex + 1, lookup.minRange(position));
+        statement.setLong(firstIndex + 2, lookup.maxRange(position));
+    }
+
+    /**
+     * Binds the parameters of one catalog row.
+     */
+    @FunctionalInterface
+    private interface PositionSetter {
+        void setValues(PreparedStatement statement, int position) throws SQLException;
+    }
+}
@@ -10,9 +10,11 @@ import com.example.BankEmitentService.entity.BankEmitment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for managing BankEmitment entities. This interface
@@ -36,13 +38,35 @@ public interface BankEmitmentRepository extends JpaRepository<BankEmitment, Inte
     void truncateTable();
 
     /**
-     * Finds and retrieves a list of BankEmitment records by the BIN (Bank Identification Number).
-     * The method will return all records that match the given BIN.
+     * Finds the range containing the given card number.
+     * The BIN may be split into several ranges; the database matches the interval
+     * with a single probe of the composite (bin, min_range, max_range) index and
+     * returns the range with the highest lower bound when ranges overlap.
      *
      * @param bin The first six digits of the card number (BIN) to search for.
+     * @param cardNumber The normalized 19-digit card number.
      *
-     * @return List of BankEmitment entities matching the BIN.
+     * @return The BankEmitment whose range contains the card number, if any.
      */
-    List<BankEmitment> findByBin(int bin);
+    @Query(value = """
+            SELECT * FROM bank_emitments
+            WHERE bin = :bin AND min_range <= :cardNumber AND max_range >= :cardNumber
+            ORDER BY min_range DESC
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<BankEmitment> findMatchingRange(@Param("bin") int bin, @Param("cardNumber") long cardNumber);
+
+    /**
+     * Finds every range of a BIN, ordered by the lower bound, so the whole BIN
+     * can be cached and any card number of it resolved without another query.
+     * Only used to fill the BIN result cache; uncached lookups use
+     * {@link #findMatchingRange(int, long)}.
+     *
+     * @param bin The first six digits of the card number (BIN) to search for.
+     *
+     * @return The ranges of the BIN, empty if the BIN is unknown.
+     */
+    @Query(value = "SELECT * FROM bank_emitments WHERE bin = :bin ORDER BY min_range", nativeQuery = true)
+    List<BankEmitment> findAllByBin(@Param("bin") int bin);
 
 }
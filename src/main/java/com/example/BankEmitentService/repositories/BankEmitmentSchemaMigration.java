@@ -0,0 +1,48 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings the bank_emitments schema up to date while the application context starts.
+ * <p>
+ * Singletons are initialized before the embedded web server and the binary server
+ * accept connections, so no lookup ever queries the range columns with bigint
+ * parameters while they are still varchar, and the table rewrite never competes
+ * with traffic.
+ */
+@Component
+public class BankEmitmentSchemaMigration implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(BankEmitmentSchemaMigration.class);
+
+    private final BankEmitmentJdbcRepository bankEmitmentJdbcRepository;
+
+    /**
+     * Constructs a new instance of BankEmitmentSchemaMigration.
+     *
+     * @param bankEmitmentJdbcRepository The repository running the migration statements.
+     */
+    @Autowired
+    BankEmitmentSchemaMigration(BankEmitmentJdbcRepository bankEmitmentJdbcRepository) {
+        this.bankEmitmentJdbcRepository = bankEmitmentJdbcRepository;
+    }
+
+    /**
+     * Migrates the range columns of bank_emitments to bigint, if they are not already.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (this.bankEmitmentJdbcRepository.migrateRangeColumns())
+            logger.info("Range columns of {} migrated to bigint.", BankEmitmentJdbcRepository.TABLE);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.repositories;
+
+import com.example.BankEmitentService.cluster.CatalogGeneration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Plain JDBC access to the single-row catalog_generation table, which records which
+ * generation of the shared bank_emitments table is current and when any node last
+ * completed a refresh.
+ * <p>
+ * Every new generation is announced with {@code NOTIFY} on {@link #CHANNEL} in the
+ * transaction that records it, so listeners are only notified once it is committed.
+ * The payload is {@code <generation>:<node id>}.
+ */
+@Repository
+public class CatalogGenerationRepository {
+
+    public static final String TABLE = "catalog_generation";
+    public static final String CHANNEL = "catalog_generation";
+
+    /**
+     * Arbitrary application-wide key of the advisory lock serializing the creation of the table.
+     */
+    private static final long SCHEMA_LOCK_KEY = 0x42494E5F47454EL;
+
+    private static final RowMapper<CatalogGeneration> ROW_MAPPER = (resultSet, rowNum) -> new CatalogGeneration(
+            resultSet.getLong("generation"),
+            toInstant(resultSet.getTimestamp("loaded_at")),
+            resultSet.getString("loaded_by"),
+            toInstant(resultSet.getTimestamp("checked_at")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new instance of CatalogGenerationRepository.
+     *
+     * @param jdbcTemplate The JdbcTemplate bound to the application data source.
+     */
+    @Autowired
+    CatalogGenerationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the table and its only row unless they exist. Nodes starting at the same
+     * time are serialized by a transaction-level advisory lock, because concurrent
+     * {@code CREATE TABLE IF NOT EXISTS} statements can still collide.
+     */
+    @Transactional
+    public void createTable() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, SCHEMA_LOCK_KEY);
+        jdbcTemplate.execute(STR."""
+                CREATE TABLE IF NOT EXISTS \{TABLE} (
+                    id         smallint PRIMARY KEY CHECK (id = 1),
+                    generation bigint NOT NULL,
+                    loaded_at  timestamptz,
+                    loaded_by  text,
+                    checked_at timestamptz
+                )
+                """);
+        jdbcTemplate.update(STR."INSERT INTO \{TABLE} (id, generation) VALUES (1, 0) ON CONFLICT DO NOTHING");
+    }
+
+    /**
+     * Reads the current generation. Runs in a regular transaction so it is read from
+     * the writer, which a read replica may lag behind.
+     *
+     * @return The current generation.
+     */
+    @Transactional
+    public CatalogGeneration current() {
+        return jdbcTemplate.queryForObject(STR."SELECT generation, loaded_at, loaded_by, checked_at FROM \{TABLE} WHERE id = 1", ROW_MAPPER);
+    }
+
+    /**
+     * @return The current database time, so that all nodes compare times on the same clock.
+     */
+    @Transactional
+    public Instant databaseTime() {
+        return jdbcTemplate.queryForObject("SELECT clock_timestamp()", Timestamp.class).toInstant();
+    }
+
+    /**
+     * Records that the given node has loaded a new generation and notifies the listeners.
+     *
+     * @param nodeId The id of the node that loaded the generation.
+     * @return The new generation.
+     */
+    @Transactional
+    public CatalogGeneration recordLoad(String nodeId) {
+        CatalogGeneration generation = jdbcTemplate.queryForObject(STR."""
+                UPDATE \{TABLE}
+                SET generation = generation + 1, loaded_at = now(), loaded_by = ?, checked_at = now()
+                WHERE id = 1
+                RETURNING generation, loaded_at, loaded_by, checked_at
+                """, ROW_MAPPER, nodeId);
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, generation.number() + ":" + nodeId);
+        return generation;
+    }
+
+    /**
+     * Records that a refresh has completed without changing the table, for example
+     * because the catalog had not changed.
+     */
+    @Transactional
+    public void recordCheck() {
+        jdbcTemplate.update(STR."UPDATE \{TABLE} SET checked_at = now() WHERE id = 1");
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
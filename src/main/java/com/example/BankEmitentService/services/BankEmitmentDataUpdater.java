@@ -6,38 +6,186 @@
 
 package com.example.BankEmitentService.services;
 
-import com.example.BankEmitentService.repositories.BankEmitmentRepository;
+import com.example.BankEmitentService.cluster.CatalogGeneration;
+import com.example.BankEmitentService.cluster.RefreshCoordinator;
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import com.example.BankEmitentService.index.CatalogDelta;
+import com.example.BankEmitentService.index.MappedBinSnapshot;
+import com.example.BankEmitentService.metrics.RefreshMetrics;
+import com.example.BankEmitentService.metrics.RefreshMetrics.Outcome;
+import com.example.BankEmitentService.metrics.RefreshMetrics.Phase;
+import com.example.BankEmitentService.repositories.BankEmitmentBulkLoader;
+import com.example.BankEmitentService.repositories.BankEmitmentChecksum;
+import com.example.BankEmitentService.repositories.BankEmitmentJdbcRepository;
+import com.example.BankEmitentService.utils.CatalogDownload;
+import com.example.BankEmitentService.utils.CatalogSettings;
+import com.example.BankEmitentService.utils.CatalogState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import static com.example.BankEmitentService.utils.ParseUtils.bankEmitments;
-import static com.example.BankEmitentService.utils.ZipFileUtils.downloadAndUnzip;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import static com.example.BankEmitentService.constants.Constants.CATALOG_DELTA_MAX_RATIO;
+import static com.example.BankEmitentService.constants.Constants.CATALOG_PIPELINE_ENABLED;
+import static com.example.BankEmitentService.constants.Constants.PARSE_CHUNK_SIZE;
+import static com.example.BankEmitentService.constants.Constants.PARSE_MODE;
+import static com.example.BankEmitentService.constants.Constants.PARSE_PARALLELISM;
+import static com.example.BankEmitentService.repositories.BankEmitmentJdbcRepository.STAGING_TABLE;
+import static com.example.BankEmitentService.utils.ParseUtils.jsonFileParallelParser;
+import static com.example.BankEmitentService.utils.ParseUtils.jsonFileStreamParser;
+import static com.example.BankEmitentService.utils.ZipFileUtils.downloadCatalog;
+import static com.example.BankEmitentService.utils.ZipFileUtils.unzipCatalog;
 
 /**
  * This service class is responsible for updating bank emitment data
  * in the database using scheduled tasks. It periodically downloads
- * updated data via a cron expression and truncates the existing
- * records before saving the new entries.
+ * updated data via a cron expression, loads it into a staging table
+ * and swaps the staging table in once it has been validated.
  * <p>
  * The update process is executed hourly, ensuring that the database
  * contains the most recent bank emitment information.
+ * <p>
+ * After every load the in-memory {@link BinRangeIndex} is rebuilt from the
+ * parsed records and published, so card lookups never hit the database.
+ * The index is also persisted as a binary snapshot, which is memory-mapped
+ * on the next start so traffic can be served before the first refresh.
+ * <p>
+ * When several replicas share the database, the {@link RefreshCoordinator} elects
+ * one of them to run each refresh; the others rebuild their index from the
+ * database once the new generation has been announced.
  */
 @Service
 public class BankEmitmentDataUpdater {
 
     private static final Logger logger = LoggerFactory.getLogger(BankEmitmentDataUpdater.class);
-    private final BankEmitmentRepository bankEmitmentRepository;
+    private static final boolean PARALLEL_PARSE = "parallel".equalsIgnoreCase(PARSE_MODE);
+    private final BankEmitmentJdbcRepository bankEmitmentJdbcRepository;
+    private final BankEmitmentBulkLoader bankEmitmentBulkLoader;
+    private final BinRangeIndexHolder indexHolder;
+    private final CatalogPipeline catalogPipeline;
+    private final RefreshMetrics metrics;
+    private final RefreshCoordinator coordinator;
+    private final AtomicLong skippedRefreshes = new AtomicLong();
+    private final AtomicReference<CatalogDelta> lastDelta = new AtomicReference<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final CatalogSettings settings;
 
     /**
      * Constructs a new instance of BankEmitmentDataUpdater.
      *
-     * @param bankEmitmentRepository The BankEmitmentRepository repository
+     * @param bankEmitmentJdbcRepository The JDBC repository used to read, stage and swap the table
+     * @param bankEmitmentBulkLoader The loader used to write the table in bulk
+     * @param indexHolder The holder of the published in-memory index
+     * @param catalogPipeline The disk-free download and parse pipeline
+     * @param metrics The refresh phase timers and counters
+     * @param coordinator The coordinator electing the replica that runs each refresh
+     * @param settings The catalog URL, the folders and files of the catalog and the refresh mode
      */
     @Autowired
-    BankEmitmentDataUpdater(BankEmitmentRepository bankEmitmentRepository) {
-        this.bankEmitmentRepository = bankEmitmentRepository;
+    BankEmitmentDataUpdater(BankEmitmentJdbcRepository bankEmitmentJdbcRepository,
+                            BankEmitmentBulkLoader bankEmitmentBulkLoader,
+                            BinRangeIndexHolder indexHolder,
+                            CatalogPipeline catalogPipeline,
+                            RefreshMetrics metrics,
+                            RefreshCoordinator coordinator,
+                            CatalogSettings settings) {
+        this.bankEmitmentJdbcRepository = bankEmitmentJdbcRepository;
+        this.bankEmitmentBulkLoader = bankEmitmentBulkLoader;
+        this.indexHolder = indexHolder;
+        this.catalogPipeline = catalogPipeline;
+        this.metrics = metrics;
+        this.coordinator = coordinator;
+        this.settings = settings;
+    }
+
+    /**
+     * Publishes a lookup index once the application has started, so lookups are
+     * served from memory before the first scheduled refresh runs.
+     * <p>
+     * The binary snapshot written by the previous refresh is mapped when present.
+     * Otherwise, the index is built from the rows already stored in the database,
+     * whose range columns {@code BankEmitmentSchemaMigration} has already migrated
+     * to bigint while the context started.
+     * <p>
+     * The coordinator is started afterwards, so a snapshot older than the generation
+     * another replica has loaded in the meantime is replaced right away.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexOnStartup() {
+        loadLocalIndex();
+        this.coordinator.start();
+    }
+
+    private void loadLocalIndex() {
+        Path snapshotPath = this.settings.snapshotPath();
+        if (Files.exists(snapshotPath)) {
+            try {
+                MappedBinSnapshot snapshot = MappedBinSnapshot.open(snapshotPath);
+                this.indexHolder.publish(snapshot, Files.getLastModifiedTime(snapshotPath).toMillis());
+
+                logger.info("Index mapped from snapshot {}: {} ranges.", snapshotPath, snapshot.size());
+                return;
+            } catch (IOException e) {
+                logger.warn("Failed to map snapshot {}, falling back to the database: {}", snapshotPath, e.getMessage());
+            }
+        }
+
+        BinRangeIndex.Builder builder = this.bankEmitmentJdbcRepository.loadIndex();
+        if (builder.size() == 0) {
+            logger.warn("The bank_emitments table is empty. Lookups will use the database until the first refresh.");
+            return;
+        }
+
+        this.indexHolder.publish(builder.build());
+
+        logger.info("Index loaded from database: {} ranges.", builder.size());
+    }
+
+    /**
+     * Rebuilds the index from the database after another replica has loaded a new
+     * generation into the shared table, and writes it as the local snapshot.
+     * <p>
+     * The table is read through the writer pool, like the delta refresh does. The
+     * lookup pool may point at a read replica that has not replayed the announced
+     * generation yet, and the index would then silently stay on the previous one.
+     * <p>
+     * Waits for a refresh running on this node to finish first. An exception makes
+     * the coordinator retry the rebuild.
+     *
+     * @param generation The generation announced by the other replica.
+     */
+    @EventListener
+    public void reloadIndex(CatalogGeneration generation) {
+        this.refreshLock.lock();
+        try {
+            BinRangeIndex.Builder builder = this.bankEmitmentJdbcRepository.loadIndexForUpdate();
+            if (builder.size() == 0) {
+                logger.warn("Generation {} has no ranges, keeping the current index.", generation.number());
+                return;
+            }
+
+            publishIndex(builder.build());
+        } finally {
+            this.refreshLock.unlock();
+        }
     }
 
     /**
@@ -46,23 +194,425 @@ public class BankEmitmentDataUpdater {
      * This method performs the following actions:
      * 1. Initiates the update process by logging the start of the transaction.
      * 2. Downloads and unzips the latest bank emitment data from the specified source.
-     * 3. Truncates the existing bank emitment records in the database to prepare for new data.
-     * 4. Saves the new bank emitment records retrieved from the updated data into the database.
-     * 5. Logs the successful truncation of the table and the completion of the transaction.
+     *    The refresh stops here if the server reports the catalog as not modified,
+     *    or if its SHA-256 matches the last applied archive.
+     * 3. Prepares an empty staging table with the structure of bank_emitments.
+     * 4. Streams the new bank emitment records from the updated data in chunks, handing each
+     *    chunk to the parallel bulk loader and adding it to a new in-memory index while parsing continues.
+     * 5. Validates the staging table against the row count and checksum of the parsed records.
+     * 6. Swaps the staging table with bank_emitments atomically.
+     * 7. Writes the new index as a binary snapshot and publishes it atomically.
+     * 8. Stores the validators of the applied archive for the next conditional download.
      * </p>
+     * If any step fails, the previous generation stays in place in both the
+     * database and the in-memory index.
+     * <p>
+     * With {@code catalog.pipeline.enabled=true}, steps 2 and 4 run as the disk-free
+     * {@link CatalogPipeline} instead of going through the download and extract folders.
+     * <p>
+     * With {@code catalog.refresh.mode=delta}, steps 3 to 6 are replaced by a diff against
+     * the rows stored in bank_emitments, and only the changed rows are written in one transaction.
+     * The full staging load is still used when the table is empty, when the delta
+     * exceeds {@code catalog.delta.max.ratio} of the catalog, or when it fails to apply.
+     * <p>
+     * With {@code spring.threads.virtual.enabled=true} the refresh runs on a virtual
+     * thread of the scheduler instead of occupying its only platform thread. A refresh
+     * that is still running when the next one is due causes the next one to be skipped.
+     * <p>
+     * With {@code cluster.coordination.enabled=true} the refresh only runs on the
+     * replica elected by the {@link RefreshCoordinator}.
      */
     @Scheduled(cron = "0 0 * * * *")
     public void saveBankEmitment() {
-        logger.info("Transaction started.");
-        downloadAndUnzip();
+        this.coordinator.runElected(this::refresh);
+    }
+
+    /**
+     * Runs one refresh on this node, unless one is already running.
+     *
+     * @return true if the refresh completed, whether it applied a new generation or
+     *         found the catalog unchanged; false if it failed or was skipped.
+     */
+    private boolean refresh() {
+        if (!this.refreshLock.tryLock()) {
+            logger.warn("The previous refresh is still running, skipping this one.");
+            return false;
+        }
+
+        try {
+            logger.info("Transaction started.");
+
+            return CATALOG_PIPELINE_ENABLED ? refreshWithPipeline() : refreshFromFiles();
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
 
-        this.bankEmitmentRepository.truncateTable();
+    /**
+     * Refreshes the catalog by downloading and extracting the archive to disk
+     * and parsing the extracted JSON file.
+     *
+     * @return true if the refresh completed.
+     */
+    private boolean refreshFromFiles() {
+        CatalogDownload download = this.metrics.time(Phase.DOWNLOAD, () -> downloadCatalog(this.settings));
+        this.metrics.downloaded(download);
+        if (isSkipped(download))
+            return download.isUnchanged();
 
-        logger.info("Table successfully truncated.");
+        if (!this.metrics.time(Phase.UNZIP, () -> unzipCatalog(this.settings))) {
+            logger.error("Catalog archive could not be extracted, keeping the current generation.");
+            this.metrics.refreshed(Outcome.FAILED);
+            return false;
+        }
 
-        this.bankEmitmentRepository.saveAll(bankEmitments());
+        String catalogFile = this.settings.binInfoJsonPath();
+        return loadGeneration(timeParsing(PARALLEL_PARSE
+                                                  ? consumer -> jsonFileParallelParser(catalogFile, PARSE_PARALLELISM, PARSE_CHUNK_SIZE, consumer)
+                                                  : consumer -> jsonFileStreamParser(catalogFile, PARSE_CHUNK_SIZE, consumer)),
+                              () -> download);
+    }
+
+    /**
+     * Wraps a record source so that the time spent parsing is recorded, excluding
+     * the time the consumer spends on each chunk.
+     *
+     * @param source The record source.
+     * @return The timed record source.
+     */
+    private ToIntFunction<Consumer<List<BankEmitment>>> timeParsing(ToIntFunction<Consumer<List<BankEmitment>>> source) {
+        return consumer -> {
+            long[] consumerNanos = new long[1];
+            long started = System.nanoTime();
+            int parsed = source.applyAsInt(chunk -> {
+                long chunkStarted = System.nanoTime();
+                consumer.accept(chunk);
+                consumerNanos[0] += System.nanoTime() - chunkStarted;
+            });
+            this.metrics.record(Phase.PARSE, System.nanoTime() - started - consumerNanos[0]);
+            return parsed;
+        };
+    }
+
+    /**
+     * Refreshes the catalog through the disk-free {@link CatalogPipeline}. Because the
+     * archive hash is only known once the whole body has been streamed, an unchanged
+     * catalog is detected after parsing and simply not applied.
+     * <p>
+     * The stages overlap, so the download timer records the time spent reading the
+     * body and the parse timer includes inflating the archive; no unzip phase is recorded.
+     *
+     * @return true if the refresh completed.
+     */
+    private boolean refreshWithPipeline() {
+        CatalogState appliedState = CatalogState.load(this.settings.statePath());
+
+        try (CatalogPipeline.Run run = this.catalogPipeline.open(this.settings.onlineCatalogUri(), appliedState)) {
+            if (isSkipped(run.download()))
+                return run.download().isUnchanged();
+
+            return loadGeneration(sink -> {
+                int records = run.stream(sink);
+                this.metrics.record(Phase.DOWNLOAD, run.downloadNanos());
+                this.metrics.record(Phase.PARSE, run.parseNanos());
+                this.metrics.bytesDownloaded(run.download().bytes());
+                return records;
+            }, run::download);
+        } catch (IOException | URISyntaxException e) {
+            logger.error("Catalog download failed, keeping the current generation! {}", e.getMessage());
+            this.metrics.refreshed(Outcome.FAILED);
+            return false;
+        }
+    }
+
+    /**
+     * Loads and applies a new generation from the given record source, either as a
+     * delta against the loaded generation or through the staging table.
+     *
+     * @param source Feeds the parsed records to the given consumer in chunks
+     *               and returns the number of records, or -1 on failure.
+     * @param download Supplies the outcome of the download once the source has been consumed.
+     * @return true if the new generation was applied or turned out to be unchanged.
+     */
+    private boolean loadGeneration(ToIntFunction<Consumer<List<BankEmitment>>> source, Supplier<CatalogDownload> download) {
+        if (this.settings.deltaRefresh()) {
+            BinRangeIndex next = parseIndex(source);
+            if (next == null)
+                return false;
+            if (isSkipped(download.get()))
+                return download.get().isUnchanged();
+            if (tryApplyDelta(next, download.get().state()))
+                return true;
+
+            source = consumer -> feedIndex(next, consumer);
+        }
+
+        BinRangeIndex staged = stageGeneration(source);
+        if (staged == null)
+            return false;
+        if (isSkipped(download.get()))
+            return download.get().isUnchanged();
+
+        applyGeneration(staged, download.get().state());
+        return true;
+    }
+
+    /**
+     * Checks whether the refresh has to stop after the download.
+     *
+     * @param download The outcome of the download.
+     * @return true if the download failed or the catalog has not changed.
+     */
+    private boolean isSkipped(CatalogDownload download) {
+        if (download.status() == CatalogDownload.Status.FAILED) {
+            logger.error("Catalog download failed, keeping the current generation.");
+            this.metrics.refreshed(Outcome.FAILED);
+            return true;
+        }
+        if (download.isUnchanged()) {
+            // The content matches the applied catalog, but the server may have sent new
+            // validators with it. Keeping them lets the next refresh end with a 304.
+            if (download.status() == CatalogDownload.Status.UNCHANGED)
+                saveCatalogState(download.state());
+            this.metrics.refreshed(Outcome.UNCHANGED);
+            long skipped = this.skippedRefreshes.incrementAndGet();
+            logger.info("Catalog unchanged ({}), refresh skipped. Skipped refreshes so far: {}", download.status(), skipped);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parses the new generation into an index without touching the database.
+     *
+     * @param source The record source.
+     * @return The new index, or null if parsing failed or the catalog is empty.
+     */
+    private BinRangeIndex parseIndex(ToIntFunction<Consumer<List<BankEmitment>>> source) {
+        BinRangeIndex.Builder builder = BinRangeIndex.builder();
+        int parsed = source.applyAsInt(chunk -> chunk.forEach(builder::add));
+        if (parsed <= 0) {
+            logger.error("Parsing failed or the catalog is empty, keeping the current generation.");
+            this.metrics.refreshed(Outcome.FAILED);
+            return null;
+        }
+
+        logger.info("Parsed {} ranges, {} rejected.", builder.size(), builder.rejected());
+        return builder.build();
+    }
+
+    /**
+     * Applies the new generation as a delta against the rows stored in the table.
+     * <p>
+     * The delta is computed against the table itself rather than the published index,
+     * which may be a snapshot mapped before the table last changed.
+     *
+     * @param next The new generation.
+     * @param state The validators of the archive the generation was parsed from.
+     * @return true if the delta was applied, false if a full load is required.
+     */
+    private boolean tryApplyDelta(BinRangeIndex next, CatalogState state) {
+        BinRangeIndex.Builder stored = this.bankEmitmentJdbcRepository.loadIndexForUpdate();
+        if (stored.size() == 0) {
+            logger.info("No generation stored, falling back to a full load.");
+            return false;
+        }
+
+        BinRangeIndex previous = stored.build();
+        CatalogDelta delta = CatalogDelta.between(previous, next);
+        this.lastDelta.set(delta);
+
+        logger.info("Catalog delta: {} inserted, {} updated, {} deleted.",
+                delta.inserted().length, delta.updated().length, delta.deleted().length);
+
+        if (delta.total() > next.size() * CATALOG_DELTA_MAX_RATIO) {
+            logger.info("Delta exceeds {} of the catalog, falling back to a full load.", CATALOG_DELTA_MAX_RATIO);
+            return false;
+        }
+
+        // Rows without ranges are deleted along with the delta, as a full load of the index would drop them.
+        boolean changed = delta.total() > 0 || stored.rejected() > 0;
+        if (changed) {
+            try {
+                this.metrics.time(Phase.DELTA, () -> this.bankEmitmentJdbcRepository.applyDelta(delta, BankEmitmentChecksum.of(next)));
+            } catch (RuntimeException e) {
+                logger.error("Delta could not be applied, falling back to a full load! {}", e.getMessage());
+                return false;
+            }
+        }
+
+        publishIndex(next);
+        saveCatalogState(state);
+        if (changed)
+            this.coordinator.generationLoaded();
+        this.metrics.rowsLoaded(delta.total());
+        this.metrics.refreshed(Outcome.DELTA);
 
         logger.info("Transaction ended.");
+        return true;
+    }
+
+    /**
+     * Feeds the rows of an index to a consumer in chunks of parsed records.
+     *
+     * @param index The index to read.
+     * @param consumer The consumer receiving each chunk.
+     * @return The number of rows fed.
+     */
+    private static int feedIndex(BinRangeLookup index, Consumer<List<BankEmitment>> consumer) {
+        List<BankEmitment> chunk = new ArrayList<>(PARSE_CHUNK_SIZE);
+        for (int i = 0; i < index.size(); i++) {
+            chunk.add(BankEmitment.builder()
+                    .bin(index.bin(i))
+                    .minRange(index.minRange(i))
+                    .maxRange(index.maxRange(i))
+                    .alphaCode(index.alphaCode(i))
+                    .bankName(index.bankName(i))
+                    .build());
+
+            if (chunk.size() == PARSE_CHUNK_SIZE) {
+                consumer.accept(chunk);
+                chunk = new ArrayList<>(PARSE_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty())
+            consumer.accept(chunk);
+
+        return index.size();
+    }
+
+    /**
+     * Loads a new generation into the staging table and validates it.
+     *
+     * @param source Feeds the parsed records to the given consumer in chunks
+     *               and returns the number of records, or -1 on failure.
+     * @return The index of the staged records, or null if the generation must not be applied.
+     */
+    private BinRangeIndex stageGeneration(ToIntFunction<Consumer<List<BankEmitment>>> source) {
+        this.bankEmitmentJdbcRepository.prepareStagingTable();
+
+        logger.info("Staging table prepared.");
+
+        BinRangeIndex.Builder builder = BinRangeIndex.builder();
+        BankEmitmentChecksum parsedChecksum = new BankEmitmentChecksum();
+        long[] loadNanos = new long[1];
+        try (BankEmitmentBulkLoader.Session session = this.bankEmitmentBulkLoader.open(STAGING_TABLE)) {
+            int parsed = source.applyAsInt(chunk -> {
+                long started = System.nanoTime();
+                session.accept(chunk);
+                loadNanos[0] += System.nanoTime() - started;
+                chunk.forEach(emitment -> {
+                    builder.add(emitment);
+                    parsedChecksum.add(emitment);
+                });
+            });
+            if (parsed <= 0) {
+                logger.error("Parsing failed or the catalog is empty, keeping the current generation.");
+                this.metrics.refreshed(Outcome.FAILED);
+                return null;
+            }
+
+            long started = System.nanoTime();
+            BankEmitmentBulkLoader.Result result = session.finish();
+            loadNanos[0] += System.nanoTime() - started;
+            this.metrics.record(Phase.LOAD, loadNanos[0]);
+            this.metrics.rowsLoaded(result.rows());
+        } catch (SQLException | RuntimeException e) {
+            // A failed writer surfaces here through the consumer, so keep its stack trace.
+            logger.error("Bulk load failed, keeping the current generation!", e);
+            this.metrics.refreshed(Outcome.FAILED);
+            return null;
+        }
+
+        BankEmitmentChecksum stagedChecksum = this.bankEmitmentJdbcRepository.checksum(STAGING_TABLE);
+        if (!parsedChecksum.equals(stagedChecksum)) {
+            logger.error("Staging table does not match the parsed catalog, keeping the current generation. Parsed: {}, staged: {}", parsedChecksum, stagedChecksum);
+            this.metrics.refreshed(Outcome.FAILED);
+            return null;
+        }
+
+        logger.info("Staged {} ranges, {} rejected from the index.", builder.size(), builder.rejected());
+        return builder.build();
+    }
+
+    /**
+     * Swaps the validated staging table in, publishes the new index and
+     * records the validators of the applied archive.
+     *
+     * @param index The index of the staged records.
+     * @param state The validators of the applied archive.
+     */
+    private void applyGeneration(BinRangeIndex index, CatalogState state) {
+        this.metrics.time(Phase.SWAP, () -> this.bankEmitmentJdbcRepository.swapStagingTable());
+
+        logger.info("Staging table swapped in.");
+
+        publishIndex(index);
+        saveCatalogState(state);
+        this.coordinator.generationLoaded();
+        this.metrics.refreshed(Outcome.FULL);
+
+        logger.info("Transaction ended.");
+    }
+
+    /**
+     * @return The delta computed by the last incremental refresh, or null if none has run yet.
+     */
+    public CatalogDelta getLastDelta() {
+        return this.lastDelta.get();
+    }
+
+    /**
+     * @return The number of scheduled refreshes skipped because the catalog had not changed.
+     */
+    public long getSkippedRefreshes() {
+        return this.skippedRefreshes.get();
+    }
+
+    /**
+     * Records the validators of the applied archive, so the next refresh can be skipped
+     * if the catalog does not change. A failure here only costs one redundant reload.
+     *
+     * @param state The validators of the archive that was just applied, or of a download
+     *              whose content is identical to it.
+     */
+    private void saveCatalogState(CatalogState state) {
+        try {
+            state.save(this.settings.statePath());
+        } catch (IOException e) {
+            logger.warn("Failed to save catalog state: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Swaps a new in-memory index in.
+     * <p>
+     * When the binary snapshot can be written, the mapped snapshot is published
+     * instead of the heap index so the catalog lives off-heap.
+     *
+     * @param index The index of the records that were just written to the database.
+     */
+    private void publishIndex(BinRangeIndex index) {
+        this.indexHolder.publish(this.metrics.time(Phase.PUBLISH, () -> writeSnapshot(index)));
+
+        logger.info("Index published: {} ranges.", index.size());
+    }
+
+    /**
+     * Persists the index as a binary snapshot and maps it back.
+     *
+     * @param index The freshly built index.
+     * @return The mapped snapshot, or the given index if the snapshot could not be written.
+     */
+    private BinRangeLookup writeSnapshot(BinRangeIndex index) {
+        Path snapshotPath = this.settings.snapshotPath();
+        try {
+            MappedBinSnapshot.write(index, snapshotPath);
+            return MappedBinSnapshot.open(snapshotPath);
+        } catch (IOException e) {
+            logger.warn("Failed to write snapshot {}: {}", snapshotPath, e.getMessage());
+            return index;
+        }
     }
 
 }
@@ -0,0 +1,123 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.services;
+
+import com.example.BankEmitentService.dto.BankRangeDTO;
+import com.example.BankEmitentService.dto.BankSearchPageDTO;
+import com.example.BankEmitentService.index.BankSearchIndex;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import static com.example.BankEmitentService.constants.Constants.SEARCH_ENABLED;
+import static com.example.BankEmitentService.constants.Constants.SEARCH_MAX_PAGE_SIZE;
+
+/**
+ * This service class answers reverse queries: the card ranges of a bank or a
+ * country, and bank name suggestions while typing.
+ * <p>
+ * Queries are answered from the {@link BankSearchIndex} published with each
+ * catalog by {@link BankEmitmentDataUpdater}, never from the database, so they
+ * do not depend on {@code lookup.engine}. With {@code search.enabled} off the
+ * index is not built and every query fails with {@link SearchDisabledException}.
+ */
+@Service
+public class BankSearchService {
+
+    private final BinRangeIndexHolder indexHolder;
+
+    /**
+     * Constructs a BankSearchService.
+     *
+     * @param indexHolder The holder of the published catalog and its search index.
+     */
+    @Autowired
+    BankSearchService(BinRangeIndexHolder indexHolder) {
+        this.indexHolder = indexHolder;
+    }
+
+    /**
+     * Finds the card ranges whose bank name or alpha code matches every word of the query.
+     * Words match as prefixes, case and accents are ignored, and results are ordered by
+     * bank name, then alpha code, then range.
+     *
+     * @param query The query, such as a bank name, part of it, or an alpha code.
+     * @param page The zero-based page number.
+     * @param size The page size, at most {@code search.max.page.size}.
+     * @return The requested page of results.
+     * @throws IllegalArgumentException if the query has no letters or digits, or the page is out of bounds.
+     * @throws CatalogNotLoadedException if no catalog has been loaded yet.
+     * @throws SearchDisabledException if {@code search.enabled} is off.
+     */
+    public BankSearchPageDTO search(String query, int page, int size) {
+        if (page < 0)
+            throw new IllegalArgumentException("Page must not be negative.");
+        checkLimit(size, "Page size");
+        if ((long) page * size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Page is out of range.");
+
+        BankSearchIndex search = currentSearchIndex();
+        BankSearchIndex.Page found = search.search(query, page * size, size);
+
+        BinRangeLookup index = search.index();
+        List<BankRangeDTO> results = new ArrayList<>(found.rows().length);
+        for (int row : found.rows()) {
+            results.add(BankRangeDTO.builder()
+                    .bin(index.bin(row))
+                    .minRange(Long.toString(index.minRange(row)))
+                    .maxRange(Long.toString(index.maxRange(row)))
+                    .alphaCode(index.alphaCode(row))
+                    .bankName(index.bankName(row))
+                    .build());
+        }
+
+        return BankSearchPageDTO.builder()
+                .query(query)
+                .page(page)
+                .size(size)
+                .total(found.total())
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Suggests bank names for a partially typed query, banks with more ranges first.
+     *
+     * @param query The text typed so far.
+     * @param limit The maximum number of suggestions, at most {@code search.max.page.size}.
+     * @return The suggested bank names.
+     * @throws IllegalArgumentException if the query has no letters or digits, or the limit is out of bounds.
+     * @throws CatalogNotLoadedException if no catalog has been loaded yet.
+     * @throws SearchDisabledException if {@code search.enabled} is off.
+     */
+    public List<String> suggest(String query, int limit) {
+        checkLimit(limit, "Limit");
+        return currentSearchIndex().suggest(query, limit);
+    }
+
+    private static void checkLimit(int limit, String name) {
+        if (limit < 1 || limit > SEARCH_MAX_PAGE_SIZE)
+            throw new IllegalArgumentException(STR."\{name} must be between 1 and \{SEARCH_MAX_PAGE_SIZE}.");
+    }
+
+    /**
+     * @return The search index of the published catalog.
+     * @throws CatalogNotLoadedException if no catalog has been loaded yet.
+     * @throws SearchDisabledException if {@code search.enabled} is off.
+     */
+    private BankSearchIndex currentSearchIndex() {
+        if (!SEARCH_ENABLED)
+            throw new SearchDisabledException("Bank search is disabled.");
+
+        BinRangeIndexHolder.Generation generation = indexHolder.currentGeneration();
+        if (generation == null)
+            throw new CatalogNotLoadedException("The catalog has not been loaded yet.");
+        return generation.search();
+    }
+}
@@ -6,48 +6,143 @@
 
 package com.example.BankEmitentService.services;
 
+import com.example.BankEmitentService.cache.BinResultCache;
 import com.example.BankEmitentService.dto.BankEmitmentDTO;
 import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.index.BinPresenceFilter;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.index.BinRangeLookup;
+import com.example.BankEmitentService.logging.LookupLogger;
+import com.example.BankEmitentService.metrics.LookupMetrics;
+import com.example.BankEmitentService.metrics.LookupMetrics.Outcome;
 import com.example.BankEmitentService.repositories.BankEmitmentRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.example.BankEmitentService.utils.CardNumberParser;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import static com.example.BankEmitentService.constants.Constants.CARD_LUHN_CHECK_ENABLED;
+import static com.example.BankEmitentService.constants.Constants.LOOKUP_DB_ACQUIRE_TIMEOUT_MS;
 
 /**
  * This service class is responsible for validating card numbers
  * by checking them against bank emitment data.
+ * <p>
+ * Lookups are answered from the in-memory {@link BinRangeLookup} published by
+ * {@link BankEmitmentDataUpdater}. The database is only queried while no index
+ * has been published yet, or always with {@code lookup.engine=database} for
+ * deployments that keep the database as the source of truth. Database lookups
+ * go through the {@link BinResultCache} unless it is disabled.
+ * <p>
+ * Either way, card numbers are first checked against the {@link BinPresenceFilter}
+ * of the published catalog, so unknown BINs are answered without a search, a
+ * transaction or a connection checkout.
  */
 @Service
 public class CardValidationService {
 
-    private static final Logger logger = LoggerFactory.getLogger(CardValidationService.class);
+    /**
+     * Marker for a card number that could not be normalized.
+     */
+    public static final long INVALID_CARD = CardNumberParser.INVALID;
+
+    private static final int MAX_SORTABLE_BATCH = 1 << 22;
+    private static final long POSITION_MASK = MAX_SORTABLE_BATCH - 1;
+
     private final BankEmitmentRepository bankEmitmentRepository;
+    private final BinRangeIndexHolder indexHolder;
+    private final TransactionTemplate databaseLookupTransaction;
+    private final Semaphore databaseLookupPermits;
+    private final LookupMetrics metrics;
+    private final LookupLogger lookupLogger;
+    private final BinResultCache binResultCache;
+    private final boolean databaseEngine;
 
     /**
      * Constructs a CardValidationService with the specified BankEmitmentRepository.
      *
      * @param bankEmitmentRepository The repository used to access bank emitment data.
+     * @param indexHolder The holder of the published in-memory index.
+     * @param transactionManager The transaction manager used for read-only database fallback lookups.
+     * @param lookupDataSource The lookup pool, whose size limits concurrent database lookups.
+     * @param metrics The lookup latency timers.
+     * @param lookupLogger The sampled lookup log.
+     * @param binResultCache The cache in front of database lookups.
+     * @param lookupEngine The {@code lookup.engine} setting; {@code database} sends every lookup to the database.
      */
     @Autowired
-    CardValidationService(BankEmitmentRepository bankEmitmentRepository) {
+    CardValidationService(BankEmitmentRepository bankEmitmentRepository,
+                          BinRangeIndexHolder indexHolder,
+                          PlatformTransactionManager transactionManager,
+                          @Qualifier("lookupDataSource") HikariDataSource lookupDataSource,
+                          LookupMetrics metrics,
+                          LookupLogger lookupLogger,
+                          BinResultCache binResultCache,
+                          @Value("${lookup.engine}") String lookupEngine) {
+        this(bankEmitmentRepository, indexHolder, transactionManager, lookupDataSource.getMaximumPoolSize(),
+             metrics, lookupLogger, binResultCache, "database".equalsIgnoreCase(lookupEngine));
+    }
+
+    /**
+     * Constructs a CardValidationService with an explicit limit of concurrent database lookups.
+     *
+     * @param bankEmitmentRepository The repository used to access bank emitment data.
+     * @param indexHolder The holder of the published in-memory index.
+     * @param transactionManager The transaction manager used for read-only database fallback lookups.
+     * @param lookupPoolSize The maximum number of concurrent database lookups.
+     * @param metrics The lookup latency timers.
+     * @param lookupLogger The sampled lookup log.
+     * @param binResultCache The cache in front of database lookups.
+     * @param databaseEngine Whether every lookup goes to the database, even once an index is published.
+     */
+    CardValidationService(BankEmitmentRepository bankEmitmentRepository,
+                          BinRangeIndexHolder indexHolder,
+                          PlatformTransactionManager transactionManager,
+                          int lookupPoolSize,
+                          LookupMetrics metrics,
+                          LookupLogger lookupLogger,
+                          BinResultCache binResultCache,
+                          boolean databaseEngine) {
         this.bankEmitmentRepository = bankEmitmentRepository;
+        this.databaseLookupPermits = new Semaphore(lookupPoolSize);
+        this.indexHolder = indexHolder;
+        this.metrics = metrics;
+        this.lookupLogger = lookupLogger;
+        this.binResultCache = binResultCache;
+        this.databaseEngine = databaseEngine;
+        this.databaseLookupTransaction = new TransactionTemplate(transactionManager);
+        this.databaseLookupTransaction.setReadOnly(true);
+        this.databaseLookupTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
     }
 
-        /**
+    /**
      * Checks the card range for a given card number.
      * <p>
-     * Extracts the BIN from the card number, normalizes the
-     * card number by replacing certain characters, and checks if the
+     * Parses the card number in a single pass with {@link CardNumberParser},
+     * which yields the normalized 19-digit number and its BIN, and checks if the
      * card number falls within the defined range for the corresponding BIN.
+     * Malformed numbers, and numbers failing the Luhn check when
+     * {@code card.luhn.check.enabled} is set, are rejected before any lookup.
+     * <p>
+     * The in-memory index is used whenever one has been published. Before that,
+     * the database is queried within a read-only READ COMMITTED transaction,
+     * which takes its connection from the lookup pool and so never competes
+     * with the catalog refresh for writer connections. The lookup is a single
+     * statement, so it needs no stronger isolation.
      * <p>
-     *  * Operates within a transaction with SERIALIZABLE isolation
-     *  * to ensure data consistency and prevent phantom reads during the
-     *  * validation process.
+     * The outcome is passed to {@link LookupLogger}, which logs a sample of
+     * lookups with the card number masked.
      *
      * @param cardNumber The card number to validate.
      *
@@ -56,95 +151,280 @@ public class CardValidationService {
      *
      * @throws IllegalArgumentException if the card number is null, empty,
      *         or not in a valid format.
+     * @throws LookupCapacityExceededException if the database has to be queried and
+     *         no connection becomes available in time.
      */
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public Optional<BankEmitmentDTO> checkCardRange(String cardNumber) {
-        validateCardNumber(cardNumber);
+    public Optional<BankEmitmentDTO> checkCardRange(CharSequence cardNumber) {
+        long started = System.nanoTime();
+        if (cardNumber == null || cardNumber.isEmpty()) {
+            metrics.record(Outcome.INVALID, started);
+            lookupLogger.log(Outcome.INVALID, cardNumber, -1);
+            throw new IllegalArgumentException("Card number cannot be null or empty.");
+        }
 
-        int bin = extractBin(cardNumber);
-        long cardAsLong = normalizeCardNumber(cardNumber);
+        long cardAsLong = CardNumberParser.normalize(cardNumber, CARD_LUHN_CHECK_ENABLED);
+        if (cardAsLong == INVALID_CARD) {
+            metrics.record(Outcome.INVALID, started);
+            lookupLogger.log(Outcome.INVALID, cardNumber, -1);
+            throw new IllegalArgumentException("Invalid card number format.");
+        }
+        int bin = CardNumberParser.bin(cardAsLong);
 
-        List<BankEmitment> emitments = bankEmitmentRepository.findByBin(bin);
-        if (emitments.isEmpty()) {
-            return Optional.empty();
+        Optional<BankEmitmentDTO> result = find(indexHolder.currentGeneration(), cardAsLong);
+
+        Outcome outcome = result.isPresent() ? Outcome.HIT : Outcome.MISS;
+        metrics.record(outcome, started);
+        lookupLogger.log(outcome, cardNumber, bin);
+        return result;
+    }
+
+    /**
+     * Looks up a card number prefix, such as a BIN, in the in-memory index.
+     * <p>
+     * The prefix is padded with zeros, so it resolves to the range holding the
+     * lowest card number that starts with it. The result is returned with the
+     * generation it was read from, which lets callers derive HTTP validators
+     * from the exact catalog that produced the answer. Before an index has been
+     * published the database is queried and no generation is returned.
+     *
+     * @param prefix The prefix of 6 to 19 digits.
+     * @return The lookup result and the catalog generation it belongs to.
+     * @throws IllegalArgumentException if the prefix is not 6 to 19 digits.
+     * @throws LookupCapacityExceededException if the database has to be queried and
+     *         no connection becomes available in time.
+     */
+    public PrefixResult checkPrefix(String prefix) {
+        long started = System.nanoTime();
+        long cardAsLong = CardNumberParser.normalizePrefix(prefix);
+        if (cardAsLong == INVALID_CARD) {
+            metrics.record(Outcome.INVALID, started);
+            lookupLogger.log(Outcome.INVALID, prefix, -1);
+            throw new IllegalArgumentException("Invalid card number prefix.");
         }
+        int bin = CardNumberParser.bin(cardAsLong);
 
-        BankEmitment emitment = emitments.getFirst();
-        return validateCardRange(cardAsLong, emitment);
+        BinRangeIndexHolder.Generation current = indexHolder.currentGeneration();
+        BinRangeIndexHolder.Generation generation = databaseEngine ? null : current;
+        Optional<BankEmitmentDTO> result = find(current, cardAsLong);
+
+        Outcome outcome = result.isPresent() ? Outcome.HIT : Outcome.MISS;
+        metrics.record(outcome, started);
+        lookupLogger.log(outcome, prefix, bin);
+        return new PrefixResult(result, generation);
     }
 
     /**
-     * Extracts the BIN from the card number.
+     * The result of a prefix lookup.
      *
-     * @param cardNumber The card number to extract the BIN from.
-     * @return The extracted BIN.
+     * @param result The matching bank emitment, or an empty Optional.
+     * @param generation The catalog generation the result was read from, or null if it came from the database.
      */
-    private int extractBin(String cardNumber) {
-        return Integer.parseInt(cardNumber.substring(0, 6));
+    public record PrefixResult(Optional<BankEmitmentDTO> result, BinRangeIndexHolder.Generation generation) {
     }
 
     /**
-     * Normalizes the card number by replacing certain characters and ensuring it is a valid length.
+     * Normalizes a card number for batch lookups without logging or throwing.
      *
      * @param cardNumber The card number to normalize.
-     * @return The normalized card number as a long.
+     * @return The normalized card number, or {@link #INVALID_CARD} if it is not a valid card number.
+     * @see CardNumberParser#normalize(CharSequence, boolean)
      */
-    private long normalizeCardNumber(String cardNumber) {
-        String fullCardNumber = cardNumber.replace("*", "0");
-        if (fullCardNumber.length() == 16) {
-            fullCardNumber = fullCardNumber.concat("000");
+    public long toNormalizedCardNumber(String cardNumber) {
+        return CardNumberParser.normalize(cardNumber, CARD_LUHN_CHECK_ENABLED);
+    }
 
-            logger.info(STR."Normalized card format: \{fullCardNumber}");
-        }
-        else if (fullCardNumber.length() <= 16) {
-            logger.error("The card number length must me at least 16 symbols!");
-            throw new IllegalArgumentException();
+    /**
+     * Resolves a batch of normalized card numbers and passes every result to the consumer.
+     * <p>
+     * Cards are resolved in ascending card-number order rather than input order, so
+     * consecutive lookups touch neighbouring parts of the index. Each result carries
+     * the position of the card in the input, and nothing is accumulated in memory.
+     *
+     * @param normalizedCards The normalized card numbers; {@link #INVALID_CARD} marks invalid input.
+     * @param count The number of cards in the array to resolve.
+     * @param consumer The consumer receiving each result.
+     * @throws IOException if the consumer fails to write a result.
+     * @throws IllegalArgumentException if the batch is larger than the sortable maximum.
+     */
+    public void checkCardRanges(long[] normalizedCards, int count, BatchResultConsumer consumer) throws IOException {
+        if (count > MAX_SORTABLE_BATCH)
+            throw new IllegalArgumentException(STR."Batch size must not exceed \{MAX_SORTABLE_BATCH}.");
+
+        long started = System.nanoTime();
+
+        // Sort by the card number with its low bits replaced by the input position. The
+        // dropped bits are far below BIN granularity, so the order stays index-friendly.
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            long card = normalizedCards[i] == INVALID_CARD ? 0 : normalizedCards[i];
+            order[i] = (card & ~POSITION_MASK) | i;
         }
+        Arrays.sort(order);
 
-        try {
-            return Long.parseLong(fullCardNumber);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid card number format.");
+        BinRangeIndexHolder.Generation generation = indexHolder.currentGeneration();
+        for (long key : order) {
+            int position = (int) (key & POSITION_MASK);
+            long card = normalizedCards[position];
+
+            if (card == INVALID_CARD) {
+                consumer.accept(position, card, null);
+                continue;
+            }
+
+            Optional<BankEmitmentDTO> result = find(generation, card);
+            consumer.accept(position, card, result.orElse(null));
         }
+
+        metrics.recordBatch(count, started);
+    }
+
+    /**
+     * Receives the result of a single card in a batch lookup.
+     */
+    @FunctionalInterface
+    public interface BatchResultConsumer {
+
+        /**
+         * @param position The position of the card in the batch input.
+         * @param normalizedCard The normalized card number, or {@link #INVALID_CARD}.
+         * @param result The matching bank emitment, or null if the card is invalid or not found.
+         * @throws IOException if the result cannot be written.
+         */
+        void accept(int position, long normalizedCard, BankEmitmentDTO result) throws IOException;
     }
 
     /**
-     * Validates the provided card number.
+     * Tells whether lookups are currently answered from memory. Callers running on
+     * threads that must not block, such as network event loops, can use it to
+     * decide whether a lookup has to be handed off to another thread.
      *
-     * @param cardNumber The card number to validate.
-     * @throws IllegalArgumentException if the card number is null or empty.
+     * @return true if lookups do not touch the database.
      */
-    private void validateCardNumber(String cardNumber) {
-        if (cardNumber == null || cardNumber.isEmpty())
-            throw new IllegalArgumentException("Card number cannot be null or empty.");
-        else logger.info(STR."Card is present: \{cardNumber}");
+    public boolean servesFromMemory() {
+        return currentIndex() != null;
+    }
+
+    /**
+     * @return The index lookups are answered from, or null if they go to the database.
+     */
+    private BinRangeLookup currentIndex() {
+        return databaseEngine ? null : indexHolder.current();
+    }
+
+    /**
+     * Resolves the card number against the given generation, or against the database
+     * if no generation has been published or {@code lookup.engine=database} is set.
+     * Card numbers rejected by the presence filter of the generation are answered
+     * right away.
+     *
+     * @param generation The generation read for this lookup, or null if none has been published.
+     * @param cardAsLong The normalized card number as a long.
+     * @return An Optional containing a BankEmitmentDTO if a range matches, or an empty Optional.
+     */
+    private Optional<BankEmitmentDTO> find(BinRangeIndexHolder.Generation generation, long cardAsLong) {
+        if (generation == null)
+            return lookupInDatabase(CardNumberParser.bin(cardAsLong), cardAsLong);
+
+        BinPresenceFilter presence = generation.presence();
+        if (presence != null && !presence.mightContain(cardAsLong))
+            return Optional.empty();
+
+        return databaseEngine
+                ? lookupInDatabase(CardNumberParser.bin(cardAsLong), cardAsLong)
+                : findInIndex(generation.index(), cardAsLong);
     }
 
     /**
-     * Validates the card range against the emitment data.
+     * Resolves the card number against the in-memory index.
      *
+     * @param index The currently published index.
+     * @param cardAsLong The normalized card number as a long.
+     * @return An Optional containing a BankEmitmentDTO if a range matches, or an empty Optional.
+     */
+    private Optional<BankEmitmentDTO> findInIndex(BinRangeLookup index, long cardAsLong) {
+        return toDto(index, index.indexOf(cardAsLong));
+    }
+
+    /**
+     * Creates the DTO for an index row.
+     *
+     * @param index The index holding the row.
+     * @param position The row position, or a negative value if no row matched.
+     * @return An Optional containing the BankEmitmentDTO, or an empty Optional for a negative position.
+     */
+    private Optional<BankEmitmentDTO> toDto(BinRangeLookup index, int position) {
+        if (position < 0)
+            return Optional.empty();
+
+        return Optional.of(BankEmitmentDTO.builder()
+                .bin(index.bin(position))
+                .alphaCode(index.alphaCode(position))
+                .bankName(index.bankName(position))
+                .build());
+    }
+
+    /**
+     * Resolves the card number against the database.
+     * <p>
+     * With the {@link BinResultCache} enabled, the ranges of the BIN are read
+     * through the cache and loaded as a whole on a miss, so later cards of the
+     * BIN need no query. With the cache disabled, the card number is matched by
+     * a single probe of the composite (bin, min_range, max_range) index.
+     * <p>
+     * Concurrent database queries are limited to the size of the lookup connection
+     * pool. With virtual threads, request concurrency is no longer capped by the
+     * servlet thread pool, so without this limit a burst would queue inside the
+     * pool and fail with connection timeouts instead of being rejected quickly.
+     *
+     * @param bin The BIN extracted from the card number.
      * @param cardAsLong The normalized card number as a long.
-     * @param emitment The BankEmitment entity to validate against.
      * @return An Optional containing a BankEmitmentDTO if the card is valid, or an empty Optional.
+     * @throws LookupCapacityExceededException if no connection becomes available within {@code lookup.db.acquire.timeout.ms}.
      */
-    private Optional<BankEmitmentDTO> validateCardRange(long cardAsLong, BankEmitment emitment) {
-        boolean checkMinRange = cardAsLong >= Long.parseLong(emitment.getMinRange());
-        boolean checkMaxRange = cardAsLong <= Long.parseLong(emitment.getMaxRange());
+    private Optional<BankEmitmentDTO> lookupInDatabase(int bin, long cardAsLong) {
+        if (binResultCache.isEnabled())
+            return binResultCache.find(bin, cardAsLong, this::loadBinRanges);
 
-        if (checkMinRange && checkMaxRange) {
-            BankEmitmentDTO dto = BankEmitmentDTO.builder()
-                    .bin(emitment.getBin())
-                    .alphaCode(emitment.getAlphaCode())
-                    .bankName(emitment.getBankName())
-                    .build();
+        return queryDatabase(() -> bankEmitmentRepository.findMatchingRange(bin, cardAsLong))
+                .map(emitment -> BankEmitmentDTO.builder()
+                        .bin(emitment.getBin())
+                        .alphaCode(emitment.getAlphaCode())
+                        .bankName(emitment.getBankName())
+                        .build());
+    }
 
-            logger.info("Card range is valid.");
+    /**
+     * Loads every range of a BIN from the database.
+     *
+     * @param bin The BIN to load.
+     * @return The ranges of the BIN ordered by lower bound, empty if the BIN is unknown.
+     * @throws LookupCapacityExceededException if no connection becomes available within {@code lookup.db.acquire.timeout.ms}.
+     */
+    private List<BankEmitment> loadBinRanges(int bin) {
+        return queryDatabase(() -> bankEmitmentRepository.findAllByBin(bin));
+    }
 
-            return Optional.of(dto);
+    /**
+     * Runs a query in a read-only transaction once a lookup permit is available.
+     *
+     * @param query The repository call to run.
+     * @return The result of the query.
+     * @throws LookupCapacityExceededException if no connection becomes available within {@code lookup.db.acquire.timeout.ms}.
+     */
+    private <T> T queryDatabase(Supplier<T> query) {
+        try {
+            if (!databaseLookupPermits.tryAcquire(LOOKUP_DB_ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                throw new LookupCapacityExceededException("Database lookup capacity exhausted.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LookupCapacityExceededException("Interrupted while waiting for a database connection.", e);
         }
-        logger.info("Card range is not valid. Card not found");
 
-        return Optional.empty();
+        try {
+            return databaseLookupTransaction.execute(status -> query.get());
+        } finally {
+            databaseLookupPermits.release();
+        }
     }
 
 }
@@ -0,0 +1,21 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.services;
+
+/**
+ * Thrown when a query can only be answered from the in-memory catalog, and no
+ * catalog has been loaded yet.
+ */
+public class CatalogNotLoadedException extends RuntimeException {
+
+    /**
+     * @param message The detail message.
+     */
+    public CatalogNotLoadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.services;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.utils.CatalogDownload;
+import com.example.BankEmitentService.utils.CatalogState;
+import com.example.BankEmitentService.utils.IoThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import static com.example.BankEmitentService.constants.Constants.BIN_INFO_JSON;
+import static com.example.BankEmitentService.constants.Constants.PARSE_CHUNK_SIZE;
+import static com.example.BankEmitentService.utils.ParseUtils.jsonStreamParser;
+import static com.example.BankEmitentService.utils.ZipFileUtils.openConditionalConnection;
+import static com.example.BankEmitentService.utils.ZipFileUtils.sha256;
+
+/**
+ * Disk-free refresh pipeline: HTTP body, ZIP decompression, JSON parsing and loading
+ * run as separate stages connected by bounded queues.
+ * <p>
+ * The download stage copies the response body into a queue of byte buffers while
+ * hashing it. The parse stage reads those buffers through a {@link ZipInputStream},
+ * streams the catalog entry through the JSON parser and queues chunks of records.
+ * The caller's thread drains the chunks into the given sink. Nothing is written
+ * to disk, and the bounded queues keep memory flat while letting the network,
+ * the decompressor and the database work at the same time.
+ * <p>
+ * Unlike {@link com.example.BankEmitentService.utils.ZipFileUtils#downloadZipFile}, the
+ * request is neither retried nor resumed: records have already reached the sink
+ * when the body fails, so a failed run fails the refresh, and the next one starts over.
+ */
+@Component
+public class CatalogPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogPipeline.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFER_QUEUE_CAPACITY = 64;
+    private static final int CHUNK_QUEUE_CAPACITY = 8;
+    private static final byte[] END_OF_BYTES = new byte[0];
+    private static final List<BankEmitment> END_OF_CHUNKS = List.of();
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final IoThreads ioThreads;
+
+    /**
+     * Constructs a new instance of CatalogPipeline.
+     *
+     * @param ioThreads The builder of the download and parse stage threads.
+     */
+    @Autowired
+    public CatalogPipeline(IoThreads ioThreads) {
+        this.ioThreads = ioThreads;
+    }
+
+    /**
+     * Sends the conditional catalog request.
+     *
+     * @param fileURL The URL of the catalog archive.
+     * @param appliedState The validators of the last applied archive.
+     * @return A run that either reports the catalog as not modified or is ready to stream it.
+     * @throws IOException if the request fails or the server responds with neither 200 nor 304.
+     * @throws URISyntaxException if the URL is malformed.
+     */
+    public Run open(String fileURL, CatalogState appliedState) throws IOException, URISyntaxException {
+        HttpURLConnection httpConn = openConditionalConnection(fileURL, appliedState);
+        int responseCode = httpConn.getResponseCode();
+
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED || responseCode == HttpURLConnection.HTTP_OK)
+            return new Run(ioThreads, httpConn, appliedState, responseCode == HttpURLConnection.HTTP_NOT_MODIFIED);
+
+        httpConn.disconnect();
+        throw new IOException(STR."Access to file denied. The server responded with the code: \{responseCode}");
+    }
+
+    /**
+     * A single pass of the pipeline over one HTTP response.
+     */
+    public static final class Run implements AutoCloseable {
+
+        private final IoThreads ioThreads;
+        private final HttpURLConnection httpConn;
+        private final CatalogState appliedState;
+        private final boolean notModified;
+        private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(BUFFER_QUEUE_CAPACITY);
+        private final BlockingQueue<List<BankEmitment>> chunks = new ArrayBlockingQueue<>(CHUNK_QUEUE_CAPACITY);
+        private final MessageDigest digest = sha256();
+        private volatile Exception failure;
+        private volatile boolean cancelled;
+        private volatile long bytes;
+        private volatile int records;
+        private volatile long downloadNanos;
+        private volatile long parseNanos;
+        private String sha256;
+
+        private Run(IoThreads ioThreads, HttpURLConnection httpConn, CatalogState appliedState, boolean notModified) {
+            this.ioThreads = ioThreads;
+            this.httpConn = httpConn;
+            this.appliedState = appliedState;
+            this.notModified = notModified;
+        }
+
+        /**
+         * Returns the outcome of the download. Before {@link #stream(Consumer)} has
+         * completed, a modified catalog is reported as DOWNLOADED without a hash.
+         *
+         * @return The outcome of the download.
+         */
+        public CatalogDownload download() {
+            if (notModified)
+                return new CatalogDownload(CatalogDownload.Status.NOT_MODIFIED, appliedState, 0);
+
+            CatalogState state = new CatalogState(httpConn.getHeaderField("ETag"), httpConn.getHeaderField("Last-Modified"), sha256);
+            CatalogDownload.Status status = sha256 != null && sha256.equals(appliedState.sha256())
+                    ? CatalogDownload.Status.UNCHANGED
+                    : CatalogDownload.Status.DOWNLOADED;
+            return new CatalogDownload(status, state, bytes);
+        }
+
+        /**
+         * Streams the catalog through all stages and passes the parsed records to the sink
+         * in chunks on the calling thread.
+         *
+         * @param sink The consumer receiving each chunk of parsed records.
+         * @return The number of records parsed, or -1 if any stage failed.
+         */
+        public int stream(Consumer<List<BankEmitment>> sink) {
+            if (notModified)
+                return 0;
+
+            Thread downloadStage = ioThreads.named("catalog-download").start(this::runDownloadStage);
+            Thread parseStage = ioThreads.named("catalog-parse").start(this::runParseStage);
+
+            long loadNanos = 0;
+            try {
+                List<BankEmitment> chunk;
+                while ((chunk = take(chunks)) != END_OF_CHUNKS) {
+                    long started = System.nanoTime();
+                    sink.accept(chunk);
+                    loadNanos += System.nanoTime() - started;
+                }
+            } catch (InterruptedException | RuntimeException e) {
+                fail(e);
+            } finally {
+                join(downloadStage);
+                join(parseStage);
+            }
+
+            logger.info("Pipeline stages: download {} ms ({} bytes), unzip+parse {} ms ({} records), load {} ms.",
+                    downloadNanos / 1_000_000, bytes, parseNanos / 1_000_000, records, loadNanos / 1_000_000);
+
+            if (failure != null) {
+                logger.error("Pipeline failed! {}", failure.getMessage());
+                return -1;
+            }
+
+            sha256 = HexFormat.of().formatHex(digest.digest());
+            return records;
+        }
+
+        /**
+         * @return The time the download stage spent reading the response body, in nanoseconds.
+         */
+        public long downloadNanos() {
+            return downloadNanos;
+        }
+
+        /**
+         * @return The time the parse stage spent inflating and parsing the catalog, in nanoseconds.
+         */
+        public long parseNanos() {
+            return parseNanos;
+        }
+
+        @Override
+        public void close() {
+            httpConn.disconnect();
+        }
+
+        private void runDownloadStage() {
+            long started = System.nanoTime();
+            try (InputStream body = new DigestInputStream(httpConn.getInputStream(), digest)) {
+                long total = 0;
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = body.readNBytes(buffer, 0, BUFFER_SIZE)) > 0) {
+                    put(buffers, read == BUFFER_SIZE ? buffer : Arrays.copyOf(buffer, read));
+                    buffer = new byte[BUFFER_SIZE];
+                    total += read;
+                }
+                bytes = total;
+                put(buffers, END_OF_BYTES);
+            } catch (IOException | InterruptedException | CancellationException e) {
+                fail(e);
+            } finally {
+                downloadNanos = System.nanoTime() - started;
+            }
+        }
+
+        private void runParseStage() {
+            long started = System.nanoTime();
+            QueueInputStream body = new QueueInputStream();
+            try (ZipInputStream zis = new ZipInputStream(body)) {
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) {
+                    if (!entry.isDirectory() && entry.getName().endsWith(BIN_INFO_JSON)) {
+                        Reader reader = new InputStreamReader(zis, StandardCharsets.UTF_8);
+                        records = jsonStreamParser(reader, PARSE_CHUNK_SIZE, chunk -> put(chunks, chunk));
+                        break;
+                    }
+                }
+                if (entry == null)
+                    throw new IOException(STR."The archive does not contain \{BIN_INFO_JSON}");
+
+                // Drain the rest of the response body, past the catalog entry and whatever follows it,
+                // so the download stage is never blocked on a full queue and hashes the whole archive.
+                body.transferTo(OutputStream.nullOutputStream());
+                put(chunks, END_OF_CHUNKS);
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            } finally {
+                parseNanos = System.nanoTime() - started;
+            }
+        }
+
+        /**
+         * Records the first failure and makes every stage stop at its next queue operation.
+         */
+        private void fail(Exception e) {
+            if (failure == null)
+                failure = e;
+            cancelled = true;
+        }
+
+        /**
+         * Puts an element into a stage queue, giving up once the pipeline is cancelled.
+         */
+        private <T> void put(BlockingQueue<T> queue, T element) {
+            try {
+                while (!queue.offer(element, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (cancelled)
+                        throw new CancellationException("Catalog pipeline cancelled.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while queuing catalog data.");
+            }
+        }
+
+        /**
+         * Takes an element from a stage queue, giving up once the pipeline is cancelled.
+         */
+        private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+            T element;
+            while ((element = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (cancelled)
+                    throw new CancellationException("Catalog pipeline cancelled.");
+            }
+            return element;
+        }
+
+        private static void join(Thread thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Presents the queued response buffers as a single input stream.
+         */
+        private final class QueueInputStream extends InputStream {
+
+            private byte[] current = new byte[0];
+            private int position;
+            private boolean finished;
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] target, int offset, int length) throws IOException {
+                if (length == 0)
+                    return 0;
+                if (position == current.length && !nextBuffer())
+                    return -1;
+
+                int count = Math.min(length, current.length - position);
+                System.arraycopy(current, position, target, offset, count);
+                position += count;
+                return count;
+            }
+
+            private boolean nextBuffer() throws IOException {
+                if (finished)
+                    return false;
+                try {
+                    current = take(buffers);
+                    position = 0;
+                } catch (InterruptedException | CancellationException e) {
+                    throw new IOException("Catalog download did not complete.", e);
+                }
+
+                if (current == END_OF_BYTES) {
+                    finished = true;
+                    return false;
+                }
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.services;
+
+/**
+ * Thrown when a database lookup cannot get a connection of the lookup pool within
+ * {@code lookup.db.acquire.timeout.ms}. The request may succeed when retried later.
+ */
+public class LookupCapacityExceededException extends RuntimeException {
+
+    /**
+     * @param message The detail message.
+     */
+    public LookupCapacityExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * @param message The detail message.
+     * @param cause The cause of the failure.
+     */
+    public LookupCapacityExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
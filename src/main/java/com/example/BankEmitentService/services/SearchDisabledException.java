@@ -0,0 +1,21 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.services;
+
+/**
+ * Thrown when a bank search is made on an instance running with {@code search.enabled} off,
+ * which does not build the search index.
+ */
+public class SearchDisabledException extends RuntimeException {
+
+    /**
+     * @param message The detail message.
+     */
+    public SearchDisabledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.utils;
+
+/**
+ * Single-pass parser turning a card number into the normalized 19-digit form
+ * used by the catalog ranges.
+ * <p>
+ * The input is scanned once, character by character, without creating any
+ * intermediate strings. Spaces and dashes are skipped, masked digits
+ * ({@code *}) count as zeros, and numbers of 12 to 19 digits are right-padded
+ * with zeros to 19 digits. The BIN is the first six digits of the result.
+ */
+public final class CardNumberParser {
+
+    /**
+     * Marker returned for input that is not a valid card number.
+     */
+    public static final long INVALID = -1L;
+
+    public static final int MIN_LENGTH = 12;
+    public static final int MIN_PREFIX_LENGTH = 6;
+    public static final int NORMALIZED_LENGTH = 19;
+
+    private static final int MASK_PREFIX = 6;
+    private static final int MASK_SUFFIX = 4;
+
+    private static final long BIN_DIVISOR = 10_000_000_000_000L;
+    private static final long[] PADDING = new long[NORMALIZED_LENGTH - MIN_PREFIX_LENGTH + 1];
+
+    static {
+        long factor = 1;
+        for (int i = PADDING.length - 1; i >= 0; i--) {
+            PADDING[i] = factor;
+            factor *= 10;
+        }
+    }
+
+    private CardNumberParser() {
+    }
+
+    /**
+     * Normalizes a card number without a Luhn check.
+     *
+     * @param cardNumber The card number to parse, may be null.
+     * @return The normalized 19-digit card number, or {@link #INVALID}.
+     */
+    public static long normalize(CharSequence cardNumber) {
+        return normalize(cardNumber, false);
+    }
+
+    /**
+     * Normalizes a card number.
+     * <p>
+     * The Luhn check digit is verified only for fully unmasked numbers, because
+     * masked digits are unknown.
+     *
+     * @param cardNumber The card number to parse, may be null.
+     * @param luhnCheck Whether to reject numbers failing the Luhn check.
+     * @return The normalized 19-digit card number, or {@link #INVALID}.
+     */
+    public static long normalize(CharSequence cardNumber, boolean luhnCheck) {
+        if (cardNumber == null)
+            return INVALID;
+
+        long value = 0;
+        int digits = 0;
+        boolean masked = false;
+        // Luhn sums for both parities; which one applies is only known once the length is.
+        int sumDoublingEven = 0;
+        int sumDoublingOdd = 0;
+
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c == '*') {
+                digit = 0;
+                masked = true;
+            } else if (c == ' ' || c == '-') {
+                continue;
+            } else {
+                return INVALID;
+            }
+
+            if (++digits > NORMALIZED_LENGTH || value > (Long.MAX_VALUE - digit) / 10)
+                return INVALID;
+            value = value * 10 + digit;
+
+            int doubled = digit < 5 ? digit * 2 : digit * 2 - 9;
+            if ((digits & 1) == 1) {
+                sumDoublingEven += digit;
+                sumDoublingOdd += doubled;
+            } else {
+                sumDoublingEven += doubled;
+                sumDoublingOdd += digit;
+            }
+        }
+
+        if (digits < MIN_LENGTH)
+            return INVALID;
+
+        if (luhnCheck && !masked) {
+            int sum = (digits & 1) == 0 ? sumDoublingOdd : sumDoublingEven;
+            if (sum % 10 != 0)
+                return INVALID;
+        }
+
+        return pad(value, digits);
+    }
+
+    /**
+     * Normalizes a card number prefix, such as a BIN, to the lowest card number
+     * starting with it. Only plain digits are accepted.
+     *
+     * @param prefix The prefix of 6 to 19 digits, may be null.
+     * @return The prefix right-padded with zeros to 19 digits, or {@link #INVALID}.
+     */
+    public static long normalizePrefix(CharSequence prefix) {
+        if (prefix == null || prefix.length() < MIN_PREFIX_LENGTH || prefix.length() > NORMALIZED_LENGTH)
+            return INVALID;
+
+        long value = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c < '0' || c > '9')
+                return INVALID;
+            int digit = c - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10)
+                return INVALID;
+            value = value * 10 + digit;
+        }
+        return pad(value, prefix.length());
+    }
+
+    /**
+     * Masks a card number for logging, keeping only the first six and last four
+     * digits. Separators and any other characters are dropped, so the result
+     * never contains more than ten digits of the input.
+     * <p>
+     * Masked digits ({@code *}) of the input keep their positions, as in
+     * {@link #normalize(CharSequence, boolean)}, and stay masked in the result.
+     *
+     * @param cardNumber The card number to mask, may be null.
+     * @return The masked card number, or {@code "<none>"} for null or empty input.
+     */
+    public static String mask(CharSequence cardNumber) {
+        if (cardNumber == null || cardNumber.isEmpty())
+            return "<none>";
+
+        int digits = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            if (isCardChar(cardNumber.charAt(i)))
+                digits++;
+        }
+
+        // Too short to hide anything behind the first six and last four digits.
+        if (digits <= MASK_PREFIX + MASK_SUFFIX)
+            return "*".repeat(digits);
+
+        StringBuilder masked = new StringBuilder(digits);
+        int position = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (!isCardChar(c))
+                continue;
+            masked.append(position < MASK_PREFIX || position >= digits - MASK_SUFFIX ? c : '*');
+            position++;
+        }
+        return masked.toString();
+    }
+
+    /**
+     * Extracts the BIN from a normalized card number.
+     *
+     * @param normalizedCard A card number returned by {@link #normalize(CharSequence, boolean)}.
+     * @return The first six digits of the card number.
+     */
+    public static int bin(long normalizedCard) {
+        return (int) (normalizedCard / BIN_DIVISOR);
+    }
+
+    private static long pad(long value, int digits) {
+        long padding = PADDING[digits - MIN_PREFIX_LENGTH];
+        if (value > Long.MAX_VALUE / padding)
+            return INVALID;
+        return value * padding;
+    }
+
+    /**
+     * @return true for a digit or a masked digit ({@code *}), the characters that take a position in a card number.
+     */
+    private static boolean isCardChar(char c) {
+        return (c >= '0' && c <= '9') || c == '*';
+    }
+}
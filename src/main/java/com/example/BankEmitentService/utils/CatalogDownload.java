@@ -0,0 +1,63 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.utils;
+
+/**
+ * The outcome of a catalog download.
+ *
+ * @param status What the download produced.
+ * @param state The validators of the downloaded archive, to be stored once it has been applied.
+ * @param bytes The number of bytes transferred.
+ * @param attempts The number of requests it took, 1 unless the download was retried.
+ * @param resumedBytes The number of bytes of a partial download that were kept instead of transferred again.
+ * @param transferNanos The time spent receiving response bodies, or 0 if not measured.
+ */
+public record CatalogDownload(Status status, CatalogState state, long bytes, int attempts, long resumedBytes, long transferNanos) {
+
+    /**
+     * Download outcomes.
+     */
+    public enum Status {
+        /** A new archive was downloaded and extracted. */
+        DOWNLOADED,
+        /** The server answered 304 Not Modified. */
+        NOT_MODIFIED,
+        /** An archive was downloaded, but its SHA-256 matches the applied one. */
+        UNCHANGED,
+        /** The download or extraction failed. */
+        FAILED
+    }
+
+    /**
+     * Creates the outcome of a download that took a single attempt and was not timed.
+     *
+     * @param status What the download produced.
+     * @param state The validators of the downloaded archive.
+     * @param bytes The number of bytes transferred.
+     */
+    public CatalogDownload(Status status, CatalogState state, long bytes) {
+        this(status, state, bytes, 1, 0, 0);
+    }
+
+    public static CatalogDownload failed() {
+        return new CatalogDownload(Status.FAILED, CatalogState.EMPTY, 0);
+    }
+
+    /**
+     * @return true if the refresh can be skipped because the catalog has not changed.
+     */
+    public boolean isUnchanged() {
+        return status == Status.NOT_MODIFIED || status == Status.UNCHANGED;
+    }
+
+    /**
+     * @return The average transfer rate in bytes per second, or NaN if the transfer was not timed.
+     */
+    public double bytesPerSecond() {
+        return transferNanos == 0 ? Double.NaN : bytes * 1e9 / transferNanos;
+    }
+}
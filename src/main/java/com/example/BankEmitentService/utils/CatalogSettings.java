@@ -0,0 +1,108 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Where the catalog is downloaded from and where its files are kept, and how it is applied.
+ * <p>
+ * Unlike the settings in {@code Constants}, these are read from the Spring
+ * Environment, so deployments and tests can set them through any property
+ * source Spring Boot supports: profiles, environment variables, system
+ * properties or {@code @DynamicPropertySource}.
+ */
+@Component
+public class CatalogSettings {
+
+    private final String onlineCatalogUri;
+    private final String zipDownloadFolder;
+    private final String zipExtractFolder;
+    private final String zipFilePath;
+    private final String binInfoJsonPath;
+    private final Path snapshotPath;
+    private final Path statePath;
+    private final boolean deltaRefresh;
+
+    /**
+     * Constructs a new instance of CatalogSettings.
+     *
+     * @param onlineCatalogUri The URL of the catalog archive ({@code online.catalog.uri}).
+     * @param baseFolder The folder holding every catalog file ({@code base.folder}).
+     * @param zipDownloadFolder The download folder, relative to the base folder.
+     * @param zipExtractFolder The extract folder, relative to the base folder.
+     * @param binInfoZip The file name of the archive.
+     * @param binInfoJson The file name of the catalog inside the archive.
+     * @param snapshot The file name of the binary index snapshot, relative to the base folder.
+     * @param state The file name of the applied catalog validators, relative to the base folder.
+     * @param refreshMode {@code delta} to apply a refresh as a diff, anything else for a full load.
+     */
+    @Autowired
+    public CatalogSettings(@Value("${online.catalog.uri}") String onlineCatalogUri,
+                           @Value("${base.folder}") String baseFolder,
+                           @Value("${zip.download.folder}") String zipDownloadFolder,
+                           @Value("${zip.extract.folder.path}") String zipExtractFolder,
+                           @Value("${bin.info.zip}") String binInfoZip,
+                           @Value("${bin.info.json}") String binInfoJson,
+                           @Value("${bin.info.snapshot}") String snapshot,
+                           @Value("${catalog.state}") String state,
+                           @Value("${catalog.refresh.mode}") String refreshMode) {
+        this.onlineCatalogUri = onlineCatalogUri;
+        this.zipDownloadFolder = baseFolder + File.separator + zipDownloadFolder;
+        this.zipExtractFolder = baseFolder + File.separator + zipExtractFolder;
+        this.zipFilePath = this.zipDownloadFolder + File.separator + binInfoZip;
+        this.binInfoJsonPath = this.zipExtractFolder + File.separator + binInfoJson;
+        this.snapshotPath = Path.of(baseFolder, snapshot);
+        this.statePath = Path.of(baseFolder, state);
+        this.deltaRefresh = "delta".equalsIgnoreCase(refreshMode);
+    }
+
+    public String onlineCatalogUri() {
+        return onlineCatalogUri;
+    }
+
+    public String zipDownloadFolder() {
+        return zipDownloadFolder;
+    }
+
+    public String zipExtractFolder() {
+        return zipExtractFolder;
+    }
+
+    public String zipFilePath() {
+        return zipFilePath;
+    }
+
+    public String binInfoJsonPath() {
+        return binInfoJsonPath;
+    }
+
+    /**
+     * @return The binary index snapshot, written after every load and mapped on startup.
+     */
+    public Path snapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * @return The file holding the validators of the last applied archive.
+     */
+    public Path statePath() {
+        return statePath;
+    }
+
+    /**
+     * @return true if {@code catalog.refresh.mode} is {@code delta}.
+     */
+    public boolean deltaRefresh() {
+        return deltaRefresh;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Validators of the last catalog archive that was successfully applied.
+ * <p>
+ * The HTTP validators are sent back as {@code If-None-Match} and
+ * {@code If-Modified-Since} on the next download, and the SHA-256 of the
+ * archive is compared with a freshly downloaded one, so an unchanged
+ * catalog is never unzipped, parsed or loaded again.
+ *
+ * @param etag The ETag header of the applied archive, may be null.
+ * @param lastModified The Last-Modified header of the applied archive, may be null.
+ * @param sha256 The hex SHA-256 of the applied archive, may be null.
+ */
+public record CatalogState(String etag, String lastModified, String sha256) {
+
+    public static final CatalogState EMPTY = new CatalogState(null, null, null);
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogState.class);
+
+    /**
+     * Reads the state file. A missing or unreadable file yields {@link #EMPTY}.
+     *
+     * @param path The state file path.
+     * @return The stored state.
+     */
+    public static CatalogState load(Path path) {
+        if (!Files.exists(path))
+            return EMPTY;
+
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+            return new CatalogState(properties.getProperty("etag"),
+                                    properties.getProperty("last.modified"),
+                                    properties.getProperty("sha256"));
+        } catch (IOException e) {
+            logger.warn("Failed to read catalog state {}: {}", path, e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Writes the state file.
+     *
+     * @param path The state file path.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        if (etag != null) properties.setProperty("etag", etag);
+        if (lastModified != null) properties.setProperty("last.modified", lastModified);
+        if (sha256 != null) properties.setProperty("sha256", sha256);
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (OutputStream output = Files.newOutputStream(path)) {
+            properties.store(output, "Last applied bank emitment catalog");
+        }
+    }
+}
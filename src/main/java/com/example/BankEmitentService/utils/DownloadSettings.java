@@ -0,0 +1,50 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.BankEmitentService.constants.Constants.DOWNLOAD_BACKOFF_INITIAL_MS;
+import static com.example.BankEmitentService.constants.Constants.DOWNLOAD_BACKOFF_MAX_MS;
+import static com.example.BankEmitentService.constants.Constants.DOWNLOAD_CONNECT_TIMEOUT_MS;
+import static com.example.BankEmitentService.constants.Constants.DOWNLOAD_MAX_ATTEMPTS;
+import static com.example.BankEmitentService.constants.Constants.DOWNLOAD_READ_TIMEOUT_MS;
+
+/**
+ * Timeouts and retry policy of the catalog download.
+ *
+ * @param connectTimeoutMillis The time allowed to open the connection.
+ * @param readTimeoutMillis The time allowed between two reads of the response before the attempt fails.
+ * @param maxAttempts The number of attempts before the download fails, at least 1.
+ * @param initialBackoffMillis The upper bound of the delay before the first retry.
+ * @param maxBackoffMillis The upper bound of the delay before any retry.
+ */
+public record DownloadSettings(int connectTimeoutMillis, int readTimeoutMillis, int maxAttempts,
+                               long initialBackoffMillis, long maxBackoffMillis) {
+
+    /**
+     * The settings configured by the {@code download.*} properties.
+     */
+    public static final DownloadSettings DEFAULT = new DownloadSettings(DOWNLOAD_CONNECT_TIMEOUT_MS, DOWNLOAD_READ_TIMEOUT_MS,
+                                                                        DOWNLOAD_MAX_ATTEMPTS, DOWNLOAD_BACKOFF_INITIAL_MS,
+                                                                        DOWNLOAD_BACKOFF_MAX_MS);
+
+    /**
+     * Picks the delay before a retry with exponential backoff and full jitter: a random
+     * delay up to the initial backoff doubled once per previous retry, capped at the
+     * maximum backoff. Spreading the delays keeps replicas from retrying in lockstep.
+     *
+     * @param retry The number of the retry, starting at 1.
+     * @return The delay in milliseconds.
+     */
+    public long backoffMillis(int retry) {
+        long bound = initialBackoffMillis << Math.min(retry - 1, 30);
+        if (bound <= 0 || bound > maxBackoffMillis)
+            bound = maxBackoffMillis;
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread builders for the blocking I/O stages of the catalog refresh.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} the stages run on virtual
+ * threads, like request handling and scheduled tasks; otherwise they run on
+ * platform threads. The setting is read from the Spring {@link Environment}, so
+ * it follows every property source Spring Boot itself uses for it.
+ */
+@Component
+public class IoThreads {
+
+    private final boolean virtual;
+
+    /**
+     * Constructs a new instance of IoThreads from the application environment.
+     *
+     * @param environment The environment holding {@code spring.threads.virtual.enabled}.
+     */
+    @Autowired
+    IoThreads(Environment environment) {
+        this(Threading.VIRTUAL.isActive(environment));
+    }
+
+    /**
+     * Constructs a new instance of IoThreads outside of a Spring context.
+     *
+     * @param virtual Whether to create virtual threads.
+     */
+    public IoThreads(boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    /**
+     * @return true if the threads are virtual.
+     */
+    public boolean virtual() {
+        return virtual;
+    }
+
+    /**
+     * Creates a builder for a single named I/O thread.
+     *
+     * @param name The thread name.
+     * @return A virtual or platform thread builder.
+     */
+    public Thread.Builder named(String name) {
+        return virtual ? Thread.ofVirtual().name(name) : Thread.ofPlatform().name(name);
+    }
+
+    /**
+     * Creates a factory of numbered I/O threads.
+     *
+     * @param prefix The thread name prefix; threads are numbered from 1.
+     * @return A virtual or platform thread factory.
+     */
+    public ThreadFactory factory(String prefix) {
+        Thread.Builder builder = virtual ? Thread.ofVirtual().name(prefix, 1) : Thread.ofPlatform().name(prefix, 1);
+        return builder.factory();
+    }
+}
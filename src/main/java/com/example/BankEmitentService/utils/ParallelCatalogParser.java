@@ -0,0 +1,384 @@
+/**
+ * <==================================>
+ * Copyright (c) 2024 Ilya Sukhina.*
+ * <=================================>
+ */
+
+package com.example.BankEmitentService.utils;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Parses a catalog file on several cores.
+ * <p>
+ * The file is memory-mapped and scanned once, byte by byte, to find the commas
+ * separating the elements of the top-level array. The scan only tracks nesting
+ * and string state, which is far cheaper than parsing, and splits the array
+ * into chunks of roughly equal size. The chunks are then parsed in parallel on
+ * a {@link ForkJoinPool}, each into its own primitive column buffers, and the
+ * buffers are concatenated in file order. The result is therefore identical to
+ * parsing the file sequentially, whatever the parallelism.
+ * <p>
+ * The mapping is released as soon as the parse completes, so the extracted
+ * file can be replaced by the next refresh on any platform.
+ */
+public final class ParallelCatalogParser {
+
+    /**
+     * Stored in the range columns for a range that is missing or not a number.
+     */
+    public static final long NO_RANGE = Long.MIN_VALUE;
+
+    private static final TypeAdapter<BankEmitment> BANK_EMITMENT_ADAPTER = new Gson().getAdapter(BankEmitment.class);
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelCatalogParser() {
+    }
+
+    /**
+     * Parses a catalog file.
+     *
+     * @param file The JSON file holding a top-level array of bank emitments.
+     * @param parallelism The number of parsing threads, or 0 for one per core.
+     * @return The parsed catalog.
+     * @throws IOException if the file cannot be read or is not a JSON array of bank emitments.
+     */
+    public static ParsedCatalog parse(Path file, int parallelism) throws IOException {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return parse(file, threads, threads * CHUNKS_PER_THREAD);
+    }
+
+    /**
+     * Parses a catalog file into at most the given number of chunks.
+     *
+     * @param file The JSON file holding a top-level array of bank emitments.
+     * @param parallelism The number of parsing threads.
+     * @param chunks The number of chunks to split the array into.
+     * @return The parsed catalog.
+     * @throws IOException if the file cannot be read or is not a JSON array of bank emitments.
+     */
+    static ParsedCatalog parse(Path file, int parallelism, int chunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofShared()) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            long[] boundaries = elementBoundaries(segment, chunks);
+
+            Columns[] parsed = new Columns[boundaries.length - 1];
+            Exception[] failures = new Exception[parsed.length];
+            try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+                pool.invoke(new ParseChunks(segment, boundaries, parsed, failures, 0, parsed.length));
+            }
+
+            // Report the failure of the earliest chunk, as a sequential parse would have.
+            for (Exception failure : failures) {
+                if (failure instanceof IOException io)
+                    throw io;
+                if (failure != null)
+                    throw new IOException(failure.getMessage(), failure);
+            }
+            return ParsedCatalog.merge(parsed);
+        }
+    }
+
+    /**
+     * Finds the chunk boundaries of the top-level array.
+     * <p>
+     * The first boundary is the opening bracket, the last one the closing bracket,
+     * and every other one a comma between two top-level elements. The chunk between
+     * two consecutive boundaries therefore holds whole elements only.
+     *
+     * @param segment The mapped file.
+     * @param chunks The number of chunks to aim for.
+     * @return The offsets of the boundaries, in ascending order.
+     * @throws IOException if the file is not a single JSON array.
+     */
+    static long[] elementBoundaries(MemorySegment segment, int chunks) throws IOException {
+        long size = segment.byteSize();
+        long start = 0;
+        while (start < size && isWhitespace(segment.get(ValueLayout.JAVA_BYTE, start)))
+            start++;
+        if (start == size || segment.get(ValueLayout.JAVA_BYTE, start) != '[')
+            throw new IOException("The catalog is not a JSON array.");
+
+        long chunkBytes = Math.max(1, (size - start) / Math.max(1, chunks));
+        long[] boundaries = new long[Math.max(1, chunks) + 1];
+        int count = 0;
+        boundaries[count++] = start;
+        long nextSplit = start + chunkBytes;
+
+        int depth = 1;
+        boolean inString = false;
+        boolean escaped = false;
+        for (long i = start + 1; i < size; i++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, i);
+            if (inString) {
+                if (escaped)
+                    escaped = false;
+                else if (b == '\\')
+                    escaped = true;
+                else if (b == '"')
+                    inString = false;
+                continue;
+            }
+
+            switch (b) {
+                case '"' -> inString = true;
+                case '[', '{' -> depth++;
+                case ']', '}' -> {
+                    if (--depth == 0) {
+                        boundaries[count++] = i;
+                        return Arrays.copyOf(boundaries, count);
+                    }
+                }
+                case ',' -> {
+                    if (depth == 1 && i >= nextSplit && count < boundaries.length - 1) {
+                        boundaries[count++] = i;
+                        nextSplit = i + chunkBytes;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        throw new IOException("The catalog JSON array is not terminated.");
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Parses the chunks of a range of boundaries, splitting the range until a single chunk is left.
+     */
+    private static final class ParseChunks extends RecursiveAction {
+
+        private final MemorySegment segment;
+        private final long[] boundaries;
+        private final Columns[] parsed;
+        private final Exception[] failures;
+        private final int from;
+        private final int to;
+
+        ParseChunks(MemorySegment segment, long[] boundaries, Columns[] parsed, Exception[] failures, int from, int to) {
+            this.segment = segment;
+            this.boundaries = boundaries;
+            this.parsed = parsed;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseChunks(segment, boundaries, parsed, failures, from, middle),
+                          new ParseChunks(segment, boundaries, parsed, failures, middle, to));
+                return;
+            }
+            if (to == from)
+                return;
+
+            try {
+                parsed[from] = parseChunk(segment, boundaries[from] + 1, boundaries[from + 1]);
+            } catch (IOException | RuntimeException e) {
+                failures[from] = e;
+            }
+        }
+    }
+
+    /**
+     * Parses the elements between two boundaries, wrapped in brackets so they form a JSON array.
+     */
+    private static Columns parseChunk(MemorySegment segment, long from, long to) throws IOException {
+        CharBuffer chars = CharBuffer.allocate((int) (to - from) + 2);
+        chars.put('[');
+        // Malformed input is reported, as by the reader of the sequential parser.
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        CoderResult result = decoder.decode(segment.asSlice(from, to - from).asByteBuffer(), chars, true);
+        if (result.isError())
+            result.throwException();
+        decoder.flush(chars);
+        chars.put(']');
+        chars.flip();
+
+        JsonReader jsonReader = new JsonReader(new CharBufferReader(chars));
+        Columns columns = new Columns();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            columns.add(BANK_EMITMENT_ADAPTER.read(jsonReader));
+        }
+        jsonReader.endArray();
+        return columns;
+    }
+
+    /**
+     * Reader over a decoded chunk, without copying it into a string.
+     */
+    private static final class CharBufferReader extends Reader {
+
+        private final CharBuffer chars;
+
+        CharBufferReader(CharBuffer chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (!chars.hasRemaining())
+                return -1;
+            int read = Math.min(length, chars.remaining());
+            chars.get(buffer, offset, read);
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Growable column buffers of one chunk. Repeated alpha codes and bank names
+     * share a single string instance.
+     */
+    private static final class Columns {
+
+        private int size;
+        private int[] bins = new int[1024];
+        private long[] minRanges = new long[1024];
+        private long[] maxRanges = new long[1024];
+        private String[] alphaCodes = new String[1024];
+        private String[] bankNames = new String[1024];
+        private final Map<String, String> strings = new HashMap<>();
+
+        void add(BankEmitment emitment) {
+            if (size == bins.length) {
+                int capacity = size << 1;
+                bins = Arrays.copyOf(bins, capacity);
+                minRanges = Arrays.copyOf(minRanges, capacity);
+                maxRanges = Arrays.copyOf(maxRanges, capacity);
+                alphaCodes = Arrays.copyOf(alphaCodes, capacity);
+                bankNames = Arrays.copyOf(bankNames, capacity);
+            }
+            bins[size] = emitment.getBin();
+            minRanges[size] = emitment.getMinRange() == null ? NO_RANGE : emitment.getMinRange();
+            maxRanges[size] = emitment.getMaxRange() == null ? NO_RANGE : emitment.getMaxRange();
+            alphaCodes[size] = share(emitment.getAlphaCode());
+            bankNames[size] = share(emitment.getBankName());
+            size++;
+        }
+
+        private String share(String value) {
+            return value == null ? null : strings.computeIfAbsent(value, key -> key);
+        }
+    }
+
+    /**
+     * A parsed catalog, stored column by column in file order.
+     */
+    public static final class ParsedCatalog {
+
+        private final int[] bins;
+        private final long[] minRanges;
+        private final long[] maxRanges;
+        private final String[] alphaCodes;
+        private final String[] bankNames;
+
+        private ParsedCatalog(int size) {
+            this.bins = new int[size];
+            this.minRanges = new long[size];
+            this.maxRanges = new long[size];
+            this.alphaCodes = new String[size];
+            this.bankNames = new String[size];
+        }
+
+        private static ParsedCatalog merge(Columns[] chunks) {
+            int size = 0;
+            for (Columns chunk : chunks) {
+                size += chunk.size;
+            }
+
+            ParsedCatalog catalog = new ParsedCatalog(size);
+            int offset = 0;
+            for (Columns chunk : chunks) {
+                System.arraycopy(chunk.bins, 0, catalog.bins, offset, chunk.size);
+                System.arraycopy(chunk.minRanges, 0, catalog.minRanges, offset, chunk.size);
+                System.arraycopy(chunk.maxRanges, 0, catalog.maxRanges, offset, chunk.size);
+                System.arraycopy(chunk.alphaCodes, 0, catalog.alphaCodes, offset, chunk.size);
+                System.arraycopy(chunk.bankNames, 0, catalog.bankNames, offset, chunk.size);
+                offset += chunk.size;
+            }
+            return catalog;
+        }
+
+        /**
+         * @return The number of parsed records.
+         */
+        public int size() {
+            return bins.length;
+        }
+
+        /**
+         * Creates the record at a position, as the sequential parser would have read it.
+         *
+         * @param position The position of the record in the file.
+         * @return The record.
+         */
+        public BankEmitment get(int position) {
+            return BankEmitment.builder()
+                    .bin(bins[position])
+                    .minRange(minRanges[position] == NO_RANGE ? null : minRanges[position])
+                    .maxRange(maxRanges[position] == NO_RANGE ? null : maxRanges[position])
+                    .alphaCode(alphaCodes[position])
+                    .bankName(bankNames[position])
+                    .build();
+        }
+
+        /**
+         * Passes the records to the consumer in file order, in chunks of at most
+         * {@code chunkSize} records, like the streaming parser does.
+         *
+         * @param chunkSize The maximum number of records passed to the consumer at once.
+         * @param consumer The consumer receiving each chunk of records.
+         * @return The number of records passed.
+         */
+        public int feed(int chunkSize, Consumer<List<BankEmitment>> consumer) {
+            List<BankEmitment> chunk = new ArrayList<>(chunkSize);
+            for (int i = 0; i < size(); i++) {
+                chunk.add(get(i));
+
+                if (chunk.size() == chunkSize) {
+                    consumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty())
+                consumer.accept(chunk);
+
+            return size();
+        }
+    }
+}
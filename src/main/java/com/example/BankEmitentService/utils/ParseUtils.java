@@ -8,31 +8,38 @@ package com.example.BankEmitentService.utils;
 
 import com.example.BankEmitentService.entity.BankEmitment;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import static com.example.BankEmitentService.constants.Constants.*;
+import java.util.function.Consumer;
 
 /**
  * Utility class for parsing JSON files into a list of BankEmitment objects.
+ * <p>
+ * Besides the list-based parser, a streaming mode is provided that reads the
+ * top-level array element by element and hands records to a consumer in
+ * fixed-size chunks, so peak memory does not depend on the catalog size.
+ * A parallel mode parses large files on several cores instead.
  */
 public class ParseUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(ParseUtils.class);
-
-    /**
-     * Returns a list of BankEmitment objects by parsing a predefined JSON file.
-     *
-     * @return List of BankEmitment objects containing parsed data from the JSON file.
-     */
-    public static List<BankEmitment> bankEmitments() {
-        return jsonFileParser(BIN_INFO_JSON_PATH);
-    }
+    private static final TypeAdapter<BankEmitment> BANK_EMITMENT_ADAPTER = new Gson().getAdapter(BankEmitment.class);
 
     /**
      * Parses a JSON file and converts it into a list of BankEmitment objects.
@@ -52,12 +59,208 @@ public class ParseUtils {
 
             bankInfoList = gson.fromJson(reader, bankListType);
 
-            logger.info(STR."Parse complete to file: \{filePath}");
+            logger.info("Parse complete to file: {}", filePath);
         }
         catch (IOException e) {
-            logger.error(STR."Failed to parse file! \{filePath}" + '\n' + e.getMessage());
+            logger.error("Failed to parse file! {}\n{}", filePath, e.getMessage());
         }
         return bankInfoList;
     }
 
+    /**
+     * Parses a JSON file element by element and passes the records to the consumer
+     * in chunks of at most {@code chunkSize} records. A new list is allocated for
+     * every chunk, so the consumer may keep or hand off the chunk list.
+     *
+     * @param filePath The path to the JSON file to be parsed.
+     * @param chunkSize The maximum number of records passed to the consumer at once.
+     * @param consumer The consumer receiving each chunk of parsed records.
+     * @return The number of records parsed, or -1 if the file cannot be read or is not a JSON array.
+     * @throws RuntimeException if the consumer fails; such failures are passed on to the caller
+     *                          instead of being reported as a parse failure.
+     */
+    public static int jsonFileStreamParser(String filePath, int chunkSize, Consumer<List<BankEmitment>> consumer) {
+        try (Reader reader = Files.newBufferedReader(Path.of(filePath), StandardCharsets.UTF_8)) {
+            int count = jsonStreamParser(reader, chunkSize, consumer);
+
+            logger.info("Stream parse complete to file: {}, records: {}", filePath, count);
+            return count;
+        }
+        catch (IOException e) {
+            logger.error("Failed to parse file! {}\n{}", filePath, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a JSON file with {@link ParallelCatalogParser} and passes the records to
+     * the consumer in file order, in chunks of at most {@code chunkSize} records. The
+     * records and their order are the same as with {@link #jsonFileStreamParser}; the
+     * whole catalog is held in compact columns until it has been passed on.
+     *
+     * @param filePath The path to the JSON file to be parsed.
+     * @param parallelism The number of parsing threads, or 0 for one per core.
+     * @param chunkSize The maximum number of records passed to the consumer at once.
+     * @param consumer The consumer receiving each chunk of parsed records.
+     * @return The number of records parsed, or -1 if an error occurs.
+     */
+    public static int jsonFileParallelParser(String filePath, int parallelism, int chunkSize, Consumer<List<BankEmitment>> consumer) {
+        ParallelCatalogParser.ParsedCatalog catalog;
+        try {
+            catalog = ParallelCatalogParser.parse(Path.of(filePath), parallelism);
+        }
+        catch (IOException | RuntimeException e) {
+            logger.error("Failed to parse file! {}\n{}", filePath, e.getMessage());
+            return -1;
+        }
+
+        logger.info("Parallel parse complete to file: {}, records: {}", filePath, catalog.size());
+        return catalog.feed(chunkSize, consumer);
+    }
+
+    /**
+     * Reads a top-level JSON array of bank emitments from the given reader
+     * and passes the records to the consumer in chunks.
+     *
+     * @param reader The reader positioned at the start of the JSON array.
+     * @param chunkSize The maximum number of records passed to the consumer at once.
+     * @param consumer The consumer receiving each chunk of parsed records.
+     * @return The number of records parsed.
+     * @throws IOException if the input cannot be read or is not a JSON array.
+     * @throws RuntimeException if the consumer fails.
+     */
+    public static int jsonStreamParser(Reader reader, int chunkSize, Consumer<List<BankEmitment>> consumer) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        List<BankEmitment> chunk = new ArrayList<>(chunkSize);
+        int count = 0;
+
+        try {
+            jsonReader.beginArray();
+        } catch (IllegalStateException | JsonParseException e) {
+            throw malformedCatalog(e);
+        }
+
+        BankEmitment emitment;
+        while ((emitment = nextBankEmitment(jsonReader)) != null) {
+            chunk.add(emitment);
+            count++;
+
+            if (chunk.size() == chunkSize) {
+                consumer.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        if (!chunk.isEmpty())
+            consumer.accept(chunk);
+
+        return count;
+    }
+
+    /**
+     * Reads card numbers from a batch request body and passes each one to the consumer.
+     * <p>
+     * The body is either a JSON array of strings or NDJSON with one card number per
+     * line, given as a JSON string or as bare digits. Blank lines are ignored.
+     *
+     * @param reader The reader of the request body.
+     * @param ndjson Whether the body is NDJSON rather than a JSON array.
+     * @param maxCount The maximum number of card numbers accepted.
+     * @param consumer The consumer receiving each card number.
+     * @return The number of card numbers read.
+     * @throws IOException if the body cannot be read.
+     * @throws IllegalArgumentException if the body is not a JSON array of strings, or
+     *                                  contains more than {@code maxCount} card numbers.
+     */
+    public static int readCardNumbers(Reader reader, boolean ndjson, int maxCount, Consumer<String> consumer) throws IOException {
+        int count = 0;
+
+        if (ndjson) {
+            BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+            String line;
+            while ((line = lines.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty())
+                    continue;
+                checkBatchSize(++count, maxCount);
+                consumer.accept(line.length() > 1 && line.startsWith("\"") && line.endsWith("\"")
+                        ? line.substring(1, line.length() - 1)
+                        : line);
+            }
+            return count;
+        }
+
+        JsonReader jsonReader = new JsonReader(reader);
+        try {
+            jsonReader.beginArray();
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            throw malformedBatch(e);
+        }
+
+        String cardNumber;
+        while ((cardNumber = nextCardNumber(jsonReader)) != null) {
+            checkBatchSize(++count, maxCount);
+            consumer.accept(cardNumber);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the next card number of a JSON array, or the end of the array.
+     * <p>
+     * Gson reports malformed JSON as a {@link MalformedJsonException} or an
+     * {@link EOFException}, and a token of the wrong type as an {@link IllegalStateException}.
+     * Both are the client's fault, so they are rethrown as {@link IllegalArgumentException}.
+     *
+     * @param reader The reader positioned inside the array.
+     * @return The next card number, or null at the end of the array.
+     * @throws IOException if the body cannot be read.
+     */
+    private static String nextCardNumber(JsonReader reader) throws IOException {
+        try {
+            if (reader.hasNext())
+                return reader.nextString();
+            reader.endArray();
+            return null;
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            throw malformedBatch(e);
+        }
+    }
+
+    /**
+     * Reads the next bank emitment of a JSON array, or the end of the array.
+     * <p>
+     * Gson reports a token of the wrong type as an {@link IllegalStateException} and
+     * a record that does not fit {@link BankEmitment} as a {@link JsonParseException}.
+     * Both are rethrown as {@link IOException}, so that they cannot be mistaken for a
+     * failure of the consumer.
+     *
+     * @param reader The reader positioned inside the array.
+     * @return The next bank emitment, or null at the end of the array.
+     * @throws IOException if the input cannot be read or is malformed.
+     */
+    private static BankEmitment nextBankEmitment(JsonReader reader) throws IOException {
+        try {
+            if (reader.hasNext())
+                return BANK_EMITMENT_ADAPTER.read(reader);
+            reader.endArray();
+            return null;
+        } catch (IllegalStateException | JsonParseException e) {
+            throw malformedCatalog(e);
+        }
+    }
+
+    private static IOException malformedCatalog(RuntimeException cause) {
+        return new IOException("Catalog must be a JSON array of bank emitments.", cause);
+    }
+
+    private static IllegalArgumentException malformedBatch(Exception cause) {
+        return new IllegalArgumentException("Batch must be a JSON array of card numbers.", cause);
+    }
+
+    private static void checkBatchSize(int count, int maxCount) {
+        if (count > maxCount)
+            throw new IllegalArgumentException(STR."Batch must not contain more than \{maxCount} card numbers.");
+    }
+
 }
@@ -13,15 +13,47 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
 import java.util.zip.*;
-import static com.example.BankEmitentService.constants.Constants.*;
 
 /**
  * Utility class for downloading and extracting ZIP files.
+ * <p>
+ * Downloads are bounded by connect and read timeouts, retried with backoff and
+ * resumed from the bytes already received, see {@link DownloadSettings}.
  */
 public class ZipFileUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(ZipFileUtils.class);
+    private static final Pattern MD5_ETAG = Pattern.compile("\"[0-9a-fA-F]{32}\"");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A download failure that retrying cannot fix, such as a 403 or 404 response.
+     */
+    private static final class RejectedDownloadException extends IOException {
+        RejectedDownloadException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * What the attempts of one download have transferred so far.
+     */
+    private static final class Transfer {
+        long bytes;
+        long resumedBytes;
+        long nanos;
+    }
 
     /**
      * Checks if the specified unpacking directory exists and creates it if it doesn't.
@@ -34,7 +66,7 @@ public class ZipFileUtils {
         if (!dir.exists() && !dir.mkdirs())
             throw new IOException(STR."Failed to create directory for unpacking: \{destinationDir}");
         else
-            logger.info(STR."The unpacking directory has been created: \{destinationDir}");
+            logger.info("The unpacking directory has been created: {}", destinationDir);
     }
 
     /**
@@ -60,26 +92,65 @@ public class ZipFileUtils {
 
         if (!directory.exists()) {
             if (directory.mkdirs())
-                logger.info(STR."Directory successfully created: \{dirPath}");
+                logger.info("Directory successfully created: {}", dirPath);
             else
-                logger.error(STR."Failed to create directory: \{dirPath}");
+                logger.error("Failed to create directory: {}", dirPath);
         }
         else
-            logger.warn(STR."Directory already exists: \{dirPath}");
+            logger.warn("Directory already exists: {}", dirPath);
     }
 
     /**
      * Downloads a ZIP file from the specified URL and extracts its contents.
+     * <p>
+     * The download is conditional on the validators of the last applied catalog.
+     * When the server answers 304, or the downloaded archive has the same SHA-256
+     * as the applied one, the archive is not extracted.
+     *
+     * @param settings The catalog URL and folders.
+     * @return The outcome of the download, with status FAILED if any step failed.
+     */
+    public static CatalogDownload downloadAndUnzip(CatalogSettings settings) {
+        CatalogDownload download = downloadCatalog(settings);
+
+        if (download.status() == CatalogDownload.Status.DOWNLOADED && !unzipCatalog(settings))
+            return CatalogDownload.failed();
+        return download;
+    }
+
+    /**
+     * Downloads the catalog archive into the download folder, conditional on the
+     * validators of the last applied catalog.
+     *
+     * @param settings The catalog URL and folders.
+     * @return The outcome of the download, with status FAILED if the download failed.
      */
-    public static void downloadAndUnzip() {
+    public static CatalogDownload downloadCatalog(CatalogSettings settings) {
         try {
-            downloadZipFile(ONLINE_CATALOG_URI, ZIP_DOWNLOAD_FOLDER);
-            unzip(ZIP_FILE_PATH, ZIP_EXTRACT_FOLDER_PATH);
+            CatalogState appliedState = CatalogState.load(settings.statePath());
+            return downloadZipFile(settings.onlineCatalogUri(), settings.zipDownloadFolder(), appliedState);
+        }
+        catch (IOException | URISyntaxException e) {
+            logger.error(e.getMessage());
+            return CatalogDownload.failed();
+        }
+    }
 
+    /**
+     * Extracts the downloaded catalog archive into the extract folder.
+     *
+     * @param settings The catalog folders.
+     * @return true if the archive was extracted, false if extraction failed.
+     */
+    public static boolean unzipCatalog(CatalogSettings settings) {
+        try {
+            unzip(settings.zipFilePath(), settings.zipExtractFolder());
             logger.info("Downloading and unzipping ended.");
+            return true;
         }
-        catch (IOException | URISyntaxException e) {
+        catch (IOException e) {
             logger.error(e.getMessage());
+            return false;
         }
     }
 
@@ -88,29 +159,328 @@ public class ZipFileUtils {
      *
      * @param fileURL The URL of the ZIP file to download.
      * @param saveDir The directory to save the downloaded file.
-     * @throws IOException if an I/O error occurs during the download.
+     * @return The outcome of the download.
+     * @throws IOException if an I/O error occurs during the download, or the server does not respond with 200.
+     * @throws URISyntaxException if the URL is malformed.
+     */
+    public static CatalogDownload downloadZipFile(String fileURL, String saveDir) throws IOException, URISyntaxException {
+        return downloadZipFile(fileURL, saveDir, CatalogState.EMPTY);
+    }
+
+    /**
+     * Downloads a ZIP file from the specified URL unless it matches the given state,
+     * with the configured timeouts and retries.
+     *
+     * @param fileURL The URL of the ZIP file to download.
+     * @param saveDir The directory to save the downloaded file.
+     * @param appliedState The validators of the last applied archive.
+     * @return The outcome of the download, carrying the validators of the new archive.
+     * @throws IOException if every attempt failed, or the server rejected the request.
+     * @throws URISyntaxException if the URL is malformed.
+     * @see #downloadZipFile(String, String, CatalogState, DownloadSettings)
+     */
+    public static CatalogDownload downloadZipFile(String fileURL, String saveDir, CatalogState appliedState) throws IOException, URISyntaxException {
+        return downloadZipFile(fileURL, saveDir, appliedState, DownloadSettings.DEFAULT);
+    }
+
+    /**
+     * Downloads a ZIP file from the specified URL unless it matches the given state.
+     * <p>
+     * The ETag and Last-Modified values of the state are sent as conditional request
+     * headers. The body is written to a {@code .part} file next to the archive, which
+     * is only renamed to the archive once it is complete and verified.
+     * <p>
+     * Failed attempts are retried with exponential backoff and jitter: timeouts,
+     * dropped connections, truncated bodies, checksum mismatches and 408, 429 and 5xx
+     * responses. A retry, or a later download finding a {@code .part} file left by an
+     * earlier one, asks for the missing bytes only, with a {@code Range} request guarded
+     * by {@code If-Range} so a catalog that changed in between is downloaded again whole.
+     * <p>
+     * The SHA-256 of the archive is computed while it is being saved. An MD5 is computed
+     * alongside it and compared with the {@code Content-MD5} header, or with the ETag
+     * when it has the form of a plain MD5 hex digest, as S3 uses for single-part objects.
+     *
+     * @param fileURL The URL of the ZIP file to download.
+     * @param saveDir The directory to save the downloaded file.
+     * @param appliedState The validators of the last applied archive.
+     * @param settings The timeouts and retry policy.
+     * @return The outcome of the download, carrying the validators of the new archive.
+     * @throws IOException if every attempt failed, or the server rejected the request.
      * @throws URISyntaxException if the URL is malformed.
      */
-    public static void downloadZipFile(String fileURL, String saveDir) throws IOException, URISyntaxException {
+    public static CatalogDownload downloadZipFile(String fileURL, String saveDir, CatalogState appliedState, DownloadSettings settings) throws IOException, URISyntaxException {
+        createDirectoryIfNotExists(saveDir);
+        Path partFile = Path.of(saveDir, fileURL.substring(fileURL.lastIndexOf("/") + 1) + ".part");
+        Transfer transfer = new Transfer();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attemptDownload(fileURL, saveDir, appliedState, settings, partFile, transfer, attempt);
+            }
+            catch (RejectedDownloadException e) {
+                throw e;
+            }
+            catch (IOException e) {
+                if (attempt >= settings.maxAttempts())
+                    throw new IOException(STR."Catalog download failed after \{attempt} attempts: \{e.getMessage()}", e);
+
+                long backoff = settings.backoffMillis(attempt);
+                logger.warn("Catalog download attempt {} of {} failed, retrying in {} ms: {}",
+                        attempt, settings.maxAttempts(), backoff, e.getMessage());
+                sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Makes one download request, resuming the part file when it can.
+     */
+    private static CatalogDownload attemptDownload(String fileURL, String saveDir, CatalogState appliedState, DownloadSettings settings,
+                                                   Path partFile, Transfer transfer, int attempt) throws IOException, URISyntaxException {
+        Path validatorFile = Path.of(partFile + ".validator");
+        long offset = Files.exists(partFile) ? Files.size(partFile) : 0;
+        String partValidator = Files.exists(validatorFile) ? Files.readString(validatorFile, StandardCharsets.UTF_8).strip() : "";
+        if (offset > 0 && partValidator.isEmpty())
+            offset = 0;
+
+        HttpURLConnection httpConn = openConditionalConnection(fileURL, appliedState, settings);
+        if (offset > 0) {
+            httpConn.setRequestProperty("Range", STR."bytes=\{offset}-");
+            httpConn.setRequestProperty("If-Range", partValidator);
+        }
+
+        try {
+            int responseCode = httpConn.getResponseCode();
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                logger.info("Catalog not modified since the last refresh.");
+                deletePart(partFile, validatorFile);
+                return new CatalogDownload(CatalogDownload.Status.NOT_MODIFIED, appliedState, transfer.bytes, attempt, transfer.resumedBytes, transfer.nanos);
+            }
+            if (responseCode == 416) {
+                deletePart(partFile, validatorFile);
+                throw new IOException("The server rejected the resumed range, starting over.");
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                String message = STR."Access to file denied. The server responded with the code: \{responseCode}";
+                if (isRetryable(responseCode))
+                    throw new IOException(message);
+                throw new RejectedDownloadException(message);
+            }
+
+            String etag = httpConn.getHeaderField("ETag");
+            String lastModified = httpConn.getHeaderField("Last-Modified");
+            long expectedSize;
+            if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
+                long[] range = contentRange(httpConn.getHeaderField("Content-Range"));
+                if (range[0] != offset) {
+                    deletePart(partFile, validatorFile);
+                    throw new IOException(STR."The server resumed at byte \{range[0]} instead of \{offset}, starting over.");
+                }
+                expectedSize = range[1];
+                transfer.resumedBytes += offset;
+                logger.info("Resuming catalog download at byte {} of {}.", offset, expectedSize);
+            } else {
+                offset = 0;
+                expectedSize = httpConn.getContentLengthLong();
+                Files.writeString(validatorFile, etag != null ? etag : lastModified != null ? lastModified : "", StandardCharsets.UTF_8);
+            }
+
+            MessageDigest sha256 = sha256();
+            MessageDigest md5 = md5();
+            if (offset > 0)
+                digestFile(partFile, sha256, md5);
+
+            // Bytes received before a failure stay in the part file for the next attempt.
+            long started = System.nanoTime();
+            try (InputStream body = new DigestInputStream(new DigestInputStream(httpConn.getInputStream(), sha256), md5)) {
+                saveFile(body, partFile, offset > 0);
+            } finally {
+                transfer.nanos += System.nanoTime() - started;
+                transfer.bytes += Math.max(0, partSize(partFile) - offset);
+            }
+
+            long size = Files.size(partFile);
+            if (expectedSize >= 0 && size != expectedSize)
+                throw new IOException(STR."Catalog download truncated at \{size} of \{expectedSize} bytes.");
+
+            String expectedMd5 = expectedMd5(httpConn, etag, responseCode);
+            String actualMd5 = HexFormat.of().formatHex(md5.digest());
+            if (expectedMd5 != null && !expectedMd5.equalsIgnoreCase(actualMd5)) {
+                deletePart(partFile, validatorFile);
+                throw new IOException(STR."Catalog checksum mismatch: expected MD5 \{expectedMd5}, got \{actualMd5}.");
+            }
+
+            Path saveFilePath = Path.of(saveDir, getFileName(httpConn, fileURL));
+            Files.move(partFile, saveFilePath, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(validatorFile);
+            String sha256Hex = HexFormat.of().formatHex(sha256.digest());
+
+            logger.info("File downloaded: {}, {} bytes, sha256 {}, {} attempt(s), {} bytes resumed, {} KiB/s",
+                    saveFilePath, size, sha256Hex, attempt, transfer.resumedBytes,
+                    transfer.nanos == 0 ? 0 : Math.round(transfer.bytes * 1e9 / transfer.nanos / 1024));
+
+            CatalogState state = new CatalogState(etag, lastModified, sha256Hex);
+            CatalogDownload.Status status = sha256Hex.equals(appliedState.sha256())
+                    ? CatalogDownload.Status.UNCHANGED
+                    : CatalogDownload.Status.DOWNLOADED;
+            if (status == CatalogDownload.Status.UNCHANGED)
+                logger.info("Downloaded catalog is identical to the applied one.");
+            return new CatalogDownload(status, state, transfer.bytes, attempt, transfer.resumedBytes, transfer.nanos);
+        } finally {
+            httpConn.disconnect();
+        }
+    }
+
+    /**
+     * Returns the size of a part file without failing, for bookkeeping in a
+     * {@code finally} block that must not replace the exception of the transfer.
+     *
+     * @param partFile The part file.
+     * @return The size of the file, or 0 if it was never created or has been removed.
+     */
+    private static long partSize(Path partFile) {
+        try {
+            return Files.size(partFile);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Opens a connection to the catalog URL carrying the conditional request headers
+     * derived from the last applied archive, with the configured timeouts. The request
+     * is not sent until the caller reads the response.
+     *
+     * @param fileURL The URL of the ZIP file to download.
+     * @param appliedState The validators of the last applied archive.
+     * @return The prepared connection.
+     * @throws IOException if the connection cannot be opened.
+     * @throws URISyntaxException if the URL is malformed.
+     */
+    public static HttpURLConnection openConditionalConnection(String fileURL, CatalogState appliedState) throws IOException, URISyntaxException {
+        return openConditionalConnection(fileURL, appliedState, DownloadSettings.DEFAULT);
+    }
+
+    /**
+     * Opens a connection to the catalog URL carrying the conditional request headers
+     * derived from the last applied archive. The request is not sent until the
+     * caller reads the response.
+     *
+     * @param fileURL The URL of the ZIP file to download.
+     * @param appliedState The validators of the last applied archive.
+     * @param settings The timeouts to apply.
+     * @return The prepared connection.
+     * @throws IOException if the connection cannot be opened.
+     * @throws URISyntaxException if the URL is malformed.
+     */
+    public static HttpURLConnection openConditionalConnection(String fileURL, CatalogState appliedState, DownloadSettings settings) throws IOException, URISyntaxException {
         URI uri = new URI(fileURL);
         URL url = uri.toURL();
         HttpURLConnection httpConn = (HttpURLConnection) url.openConnection();
-        int responseCode = httpConn.getResponseCode();
+        httpConn.setConnectTimeout(settings.connectTimeoutMillis());
+        httpConn.setReadTimeout(settings.readTimeoutMillis());
 
-        if (responseCode == HttpURLConnection.HTTP_OK) {
-            String fileName = getFileName(httpConn, fileURL);
-            InputStream inputStream = httpConn.getInputStream();
+        if (appliedState.etag() != null)
+            httpConn.setRequestProperty("If-None-Match", appliedState.etag());
+        if (appliedState.lastModified() != null)
+            httpConn.setRequestProperty("If-Modified-Since", appliedState.lastModified());
 
-            createDirectoryIfNotExists(saveDir);
-            String saveFilePath = saveDir + File.separator + fileName;
+        return httpConn;
+    }
 
-            saveFile(inputStream, saveFilePath);
+    /**
+     * @param responseCode An HTTP status code other than 200, 206 and 304.
+     * @return true if a later attempt may succeed.
+     */
+    private static boolean isRetryable(int responseCode) {
+        return responseCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT || responseCode == 429 || responseCode >= 500;
+    }
 
-            logger.info("File downloaded: {}", saveFilePath);
-        } else {
-            logger.error("Access to file denied. The server responded with the code: {}", responseCode);
+    /**
+     * Parses a {@code Content-Range: bytes <first>-<last>/<total>} header.
+     *
+     * @param header The header value.
+     * @return The first byte and the total size, which is -1 if the server did not report it.
+     * @throws IOException if the header is missing or malformed.
+     */
+    private static long[] contentRange(String header) throws IOException {
+        try {
+            String range = header.strip().substring("bytes ".length());
+            int dash = range.indexOf('-');
+            int slash = range.indexOf('/');
+            long first = Long.parseLong(range, 0, dash, 10);
+            String total = range.substring(slash + 1);
+            return new long[] {first, "*".equals(total) ? -1 : Long.parseLong(total)};
+        } catch (RuntimeException e) {
+            throw new IOException(STR."Malformed Content-Range header: \{header}");
+        }
+    }
+
+    /**
+     * Finds the MD5 of the whole archive announced by the server.
+     *
+     * @return The expected MD5 in hex, or null if the server did not announce one.
+     */
+    private static String expectedMd5(HttpURLConnection httpConn, String etag, int responseCode) {
+        String contentMd5 = httpConn.getHeaderField("Content-MD5");
+        if (contentMd5 != null && responseCode == HttpURLConnection.HTTP_OK) {
+            try {
+                return HexFormat.of().formatHex(Base64.getDecoder().decode(contentMd5.strip()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring malformed Content-MD5 header: {}", contentMd5);
+            }
+        }
+        if (etag != null && MD5_ETAG.matcher(etag).matches())
+            return etag.substring(1, etag.length() - 1);
+        return null;
+    }
+
+    private static void digestFile(Path file, MessageDigest... digests) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                for (MessageDigest digest : digests)
+                    digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void deletePart(Path partFile, Path validatorFile) throws IOException {
+        Files.deleteIfExists(partFile);
+        Files.deleteIfExists(validatorFile);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry the catalog download.");
+        }
+    }
+
+    /**
+     * @return A new MD5 digest.
+     */
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available.", e);
+        }
+    }
+
+    /**
+     * @return A new SHA-256 digest.
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
         }
-        httpConn.disconnect();
     }
 
     /**
@@ -141,16 +511,21 @@ public class ZipFileUtils {
      *
      * @param inputStream The InputStream from which to read the data.
      * @param saveFilePath The path where the file will be saved.
+     * @param append Whether to append to the file rather than replace it.
+     * @return The number of bytes written.
      * @throws IOException if an I/O error occurs during saving.
      */
-    private static void saveFile(InputStream inputStream, String saveFilePath) throws IOException {
-        try (FileOutputStream outputStream = new FileOutputStream(saveFilePath)) {
+    private static long saveFile(InputStream inputStream, Path saveFilePath, boolean append) throws IOException {
+        long total = 0;
+        try (FileOutputStream outputStream = new FileOutputStream(saveFilePath.toFile(), append)) {
             int bytesRead;
-            byte[] buffer = new byte[4096];
+            byte[] buffer = new byte[BUFFER_SIZE];
             while ((bytesRead = inputStream.read(buffer)) != -1) {
                 outputStream.write(buffer, 0, bytesRead);
+                total += bytesRead;
             }
         }
+        return total;
     }
 
     /**
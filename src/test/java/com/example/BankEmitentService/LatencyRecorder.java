@@ -0,0 +1,66 @@
+package com.example.BankEmitentService;
+
+import java.util.Arrays;
+
+/**
+ * Records the request latencies of one load test client.
+ * <p>
+ * 200 and 404 responses are timed, 503 responses count as rejected and any other
+ * status as an error. Each client owns its recorder, so recording needs no
+ * synchronization; the recorders are merged once the clients have stopped.
+ * <p>
+ * Shared with the loadtest module through the test jar of the service.
+ */
+public final class LatencyRecorder {
+
+	private long[] latencies = new long[1024];
+	private int size;
+	private int rejected;
+	private int errors;
+
+	public void record(int status, long nanos) {
+		if (status == 503) {
+			rejected++;
+			return;
+		}
+		if (status != 200 && status != 404) {
+			errors++;
+			return;
+		}
+		if (size == latencies.length)
+			latencies = Arrays.copyOf(latencies, size * 2);
+		latencies[size++] = nanos;
+	}
+
+	public static Result merge(LatencyRecorder[] recorders) {
+		int total = Arrays.stream(recorders).mapToInt(r -> r.size).sum();
+		long[] latencies = new long[total];
+		int offset = 0;
+		int rejected = 0;
+		int errors = 0;
+		for (LatencyRecorder r : recorders) {
+			System.arraycopy(r.latencies, 0, latencies, offset, r.size);
+			offset += r.size;
+			rejected += r.rejected;
+			errors += r.errors;
+		}
+		Arrays.sort(latencies);
+		return new Result(latencies, rejected, errors);
+	}
+
+	/**
+	 * The merged latencies of all clients, sorted.
+	 */
+	public record Result(long[] latencies, int rejected, int errors) {
+
+		public int completed() {
+			return latencies.length;
+		}
+
+		public double percentileMillis(double percentile) {
+			if (latencies.length == 0)
+				return Double.NaN;
+			return latencies[(int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1)] / 1_000_000.0;
+		}
+	}
+}
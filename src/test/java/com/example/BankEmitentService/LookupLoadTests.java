@@ -0,0 +1,173 @@
+package com.example.BankEmitentService;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.repositories.BankEmitmentJdbcRepository;
+import com.example.BankEmitentService.repositories.BankEmitmentRepository;
+import com.example.BankEmitentService.services.BankEmitmentDataUpdater;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares lookup throughput and tail latency with platform and virtual request threads.
+ * <p>
+ * Opt-in, as it runs for about a minute: {@code ./mvnw test -Dtest=LookupLoadTests -DloadTest=true}.
+ * The database is replaced by a mock that blocks for {@value #DATABASE_LATENCY_MILLIS} ms per
+ * query, so the fallback scenario shows how each mode copes with blocking I/O.
+ */
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+class LookupLoadTests {
+
+	private static final int CLIENTS = 400;
+	private static final Duration WARMUP = Duration.ofSeconds(3);
+	private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+	private static final int DATABASE_LATENCY_MILLIS = 5;
+	private static final int CATALOG_SIZE = 200_000;
+	private static final long BIN_FACTOR = 10_000_000_000_000L;
+
+	@Nested
+	@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+			properties = "spring.threads.virtual.enabled=false")
+	class PlatformThreads extends LoadScenarios {
+		PlatformThreads() {
+			super("platform");
+		}
+	}
+
+	@Nested
+	@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+			properties = "spring.threads.virtual.enabled=true")
+	class VirtualThreads extends LoadScenarios {
+		VirtualThreads() {
+			super("virtual");
+		}
+	}
+
+	@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+	@TestPropertySource(properties = {
+			"spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+			"spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false",
+			"spring.jpa.hibernate.ddl-auto=none"
+	})
+	abstract static class LoadScenarios {
+
+		private final String mode;
+
+		@LocalServerPort
+		int port;
+
+		@Autowired
+		BinRangeIndexHolder indexHolder;
+
+		@MockBean
+		BankEmitmentRepository bankEmitmentRepository;
+
+		@MockBean
+		BankEmitmentJdbcRepository bankEmitmentJdbcRepository;
+
+		@MockBean
+		BankEmitmentDataUpdater bankEmitmentDataUpdater;
+
+		@MockBean
+		PlatformTransactionManager transactionManager;
+
+		LoadScenarios(String mode) {
+			this.mode = mode;
+		}
+
+		@Test
+		@Order(1)
+		void databaseFallback() throws Exception {
+			when(bankEmitmentRepository.findAllByBin(anyInt())).thenAnswer(invocation -> {
+				LockSupport.parkNanos(Duration.ofMillis(DATABASE_LATENCY_MILLIS).toNanos());
+				return List.of(BankEmitment.builder().bin(invocation.<Integer>getArgument(0)).minRange(0L).maxRange(Long.MAX_VALUE)
+						.alphaCode("UKR").bankName("Load Test Bank").build());
+			});
+
+			report("database", run());
+		}
+
+		@Test
+		@Order(2)
+		void inMemoryIndex() throws Exception {
+			BinRangeIndex.Builder builder = BinRangeIndex.builder();
+			for (int i = 0; i < CATALOG_SIZE; i++) {
+				long start = (400_000 + i) * BIN_FACTOR;
+				builder.add(400_000 + i, start, start + BIN_FACTOR - 1, "UKR", "Bank " + (i % 5_000));
+			}
+			indexHolder.publish(builder.build());
+
+			report("index", run());
+		}
+
+		private LatencyRecorder.Result run() throws Exception {
+			HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+			long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+			long end = warmupEnd + MEASUREMENT.toNanos();
+
+			try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+				Future<?>[] results = new Future<?>[CLIENTS];
+				LatencyRecorder[] recorders = new LatencyRecorder[CLIENTS];
+				for (int c = 0; c < CLIENTS; c++) {
+					LatencyRecorder recorder = recorders[c] = new LatencyRecorder();
+					SplittableRandom random = new SplittableRandom(c);
+					results[c] = clients.submit(() -> {
+						while (System.nanoTime() < end) {
+							String card = Long.toString(4_000_000_000_000_000L + random.nextLong(CATALOG_SIZE * 10_000_000_000L)).substring(0, 16);
+							HttpRequest request = HttpRequest.newBuilder(
+											URI.create("http://127.0.0.1:" + port + "/api/v1/card?cardNumber=" + card))
+									.POST(HttpRequest.BodyPublishers.noBody())
+									.build();
+							long started = System.nanoTime();
+							int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+							if (started >= warmupEnd)
+								recorder.record(status, System.nanoTime() - started);
+						}
+						return null;
+					});
+				}
+				for (Future<?> result : results) {
+					result.get();
+				}
+				return LatencyRecorder.merge(recorders);
+			}
+		}
+
+		private void report(String scenario, LatencyRecorder.Result result) {
+			System.out.printf("%-8s %-8s clients=%d rps=%.0f p50=%.2fms p99=%.2fms p999=%.2fms ok=%d rejected=%d errors=%d%n",
+					mode, scenario, CLIENTS, result.completed() / (double) MEASUREMENT.toSeconds(),
+					result.percentileMillis(0.50), result.percentileMillis(0.99), result.percentileMillis(0.999),
+					result.completed(), result.rejected(), result.errors());
+
+			assertThat(result.completed()).isPositive();
+			assertThat(result.errors()).isZero();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.BankEmitentService.binary;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BankNameDictionaryTests {
+
+	@Test
+	void keepsIdsStableWhileGrowing() {
+		BankNameDictionary dictionary = new BankNameDictionary(1_000);
+
+		for (int i = 0; i < 1_000; i++)
+			assertThat(dictionary.idOf("Bank " + i)).isEqualTo(i);
+
+		for (int i = 0; i < 1_000; i++) {
+			assertThat(dictionary.idOf("Bank " + i)).isEqualTo(i);
+			assertThat(dictionary.nameOf(i)).isEqualTo("Bank " + i);
+		}
+	}
+
+	@Test
+	void answersUnknownIdsWithNull() {
+		BankNameDictionary dictionary = new BankNameDictionary(10);
+		dictionary.idOf("PrivatBank");
+
+		assertThat(dictionary.idOf(null)).isEqualTo(BankNameDictionary.NO_NAME);
+		assertThat(dictionary.nameOf(BankNameDictionary.NO_NAME)).isNull();
+		assertThat(dictionary.nameOf(1)).isNull();
+		assertThat(dictionary.nameOf(Integer.MAX_VALUE)).isNull();
+	}
+
+	@Test
+	void stopsAssigningIdsOnceFull() {
+		BankNameDictionary dictionary = new BankNameDictionary(2);
+
+		assertThat(dictionary.idOf("PrivatBank")).isZero();
+		assertThat(dictionary.idOf("PKO")).isEqualTo(1);
+		assertThat(dictionary.idOf("Monobank")).isEqualTo(BankNameDictionary.NO_NAME);
+		assertThat(dictionary.idOf("Monobank")).isEqualTo(BankNameDictionary.NO_NAME);
+
+		assertThat(dictionary.idOf("PKO")).isEqualTo(1);
+		assertThat(dictionary.nameOf(2)).isNull();
+	}
+}
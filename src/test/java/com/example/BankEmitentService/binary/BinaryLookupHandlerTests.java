@@ -0,0 +1,206 @@
+package com.example.BankEmitentService.binary;
+
+import com.example.BankEmitentService.dto.BankEmitmentDTO;
+import com.example.BankEmitentService.services.CardValidationService;
+import com.example.BankEmitentService.services.LookupCapacityExceededException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.example.BankEmitentService.binary.BinaryProtocol.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BinaryLookupHandlerTests {
+
+	private static final String KNOWN_PAN = "4111 1111 1111 1111";
+	private static final String UNKNOWN_PAN = "5555555555554444";
+	private static final String SLOW_PAN = "4000000000000002";
+
+	private final CardValidationService cardValidationService = mock(CardValidationService.class);
+	private EmbeddedChannel channel;
+
+	BinaryLookupHandlerTests() {
+		when(cardValidationService.servesFromMemory()).thenReturn(true);
+		when(cardValidationService.checkCardRange(any())).thenAnswer(invocation -> {
+			String pan = invocation.getArgument(0).toString();
+			if (pan.equals(KNOWN_PAN))
+				return Optional.of(new BankEmitmentDTO(411111, "UKR", "PrivatBank"));
+			if (pan.equals(UNKNOWN_PAN))
+				return Optional.empty();
+			if (pan.equals(SLOW_PAN))
+				throw new LookupCapacityExceededException("Database lookup capacity exhausted.");
+			throw new IllegalArgumentException("Invalid card number format.");
+		});
+	}
+
+	@AfterEach
+	void closeChannel() {
+		if (channel != null)
+			channel.finishAndReleaseAll();
+	}
+
+	@Test
+	void answersLookupAndBankName() {
+		channel = channel(Runnable::run);
+
+		channel.writeInbound(lookup(Unpooled.buffer(), 42, KNOWN_PAN));
+		ByteBuf found = response(LOOKUP, 42, FOUND);
+		assertThat(found.readInt()).isEqualTo(411111);
+		byte[] alphaCode = new byte[found.readUnsignedByte()];
+		found.readBytes(alphaCode);
+		assertThat(new String(alphaCode, StandardCharsets.US_ASCII)).isEqualTo("UKR");
+		int bankNameId = found.readInt();
+		found.release();
+
+		ByteBuf request = Unpooled.buffer();
+		request.writeInt(HEADER + Integer.BYTES).writeByte(BANK_NAME).writeLong(43).writeInt(bankNameId);
+		channel.writeInbound(request);
+		ByteBuf name = response(BANK_NAME, 43, FOUND);
+		byte[] utf8 = new byte[name.readShort()];
+		name.readBytes(utf8);
+		assertThat(new String(utf8, StandardCharsets.UTF_8)).isEqualTo("PrivatBank");
+		name.release();
+	}
+
+	@Test
+	void answersPipelinedRequestsWithTheirIds() {
+		channel = channel(Runnable::run);
+
+		ByteBuf requests = Unpooled.buffer();
+		lookup(requests, 7, KNOWN_PAN);
+		lookup(requests, Long.MAX_VALUE, UNKNOWN_PAN);
+		lookup(requests, -1, "not a card");
+		requests.writeInt(HEADER).writeByte(99).writeLong(8);
+		requests.writeInt(HEADER + Integer.BYTES).writeByte(BANK_NAME).writeLong(9).writeInt(12345);
+		channel.writeInbound(requests);
+
+		response(LOOKUP, 7, FOUND).release();
+		response(LOOKUP, Long.MAX_VALUE, NOT_FOUND).release();
+		response(LOOKUP, -1, INVALID).release();
+		response((byte) 99, 8, UNKNOWN_OPCODE).release();
+		response(BANK_NAME, 9, NOT_FOUND).release();
+		assertThat((Object) channel.readOutbound()).isNull();
+	}
+
+	@Test
+	void reassemblesFramesSplitAcrossReads() {
+		channel = channel(Runnable::run);
+
+		ByteBuf frame = lookup(Unpooled.buffer(), 5, KNOWN_PAN);
+		for (int i = 0; i < frame.readableBytes() - 1; i++) {
+			channel.writeInbound(frame.retainedSlice(i, 1));
+			assertThat((Object) channel.readOutbound()).isNull();
+		}
+		channel.writeInbound(frame.retainedSlice(frame.readableBytes() - 1, 1));
+		frame.release();
+
+		response(LOOKUP, 5, FOUND).release();
+	}
+
+	@Test
+	void closesConnectionOnFrameShorterThanHeader() {
+		channel = channel(Runnable::run);
+
+		ByteBuf frame = Unpooled.buffer();
+		frame.writeInt(HEADER - 1).writeByte(LOOKUP).writeInt(0).writeShort(0).writeByte(0);
+		channel.writeInbound(frame);
+
+		assertThat(channel.isOpen()).isFalse();
+	}
+
+	@Test
+	void closesConnectionOnOversizePan() {
+		channel = channel(Runnable::run);
+
+		channel.writeInbound(lookup(Unpooled.buffer(), 1, "4".repeat(MAX_PAN_LENGTH + 1)));
+
+		assertThat(channel.isOpen()).isFalse();
+	}
+
+	@Test
+	void acceptsPanOfMaximumLength() {
+		channel = channel(Runnable::run);
+
+		channel.writeInbound(lookup(Unpooled.buffer(), 1, "4".repeat(MAX_PAN_LENGTH)));
+
+		response(LOOKUP, 1, INVALID).release();
+		assertThat(channel.isOpen()).isTrue();
+	}
+
+	@Test
+	void rejectsPanLengthBeyondFrame() {
+		channel = channel(Runnable::run);
+
+		ByteBuf frame = Unpooled.buffer();
+		frame.writeInt(HEADER + 1 + 4).writeByte(LOOKUP).writeLong(3).writeByte(16).writeInt(0x34313131);
+		channel.writeInbound(frame);
+
+		response(LOOKUP, 3, INVALID).release();
+		assertThat(channel.isOpen()).isTrue();
+	}
+
+	@Test
+	void answersDatabaseLookupsOnTheBlockingExecutor() {
+		when(cardValidationService.servesFromMemory()).thenReturn(false);
+		channel = channel(Runnable::run);
+
+		ByteBuf requests = Unpooled.buffer();
+		lookup(requests, 10, KNOWN_PAN);
+		lookup(requests, 11, SLOW_PAN);
+		channel.writeInbound(requests);
+
+		response(LOOKUP, 10, FOUND).release();
+		response(LOOKUP, 11, UNAVAILABLE).release();
+	}
+
+	@Test
+	void answersUnavailableWhenBlockingExecutorIsSaturated() {
+		when(cardValidationService.servesFromMemory()).thenReturn(false);
+		channel = channel(task -> {
+			throw new RejectedExecutionException("Saturated.");
+		});
+
+		channel.writeInbound(lookup(Unpooled.buffer(), 12, KNOWN_PAN));
+
+		response(LOOKUP, 12, UNAVAILABLE).release();
+		assertThat(channel.isOpen()).isTrue();
+	}
+
+	private EmbeddedChannel channel(Executor blockingExecutor) {
+		return new EmbeddedChannel(BinaryLookupServer.newFrameDecoder(),
+				new BinaryLookupHandler(cardValidationService, new BankNameDictionary(16), blockingExecutor));
+	}
+
+	private static ByteBuf lookup(ByteBuf out, long requestId, String pan) {
+		byte[] ascii = pan.getBytes(StandardCharsets.US_ASCII);
+		out.writeInt(HEADER + Byte.BYTES + ascii.length)
+				.writeByte(LOOKUP)
+				.writeLong(requestId)
+				.writeByte(ascii.length)
+				.writeBytes(ascii);
+		return out;
+	}
+
+	/**
+	 * Reads the next response, checks its header and returns it positioned at the body.
+	 */
+	private ByteBuf response(byte opcode, long requestId, byte status) {
+		ByteBuf response = channel.readOutbound();
+		assertThat(response).isNotNull();
+		assertThat(response.readInt()).isEqualTo(response.readableBytes());
+		assertThat(response.readByte()).isEqualTo(opcode);
+		assertThat(response.readLong()).isEqualTo(requestId);
+		assertThat(response.readByte()).isEqualTo(status);
+		return response;
+	}
+}
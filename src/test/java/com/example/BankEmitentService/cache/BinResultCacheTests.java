@@ -0,0 +1,96 @@
+package com.example.BankEmitentService.cache;
+
+import com.example.BankEmitentService.dto.BankEmitmentDTO;
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinResultCacheTests {
+
+	private final BinRangeIndexHolder indexHolder = new BinRangeIndexHolder();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final BinResultCache cache = new BinResultCache(indexHolder, registry, 100, Duration.ofMinutes(10));
+	private final List<Integer> loads = new ArrayList<>();
+
+	private final IntFunction<List<BankEmitment>> loader = bin -> {
+		loads.add(bin);
+		if (bin != 411111)
+			return List.of();
+		return List.of(
+				range(4111110000000000000L, 4111119999999999999L, "Outer"),
+				range(4111115000000000000L, 4111115999999999999L, "Nested"));
+	};
+
+	@Test
+	void loadsBinOnMissAndAnswersLaterCardsFromCache() {
+		Optional<BankEmitmentDTO> first = cache.find(411111, 4111111111111111111L, loader);
+		Optional<BankEmitmentDTO> nested = cache.find(411111, 4111115111111111111L, loader);
+		Optional<BankEmitmentDTO> outside = cache.find(411111, 4111110000000000000L - 1, loader);
+
+		assertThat(first).map(BankEmitmentDTO::getBankName).hasValue("Outer");
+		assertThat(nested).map(BankEmitmentDTO::getBankName).hasValue("Nested");
+		assertThat(outside).isEmpty();
+		assertThat(loads).containsExactly(411111);
+	}
+
+	@Test
+	void cachesUnknownBins() {
+		assertThat(cache.find(555555, 5555555555554444000L, loader)).isEmpty();
+		assertThat(cache.find(555555, 5555550000000000000L, loader)).isEmpty();
+
+		assertThat(loads).containsExactly(555555);
+	}
+
+	@Test
+	void startsOverWhenGenerationAdvances() {
+		cache.find(411111, 4111111111111111111L, loader);
+		cache.find(555555, 5555555555554444000L, loader);
+
+		indexHolder.publish(BinRangeIndex.builder().build());
+		cache.find(411111, 4111111111111111111L, loader);
+		cache.find(555555, 5555555555554444000L, loader);
+
+		assertThat(loads).containsExactly(411111, 555555, 411111, 555555);
+	}
+
+	@Test
+	void publishesHitAndMissCounts() {
+		cache.find(411111, 4111111111111111111L, loader);
+		cache.find(411111, 4111111111111111111L, loader);
+		cache.find(411111, 4111115111111111111L, loader);
+		cache.find(555555, 5555555555554444000L, loader);
+
+		assertThat(gets("hit")).isEqualTo(2);
+		assertThat(gets("miss")).isEqualTo(2);
+	}
+
+	@Test
+	void isDisabledWithoutCapacity() {
+		assertThat(cache.isEnabled()).isTrue();
+		assertThat(new BinResultCache(indexHolder, new SimpleMeterRegistry(), 0, Duration.ofMinutes(10)).isEnabled()).isFalse();
+	}
+
+	private double gets(String result) {
+		return registry.get("cache.gets").tag("cache", "bin.results").tag("result", result).functionCounter().count();
+	}
+
+	private static BankEmitment range(long minRange, long maxRange, String bankName) {
+		return BankEmitment.builder()
+				.bin(411111)
+				.minRange(minRange)
+				.maxRange(maxRange)
+				.alphaCode("UKR")
+				.bankName(bankName)
+				.build();
+	}
+}
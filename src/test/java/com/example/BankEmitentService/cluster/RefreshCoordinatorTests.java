@@ -0,0 +1,205 @@
+package com.example.BankEmitentService.cluster;
+
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.repositories.CatalogGenerationRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGNotification;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshCoordinatorTests {
+
+	private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?)";
+	private static final String UNLOCK = "SELECT pg_advisory_unlock(?)";
+
+	private final HikariDataSource writerDataSource = mock(HikariDataSource.class);
+	private final CatalogGenerationRepository generations = mock(CatalogGenerationRepository.class);
+	private final BinRangeIndexHolder indexHolder = mock(BinRangeIndexHolder.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final Connection connection = mock(Connection.class);
+	private final ResultSet lockResult = mock(ResultSet.class);
+	private final AtomicInteger refreshes = new AtomicInteger();
+
+	private final Instant now = Instant.parse("2024-06-01T12:00:00Z");
+	private final CatalogGeneration recorded = new CatalogGeneration(3, now.minusSeconds(3600), "node-b", now.minusSeconds(3600));
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(writerDataSource.getConnection()).thenReturn(connection);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(lockResult);
+		when(lockResult.next()).thenReturn(true);
+		when(generations.databaseTime()).thenReturn(now);
+		when(generations.current()).thenReturn(recorded);
+	}
+
+	@Test
+	void runsRefreshLocallyWithoutCoordination() {
+		RefreshCoordinator coordinator = coordinator(false, 0);
+
+		assertThat(coordinator.runElected(() -> refreshes.incrementAndGet() > 0)).isTrue();
+		assertThat(coordinator.runElected(() -> refreshes.incrementAndGet() < 0)).isFalse();
+
+		assertThat(refreshes).hasValue(2);
+		verify(generations, never()).recordCheck();
+	}
+
+	@Test
+	void recordsRefreshOfElectedNode() throws SQLException {
+		when(lockResult.getBoolean(1)).thenReturn(true);
+
+		assertThat(coordinator(true, 1).runElected(this::succeed)).isTrue();
+
+		assertThat(refreshes).hasValue(1);
+		verify(generations).recordCheck();
+		verify(connection).prepareStatement(UNLOCK);
+	}
+
+	@Test
+	void leavesRoundOpenWhenRefreshFails() throws SQLException {
+		when(lockResult.getBoolean(1)).thenReturn(true);
+
+		assertThat(coordinator(true, 1).runElected(this::fail)).isFalse();
+
+		assertThat(refreshes).hasValue(1);
+		verify(generations, never()).recordCheck();
+		verify(connection).prepareStatement(UNLOCK);
+	}
+
+	@Test
+	void leavesRoundOpenWhenRefreshThrows() throws SQLException {
+		when(lockResult.getBoolean(1)).thenReturn(true);
+
+		assertThat(coordinator(true, 1).runElected(() -> {
+			throw new IllegalStateException("Staging table missing.");
+		})).isFalse();
+
+		verify(generations, never()).recordCheck();
+		verify(connection).prepareStatement(UNLOCK);
+	}
+
+	@Test
+	void skipsRoundCompletedWhileWaitingForLock() throws SQLException {
+		when(lockResult.getBoolean(1)).thenReturn(true);
+		when(generations.current()).thenReturn(new CatalogGeneration(3, now.minusSeconds(3600), "node-b", now.minusSeconds(10)));
+
+		assertThat(coordinator(true, 1).runElected(this::succeed)).isFalse();
+
+		assertThat(refreshes).hasValue(0);
+		verify(generations, never()).recordCheck();
+		verify(connection).prepareStatement(UNLOCK);
+	}
+
+	@Test
+	void followerStopsOnceLeaderHasCompletedRound() throws SQLException {
+		when(lockResult.getBoolean(1)).thenReturn(false);
+		when(generations.current()).thenReturn(recorded, new CatalogGeneration(4, now.plusSeconds(5), "node-b", now.plusSeconds(5)));
+
+		assertThat(coordinator(true, 60).runElected(this::succeed)).isFalse();
+
+		assertThat(refreshes).hasValue(0);
+		verify(connection, never()).prepareStatement(UNLOCK);
+	}
+
+	@Test
+	void followerTakesOverWhenLeaderReleasesLockWithoutCompleting() throws SQLException {
+		// The leader holds the lock on the first attempt, then fails or dies and the lock is released.
+		when(lockResult.getBoolean(1)).thenReturn(false, true, true);
+
+		assertThat(coordinator(true, 60).runElected(this::succeed)).isTrue();
+
+		assertThat(refreshes).hasValue(1);
+		verify(generations).recordCheck();
+		verify(connection, times(2)).prepareStatement(TRY_LOCK);
+	}
+
+	@Test
+	void followerGivesUpAfterWindow() throws SQLException {
+		when(lockResult.getBoolean(1)).thenReturn(false);
+
+		assertThat(coordinator(true, 0).runElected(this::succeed)).isFalse();
+
+		assertThat(refreshes).hasValue(0);
+		verify(connection, never()).prepareStatement(UNLOCK);
+	}
+
+	@Test
+	void catchesUpOnIndexOlderThanRecordedGeneration() {
+		when(indexHolder.publishedAt()).thenReturn(now.minusSeconds(7200).toEpochMilli());
+		RefreshCoordinator coordinator = coordinator(true, 0);
+
+		coordinator.catchUp();
+		coordinator.catchUp();
+
+		verify(eventPublisher).publishEvent(recorded);
+	}
+
+	@Test
+	void keepsIndexNewerThanRecordedGeneration() {
+		when(indexHolder.publishedAt()).thenReturn(now.toEpochMilli());
+		RefreshCoordinator coordinator = coordinator(true, 0);
+
+		coordinator.catchUp();
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+		CatalogGeneration newer = new CatalogGeneration(4, now.plusSeconds(60), "node-b", now.plusSeconds(60));
+		when(generations.current()).thenReturn(newer);
+		coordinator.catchUp();
+		verify(eventPublisher).publishEvent(newer);
+	}
+
+	@Test
+	void ignoresOwnAndAppliedGenerations() {
+		CatalogGeneration own = new CatalogGeneration(4, now, "node-a", now);
+		when(generations.recordLoad("node-a")).thenReturn(own);
+		RefreshCoordinator coordinator = coordinator(true, 0);
+
+		coordinator.generationLoaded();
+		coordinator.onNotifications(new PGNotification[]{notification("4:node-a"), notification("3:node-b")});
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+		CatalogGeneration newer = new CatalogGeneration(5, now.plusSeconds(60), "node-b", now.plusSeconds(60));
+		when(generations.current()).thenReturn(newer);
+		coordinator.onNotifications(new PGNotification[]{notification("5:node-b")});
+		verify(eventPublisher).publishEvent(newer);
+	}
+
+	private RefreshCoordinator coordinator(boolean enabled, long windowSeconds) {
+		return new RefreshCoordinator(writerDataSource, generations, indexHolder, eventPublisher,
+				enabled, "node-a", 0, 0, windowSeconds);
+	}
+
+	private boolean succeed() {
+		refreshes.incrementAndGet();
+		return true;
+	}
+
+	private boolean fail() {
+		refreshes.incrementAndGet();
+		return false;
+	}
+
+	private static PGNotification notification(String payload) {
+		PGNotification notification = mock(PGNotification.class);
+		when(notification.getParameter()).thenReturn(payload);
+		return notification;
+	}
+}
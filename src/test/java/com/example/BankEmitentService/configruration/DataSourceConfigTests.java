@@ -0,0 +1,77 @@
+package com.example.BankEmitentService.configruration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {DataSourceConfig.class, DataSourceConfigTests.Config.class})
+class DataSourceConfigTests {
+
+	@TestConfiguration
+	@EnableConfigurationProperties(DataSourceProperties.class)
+	static class Config {
+
+		@Bean
+		PlatformTransactionManager transactionManager(DataSource dataSource) {
+			return new DataSourceTransactionManager(dataSource);
+		}
+	}
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	@Qualifier("writerDataSource")
+	private HikariDataSource writerDataSource;
+
+	@Autowired
+	@Qualifier("lookupDataSource")
+	private HikariDataSource lookupDataSource;
+
+	@Test
+	void routesReadOnlyTransactionsToLookupPool() {
+		assertThat(poolInUse(true)).isEqualTo("lookup-pool");
+	}
+
+	@Test
+	void routesWritesToWriterPool() {
+		assertThat(poolInUse(false)).isEqualTo("writer-pool");
+	}
+
+	/**
+	 * Runs a statement in a transaction and returns the name of the pool its connection was checked out from.
+	 */
+	private String poolInUse(boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(readOnly);
+
+		return transaction.execute(status -> {
+			// The proxy only fetches a connection once a statement runs.
+			new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class);
+
+			return Stream.of(writerDataSource, lookupDataSource)
+					.filter(pool -> pool.getHikariPoolMXBean() != null && pool.getHikariPoolMXBean().getActiveConnections() > 0)
+					.map(HikariDataSource::getPoolName)
+					.collect(Collectors.joining(","));
+		});
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.BankEmitentService.controllers.api;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.repositories.BankEmitmentRepository;
+import com.example.BankEmitentService.services.BankSearchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * With {@code lookup.engine=database} answers come from the database even once a
+ * catalog is published, so they must not be cached by clients.
+ */
+@WebMvcTest(BankEmitmentController.class)
+@Import(LookupTestConfiguration.class)
+@TestPropertySource(properties = "lookup.engine=database")
+class BankEmitmentControllerDatabaseEngineTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BinRangeIndexHolder indexHolder;
+
+	@MockBean
+	private BankEmitmentRepository bankEmitmentRepository;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@MockBean
+	private BankSearchService bankSearchService;
+
+	@Test
+	void answersFromDatabaseWithoutValidator() throws Exception {
+		indexHolder.publish(BinRangeIndex.builder()
+				.add(411111, 4111110000000000000L, 4111119999999999999L, "UKR", "Index Bank")
+				.build());
+		when(bankEmitmentRepository.findAllByBin(411111)).thenReturn(List.of(BankEmitment.builder()
+				.bin(411111)
+				.minRange(4111110000000000000L)
+				.maxRange(4111119999999999999L)
+				.alphaCode("UKR")
+				.bankName("Database Bank")
+				.build()));
+
+		mockMvc.perform(get("/api/v1/bin/411111").header(HttpHeaders.IF_NONE_MATCH, indexHolder.currentGeneration().etag()))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG))
+				.andExpect(jsonPath("$.bankName").value("Database Bank"));
+
+		mockMvc.perform(get("/api/v1/bin/555555"))
+				.andExpect(status().isNotFound())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG));
+	}
+}
@@ -0,0 +1,192 @@
+package com.example.BankEmitentService.controllers.api;
+
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.repositories.BankEmitmentRepository;
+import com.example.BankEmitentService.services.BankSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+
+import static com.example.BankEmitentService.constants.Constants.BATCH_MAX_SIZE;
+import static com.example.BankEmitentService.constants.Constants.BIN_CACHE_MAX_AGE_SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(BankEmitmentController.class)
+@Import(LookupTestConfiguration.class)
+class BankEmitmentControllerTests {
+
+	private static final String NDJSON = "application/x-ndjson";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BinRangeIndexHolder indexHolder;
+
+	@MockBean
+	private BankEmitmentRepository bankEmitmentRepository;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@MockBean
+	private BankSearchService bankSearchService;
+
+	@BeforeEach
+	void publishCatalog() {
+		indexHolder.publish(BinRangeIndex.builder()
+				.add(411111, 4111110000000000000L, 4111119999999999999L, "UKR", "Privat\"Bank")
+				.add(520000, 5200000000000000000L, 5200009999999999999L, "POL", "PKO")
+				.build());
+	}
+
+	@Test
+	void streamsBatchOfJsonArrayInCardOrder() throws Exception {
+		String results = batch(post("/api/v1/cards/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[\"5200 0000 0000 0007\", \"4111-1111-1111-1111\", \"not a card\", \"5555555555554444\"]"));
+
+		// Invalid cards sort first, then cards by number; each line names its input position.
+		assertLines(results,
+				"{\"index\":2,\"error\":\"invalid card number\"}",
+				"{\"index\":1,\"found\":true,\"bin\":411111,\"alphaCode\":\"UKR\",\"bankName\":\"Privat\\\"Bank\"}",
+				"{\"index\":0,\"found\":true,\"bin\":520000,\"alphaCode\":\"POL\",\"bankName\":\"PKO\"}",
+				"{\"index\":3,\"found\":false}");
+	}
+
+	@Test
+	void streamsBatchOfNdjsonLines() throws Exception {
+		String results = batch(post("/api/v1/cards/batch")
+				.contentType(NDJSON)
+				.content("\"4111111111111111\"\n\n12\n5555555555554444\n"));
+
+		assertLines(results,
+				"{\"index\":1,\"error\":\"invalid card number\"}",
+				"{\"index\":0,\"found\":true,\"bin\":411111,\"alphaCode\":\"UKR\",\"bankName\":\"Privat\\\"Bank\"}",
+				"{\"index\":2,\"found\":false}");
+	}
+
+	@Test
+	void rejectsOversizedBatch() throws Exception {
+		String body = "[" + String.join(",", Collections.nCopies(BATCH_MAX_SIZE + 1, "\"4111111111111111\"")) + "]";
+
+		mockMvc.perform(post("/api/v1/cards/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string(STR."Batch must not contain more than \{BATCH_MAX_SIZE} card numbers."));
+	}
+
+	@Test
+	void rejectsMalformedBatch() throws Exception {
+		mockMvc.perform(post("/api/v1/cards/batch").contentType(MediaType.APPLICATION_JSON).content("{\"cards\": []}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string("Batch must be a JSON array of card numbers."));
+	}
+
+	@Test
+	void answersSingleCard() throws Exception {
+		mockMvc.perform(post("/api/v1/card").param("cardNumber", "4111 1111 1111 1111"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.bin").value(411111))
+				.andExpect(jsonPath("$.alphaCode").value("UKR"));
+
+		mockMvc.perform(post("/api/v1/card").param("cardNumber", "5555555555554444"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void rejectsMalformedSingleCardAsBadRequest() throws Exception {
+		mockMvc.perform(post("/api/v1/card").param("cardNumber", "4111 abcd"))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string("Invalid card number format."));
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchWithNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/api/v1/bin/411111"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=" + BIN_CACHE_MAX_AGE_SECONDS + ", public"))
+				.andExpect(jsonPath("$.bin").value(411111))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isEqualTo(indexHolder.currentGeneration().etag());
+
+		mockMvc.perform(get("/api/v1/bin/411111").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	void changesEtagWithCatalog() throws Exception {
+		String etag = mockMvc.perform(get("/api/v1/bin/411111"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		indexHolder.publish(BinRangeIndex.builder()
+				.add(411111, 4111110000000000000L, 4111119999999999999L, "UKR", "PrivatBank")
+				.build());
+
+		mockMvc.perform(get("/api/v1/bin/411111").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, indexHolder.currentGeneration().etag()))
+				.andExpect(jsonPath("$.bankName").value("PrivatBank"));
+		assertThat(indexHolder.currentGeneration().etag()).isNotEqualTo(etag);
+	}
+
+	@Test
+	void cachesNotFoundWithValidator() throws Exception {
+		String etag = indexHolder.currentGeneration().etag();
+
+		mockMvc.perform(get("/api/v1/bin/555555"))
+				.andExpect(status().isNotFound())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=" + BIN_CACHE_MAX_AGE_SECONDS + ", public"));
+
+		mockMvc.perform(get("/api/v1/bin/555555").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+	}
+
+	@Test
+	void rejectsMalformedPrefixWithoutValidator() throws Exception {
+		mockMvc.perform(get("/api/v1/bin/4111"))
+				.andExpect(status().isBadRequest())
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG));
+	}
+
+	/**
+	 * Performs a batch request and returns the streamed body once the async response has completed.
+	 */
+	private String batch(MockHttpServletRequestBuilder batchRequest) throws Exception {
+		MvcResult started = mockMvc.perform(batchRequest)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		return mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(NDJSON))
+				.andReturn().getResponse().getContentAsString();
+	}
+
+	private static void assertLines(String body, String... lines) {
+		assertThat(body.split("\n")).containsExactly(lines);
+	}
+}
@@ -0,0 +1,36 @@
+package com.example.BankEmitentService.controllers.api;
+
+import com.example.BankEmitentService.cache.BinResultCache;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.logging.LookupLogger;
+import com.example.BankEmitentService.metrics.LookupMetrics;
+import com.example.BankEmitentService.services.CardValidationService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The real lookup path of the controller for web layer tests. The repository and
+ * the transaction manager are left to the tests to mock.
+ */
+@TestConfiguration
+@Import({CardValidationService.class, BinRangeIndexHolder.class, BinResultCache.class, LookupMetrics.class, LookupLogger.class})
+class LookupTestConfiguration {
+
+	@Bean
+	SimpleMeterRegistry meterRegistry() {
+		return new SimpleMeterRegistry();
+	}
+
+	/**
+	 * Never started, only its pool size is read.
+	 */
+	@Bean
+	HikariDataSource lookupDataSource() {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setMaximumPoolSize(1);
+		return dataSource;
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.BankEmitentService.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BankSearchIndexTests {
+
+	private static final long BIN_FACTOR = 10_000_000_000_000L;
+
+	private final BinRangeIndex catalog = BinRangeIndex.builder()
+			.add(414949, 414949 * BIN_FACTOR, 414950 * BIN_FACTOR - 1, "UKR", "PrivatBank")
+			.add(516874, 516874 * BIN_FACTOR, 516875 * BIN_FACTOR - 1, "UKR", "PrivatBank")
+			.add(535145, 535145 * BIN_FACTOR, 535146 * BIN_FACTOR - 1, "UKR", "Raiffeisen Bank Aval")
+			.add(400552, 400552 * BIN_FACTOR, 400553 * BIN_FACTOR - 1, "AUT", "Raiffeisen Bank International")
+			.add(491731, 491731 * BIN_FACTOR, 491732 * BIN_FACTOR - 1, "DEU", "Deutsche Bank")
+			.add(520306, 520306 * BIN_FACTOR, 520307 * BIN_FACTOR - 1, "POL", "Bank Pekao")
+			.add(431940, 431940 * BIN_FACTOR, 431941 * BIN_FACTOR - 1, "FRA", "Société Générale")
+			.add(677189, 677189 * BIN_FACTOR, 677190 * BIN_FACTOR - 1, "UKR", "Ukrsibbank")
+			.build();
+
+	private final BankSearchIndex search = BankSearchIndex.of(catalog);
+
+	@Test
+	void findsRangesByBankNamePrefixIgnoringCase() {
+		assertThat(bins("privat")).containsExactly(414949, 516874);
+		assertThat(bins("RAIFF")).containsExactly(535145, 400552);
+	}
+
+	@Test
+	void requiresEveryWordToMatch() {
+		assertThat(bins("raiffeisen aval")).containsExactly(535145);
+		// Words match at their start only, so "PrivatBank" is not a match for "bank".
+		assertThat(bins("bank ukr")).containsExactly(535145);
+		assertThat(bins("deutsche pol")).isEmpty();
+	}
+
+	@Test
+	void findsRangesByAlphaCode() {
+		assertThat(bins("aut")).containsExactly(400552);
+		assertThat(bins("ukr")).containsExactly(414949, 516874, 535145, 677189);
+	}
+
+	@Test
+	void ignoresAccentsAndPunctuation() {
+		assertThat(bins("societe")).containsExactly(431940);
+		assertThat(bins("générale!")).containsExactly(431940);
+	}
+
+	@Test
+	void paginatesByBankNameThenRange() {
+		BankSearchIndex.Page first = search.search("bank", 0, 3);
+		BankSearchIndex.Page second = search.search("bank", 3, 3);
+		BankSearchIndex.Page beyond = search.search("bank", 30, 3);
+
+		assertThat(first.total()).isEqualTo(4);
+		assertThat(second.total()).isEqualTo(4);
+		assertThat(beyond.total()).isEqualTo(4);
+		assertThat(toBins(first)).containsExactly(520306, 491731, 535145);
+		assertThat(toBins(second)).containsExactly(400552);
+		assertThat(beyond.rows()).isEmpty();
+	}
+
+	@Test
+	void cutsPagesAcrossBanks() {
+		assertThat(toBins(search.search("ukr", 1, 2))).containsExactly(516874, 535145);
+		assertThat(toBins(search.search("ukr", 3, 2))).containsExactly(677189);
+	}
+
+	@Test
+	void suggestsBankNamesWithMostRangesFirst() {
+		assertThat(search.suggest("p", 10)).containsExactly("PrivatBank", "Bank Pekao");
+		assertThat(search.suggest("b", 10)).containsExactly("Bank Pekao", "Deutsche Bank",
+				"Raiffeisen Bank Aval", "Raiffeisen Bank International");
+		assertThat(search.suggest("raiffeisen b", 1)).containsExactly("Raiffeisen Bank Aval");
+		assertThat(search.suggest("ukr", 10)).containsExactly("Ukrsibbank");
+		assertThat(search.suggest("nothing", 10)).isEmpty();
+	}
+
+	@Test
+	void rejectsQueriesWithoutWords() {
+		assertThatThrownBy(() -> search.search(" -- ", 0, 10)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> search.suggest("", 10)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private List<Integer> bins(String query) {
+		return toBins(search.search(query, 0, 100));
+	}
+
+	private List<Integer> toBins(BankSearchIndex.Page page) {
+		List<Integer> bins = new ArrayList<>();
+		for (int row : page.rows())
+			bins.add(catalog.bin(row));
+		return bins;
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.BankEmitentService.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinPresenceFilterTests {
+
+	private static final long BIN_FACTOR = 10_000_000_000_000L;
+	private static final long PREFIX_FACTOR = 100_000_000_000L;
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 4, 10})
+	void neverRejectsCardsInTheCatalog(int bloomBits) {
+		BinRangeIndex index = catalog(5_000, 1);
+		BinPresenceFilter filter = BinPresenceFilter.of(index, bloomBits);
+
+		SplittableRandom random = new SplittableRandom(2);
+		for (int i = 0; i < index.size(); i++) {
+			long min = index.minRange(i);
+			long max = index.maxRange(i);
+			assertThat(filter.mightContain(min)).as("min of #%d", i).isTrue();
+			assertThat(filter.mightContain(max)).as("max of #%d", i).isTrue();
+			assertThat(filter.mightContain(random.nextLong(min, max + 1))).as("inside #%d", i).isTrue();
+		}
+	}
+
+	@Test
+	void rejectsUnknownBins() {
+		BinRangeIndex index = BinRangeIndex.builder()
+				.add(411111, 411111 * BIN_FACTOR, 411112 * BIN_FACTOR - 1, "USA", "Bank A")
+				.add(520000, 520000 * BIN_FACTOR + 5 * PREFIX_FACTOR, 520000 * BIN_FACTOR + 6 * PREFIX_FACTOR - 1, "POL", "Bank B")
+				.build();
+		BinPresenceFilter filter = BinPresenceFilter.of(index, 0);
+
+		assertThat(filter.checksPrefixes()).isFalse();
+		assertThat(filter.mightContain(411111 * BIN_FACTOR + 123)).isTrue();
+		assertThat(filter.mightContain(411110 * BIN_FACTOR + 123)).isFalse();
+		assertThat(filter.mightContain(411112 * BIN_FACTOR)).isFalse();
+		assertThat(filter.mightContain(899999 * BIN_FACTOR)).isFalse();
+		// Outside the covered prefixes, but within a known BIN.
+		assertThat(filter.mightContain(520000 * BIN_FACTOR)).isTrue();
+	}
+
+	@Test
+	void bloomStageRejectsMostGapsWithinKnownBins() {
+		BinRangeIndex index = catalog(5_000, 3);
+		BinPresenceFilter filter = BinPresenceFilter.of(index, 10);
+		assertThat(filter.checksPrefixes()).isTrue();
+
+		// Each catalog BIN only covers its 8-digit prefixes 00 to 09.
+		int probes = 0;
+		int passed = 0;
+		for (int i = 0; i < index.size(); i++) {
+			long bin = index.minRange(i) / BIN_FACTOR;
+			for (int prefix = 10; prefix < 100; prefix += 10) {
+				probes++;
+				if (filter.mightContain(bin * BIN_FACTOR + prefix * PREFIX_FACTOR))
+					passed++;
+			}
+		}
+		assertThat((double) passed / probes).isLessThan(0.03);
+	}
+
+	@Test
+	void exemptsBinsOfWideRangesFromBloomStage() {
+		BinRangeIndex.Builder builder = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 450000 * BIN_FACTOR - 1, "USA", "Wide Bank");
+		for (int bin = 520000; bin < 520100; bin++)
+			builder.add(bin, bin * BIN_FACTOR, bin * BIN_FACTOR + 10 * PREFIX_FACTOR - 1, "POL", "Bank " + bin);
+		BinPresenceFilter filter = BinPresenceFilter.of(builder.build(), 10);
+
+		assertThat(filter.checksPrefixes()).isTrue();
+		assertThat(filter.bloomExemptBins()).isEqualTo(50_000);
+		assertThat(filter.mightContain(400000 * BIN_FACTOR)).isTrue();
+		assertThat(filter.mightContain(423456 * BIN_FACTOR + 57 * PREFIX_FACTOR)).isTrue();
+		assertThat(filter.mightContain(449999 * BIN_FACTOR + 99 * PREFIX_FACTOR)).isTrue();
+		assertThat(filter.mightContain(450000 * BIN_FACTOR)).isFalse();
+
+		// The narrow ranges still go through the Bloom stage.
+		int passed = 0;
+		for (int bin = 520000; bin < 520100; bin++) {
+			assertThat(filter.mightContain(bin * BIN_FACTOR + 5 * PREFIX_FACTOR)).isTrue();
+			if (filter.mightContain(bin * BIN_FACTOR + 50 * PREFIX_FACTOR))
+				passed++;
+		}
+		assertThat(passed).isLessThan(10);
+	}
+
+	@Test
+	void fallsBackToBinsWithoutNarrowRanges() {
+		BinRangeIndex index = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 450000 * BIN_FACTOR - 1, "USA", "Wide Bank")
+				.build();
+		BinPresenceFilter filter = BinPresenceFilter.of(index, 10);
+
+		assertThat(filter.checksPrefixes()).isFalse();
+		assertThat(filter.bloomExemptBins()).isZero();
+		assertThat(filter.mightContain(449999 * BIN_FACTOR + 1)).isTrue();
+		assertThat(filter.mightContain(450000 * BIN_FACTOR)).isFalse();
+	}
+
+	/**
+	 * One range per BIN, covering the 8-digit prefixes 00 to 09 of a random BIN.
+	 */
+	private static BinRangeIndex catalog(int size, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		BinRangeIndex.Builder builder = BinRangeIndex.builder();
+		for (int i = 0; i < size; i++) {
+			int bin = random.nextInt(100_000, 900_000);
+			long start = bin * BIN_FACTOR;
+			builder.add(bin, start, start + 10 * PREFIX_FACTOR - 1, "UKR", "Bank " + i);
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,127 @@
+package com.example.BankEmitentService.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinRangeIndexTests {
+
+	private static final long BIN_FACTOR = 10_000_000_000_000L;
+
+	private record Row(int bin, long min, long max, String alphaCode, String bankName) {
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"4000000000000000000, 0",
+			"4000000000000000999, 0",
+			"4000000000000001000, -1",
+			"3999999999999999999, -1",
+			"4000000000000005000, 1",
+			"4000000000000005500, 2",
+			"4000000000000006000, 2",
+			"4000000000000006001, 1",
+			"4000000000000009999, 1",
+			"4000000000000010000, -1",
+			"9223372036854775807, -1",
+	})
+	void findsRangeAtBounds(long cardNumber, int expected) {
+		BinRangeIndex index = BinRangeIndex.builder()
+				.add(400000, 4000000000000005000L, 4000000000000009999L, "UKR", "Outer")
+				.add(400000, 4000000000000000000L, 4000000000000000999L, "UKR", "First")
+				.add(400000, 4000000000000005500L, 4000000000000006000L, "UKR", "Nested")
+				.build();
+
+		assertThat(index.indexOf(cardNumber)).isEqualTo(expected);
+	}
+
+	@Test
+	void findsNothingInEmptyIndex() {
+		BinRangeIndex index = BinRangeIndex.builder().build();
+
+		assertThat(index.size()).isZero();
+		assertThat(index.indexOf(4000000000000000000L)).isEqualTo(BinRangeLookup.NO_VALUE);
+	}
+
+	@Test
+	void matchesBruteForceOverOverlappingRanges() {
+		SplittableRandom random = new SplittableRandom(1);
+		List<Row> rows = new ArrayList<>();
+		BinRangeIndex.Builder builder = BinRangeIndex.builder();
+		for (int i = 0; i < 2_000; i++) {
+			int bin = 400_000 + random.nextInt(50);
+			long min = bin * BIN_FACTOR + random.nextLong(BIN_FACTOR);
+			// Mostly narrow ranges, with some wide ones overlapping many others and the odd duplicate.
+			long length = random.nextInt(10) == 0 ? random.nextLong(5 * BIN_FACTOR) : random.nextLong(BIN_FACTOR / 100);
+			Row row = random.nextInt(20) == 0 && !rows.isEmpty()
+					? rows.get(random.nextInt(rows.size()))
+					: new Row(bin, min, min + length, "A" + random.nextInt(5), "Bank " + random.nextInt(100));
+			rows.add(row);
+			builder.add(row.bin(), row.min(), row.max(), row.alphaCode(), row.bankName());
+		}
+		BinRangeIndex index = builder.build();
+
+		rows.sort(Comparator.comparingLong(Row::min).thenComparingLong(Row::max).thenComparingInt(Row::bin));
+		assertThat(index.size()).isEqualTo(rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertThat(index.minRange(i)).as("min #%d", i).isEqualTo(rows.get(i).min());
+			assertThat(index.maxRange(i)).as("max #%d", i).isEqualTo(rows.get(i).max());
+			assertThat(index.bin(i)).as("bin #%d", i).isEqualTo(rows.get(i).bin());
+		}
+
+		for (int probe = 0; probe < 20_000; probe++) {
+			Row row = rows.get(random.nextInt(rows.size()));
+			long cardNumber = switch (probe % 4) {
+				case 0 -> row.min();
+				case 1 -> row.max();
+				case 2 -> row.max() + 1;
+				default -> 400_000 * BIN_FACTOR + random.nextLong(55 * BIN_FACTOR);
+			};
+
+			int expected = bruteForce(index, cardNumber);
+			int found = index.indexOf(cardNumber);
+			assertThat(found).as("card %d", cardNumber).isEqualTo(expected);
+			if (found != BinRangeLookup.NO_VALUE) {
+				Row match = rows.get(found);
+				assertThat(index.alphaCode(found)).isEqualTo(match.alphaCode());
+				assertThat(index.bankName(found)).isEqualTo(match.bankName());
+			}
+		}
+	}
+
+	@Test
+	@Timeout(10)
+	void sortsDuplicatedRowsInLinearithmicTime() {
+		BinRangeIndex.Builder builder = BinRangeIndex.builder();
+		for (int i = 0; i < 200_000; i++) {
+			int bin = 400_000 + i % 3;
+			builder.add(bin, bin * BIN_FACTOR, bin * BIN_FACTOR + 999, "UKR", "Bank");
+		}
+		BinRangeIndex index = builder.build();
+
+		assertThat(index.size()).isEqualTo(200_000);
+		assertThat(index.bin(0)).isEqualTo(400_000);
+		assertThat(index.bin(199_999)).isEqualTo(400_002);
+		assertThat(index.indexOf(400_001 * BIN_FACTOR + 500)).isBetween(66_667, 133_333);
+	}
+
+	/**
+	 * @return The last position of a range containing the card number, the one the backward walk meets first.
+	 */
+	private static int bruteForce(BinRangeIndex index, long cardNumber) {
+		int found = BinRangeLookup.NO_VALUE;
+		for (int i = 0; i < index.size(); i++) {
+			if (index.minRange(i) <= cardNumber && cardNumber <= index.maxRange(i))
+				found = i;
+		}
+		return found;
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.BankEmitentService.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogDeltaTests {
+
+	private static final long BIN_FACTOR = 10_000_000_000_000L;
+
+	@Test
+	void findsInsertedUpdatedAndDeletedRows() {
+		BinRangeIndex previous = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.add(400001, 400001 * BIN_FACTOR, 400002 * BIN_FACTOR - 1, "UKR", "Bank B")
+				.add(400002, 400002 * BIN_FACTOR, 400003 * BIN_FACTOR - 1, "UKR", "Bank C")
+				.build();
+		BinRangeIndex next = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.add(400001, 400001 * BIN_FACTOR, 400002 * BIN_FACTOR - 1, "POL", "Bank B")
+				.add(400003, 400003 * BIN_FACTOR, 400004 * BIN_FACTOR - 1, "UKR", "Bank D")
+				.build();
+
+		CatalogDelta delta = CatalogDelta.between(previous, next);
+
+		assertThat(delta.deleted()).containsExactly(2);
+		assertThat(delta.updated()).containsExactly(1);
+		assertThat(delta.inserted()).containsExactly(2);
+	}
+
+	@Test
+	void replacesAllRowsOfADuplicatedKey() {
+		BinRangeIndex previous = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.build();
+		BinRangeIndex next = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.build();
+
+		CatalogDelta delta = CatalogDelta.between(previous, next);
+
+		// Deleting the surplus row by key would delete both, so the key is rewritten as a whole.
+		assertThat(delta.deleted()).containsExactly(0, 1);
+		assertThat(delta.inserted()).containsExactly(0);
+		assertThat(delta.updated()).isEmpty();
+	}
+
+	@Test
+	void keepsIdenticalDuplicates() {
+		BinRangeIndex previous = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.build();
+		BinRangeIndex next = BinRangeIndex.builder()
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.add(400000, 400000 * BIN_FACTOR, 400001 * BIN_FACTOR - 1, "UKR", "Bank A")
+				.build();
+
+		assertThat(CatalogDelta.between(previous, next).total()).isZero();
+	}
+}
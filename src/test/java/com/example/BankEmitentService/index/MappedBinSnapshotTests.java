@@ -0,0 +1,117 @@
+package com.example.BankEmitentService.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedBinSnapshotTests {
+
+	private static final long[] PROBES = {
+			3999999999999999999L, 4000000000000000000L, 4000000000000000999L, 4000000000000001000L,
+			4000000000000005000L, 4000000000000005750L, 4000000000000006001L, 4000000000000010000L,
+			5100000000000000000L, 5100000000000099999L, 5100000000000100000L, Long.MAX_VALUE
+	};
+
+	@TempDir
+	Path directory;
+
+	private final BinRangeIndex index = BinRangeIndex.builder()
+			.add(400000, 4000000000000005000L, 4000000000000009999L, "UKR", "Outer")
+			.add(400000, 4000000000000000000L, 4000000000000000999L, "UKR", "First")
+			.add(400000, 4000000000000005500L, 4000000000000006000L, "POL", "Nested")
+			.add(510000, 5100000000000000000L, 5100000000000099999L, "DEU", "Bank ü")
+			.build();
+
+	@Test
+	void roundTripsIndex() throws IOException {
+		Path path = directory.resolve("bins.snapshot");
+		MappedBinSnapshot.write(index, path);
+
+		MappedBinSnapshot snapshot = MappedBinSnapshot.open(path);
+
+		assertThat(snapshot.size()).isEqualTo(index.size());
+		assertThat(snapshot.dictionarySize()).isEqualTo(index.dictionarySize());
+		for (int id = 0; id < index.dictionarySize(); id++)
+			assertThat(snapshot.dictionaryEntry(id)).isEqualTo(index.dictionaryEntry(id));
+		for (int i = 0; i < index.size(); i++) {
+			assertThat(snapshot.minRange(i)).isEqualTo(index.minRange(i));
+			assertThat(snapshot.maxRange(i)).isEqualTo(index.maxRange(i));
+			assertThat(snapshot.maxReach(i)).isEqualTo(index.maxReach(i));
+			assertThat(snapshot.bin(i)).isEqualTo(index.bin(i));
+			assertThat(snapshot.alphaCode(i)).isEqualTo(index.alphaCode(i));
+			assertThat(snapshot.bankName(i)).isEqualTo(index.bankName(i));
+		}
+		for (long probe : PROBES)
+			assertThat(snapshot.indexOf(probe)).as("card %d", probe).isEqualTo(index.indexOf(probe));
+	}
+
+	@Test
+	void roundTripsEmptyIndex() throws IOException {
+		Path path = directory.resolve("empty.snapshot");
+		MappedBinSnapshot.write(BinRangeIndex.builder().build(), path);
+
+		MappedBinSnapshot snapshot = MappedBinSnapshot.open(path);
+
+		assertThat(snapshot.size()).isZero();
+		assertThat(snapshot.indexOf(4000000000000000000L)).isEqualTo(BinRangeLookup.NO_VALUE);
+	}
+
+	@Test
+	void rejectsTruncatedFile() throws IOException {
+		Path path = directory.resolve("bins.snapshot");
+		MappedBinSnapshot.write(index, path);
+		byte[] bytes = Files.readAllBytes(path);
+
+		// Every cut shorter than the file leaves either the columns or the dictionary incomplete.
+		for (int length = 0; length < bytes.length; length++) {
+			Files.write(path, Arrays.copyOf(bytes, length));
+			assertThatThrownBy(() -> MappedBinSnapshot.open(path))
+					.as("truncated to %d bytes", length)
+					.isInstanceOf(IOException.class);
+		}
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"0, 0",
+			"4, 2",
+			"8, -1",
+			"8, 1000000",
+			"12, -1",
+			"12, 1000",
+			"20, 0",
+			"20, 1000000",
+	})
+	void rejectsCorruptHeader(int position, int value) throws IOException {
+		Path path = directory.resolve("bins.snapshot");
+		MappedBinSnapshot.write(index, path);
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+		bytes.putInt(position, value);
+		Files.write(path, bytes.array());
+
+		assertThatThrownBy(() -> MappedBinSnapshot.open(path)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void rejectsDictionaryEntryLongerThanFile() throws IOException {
+		Path path = directory.resolve("bins.snapshot");
+		MappedBinSnapshot.write(index, path);
+		ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+		bytes.putInt((int) bytes.getLong(16), Integer.MAX_VALUE);
+		Files.write(path, bytes.array());
+
+		assertThatThrownBy(() -> MappedBinSnapshot.open(path))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("dictionary entry 0");
+	}
+}
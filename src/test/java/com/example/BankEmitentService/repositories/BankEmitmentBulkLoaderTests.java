@@ -0,0 +1,91 @@
+package com.example.BankEmitentService.repositories;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.utils.IoThreads;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BankEmitmentBulkLoaderTests {
+
+	private static final BankEmitment ROW = BankEmitment.builder()
+			.bin(411111)
+			.minRange(4111110000000000L)
+			.maxRange(4111119999999999L)
+			.alphaCode("UKR")
+			.bankName("PrivatBank")
+			.build();
+
+	@Test
+	void writesCopyRow() {
+		StringBuilder text = new StringBuilder();
+
+		BankEmitmentBulkLoader.appendCopyRow(text, ROW);
+
+		assertThat(text.toString()).isEqualTo("411111\t4111110000000000\t4111119999999999\tUKR\tPrivatBank\n");
+	}
+
+	@Test
+	void escapesCopyText() {
+		StringBuilder text = new StringBuilder();
+
+		BankEmitmentBulkLoader.appendCopyRow(text, BankEmitment.builder()
+				.bin(411111)
+				.minRange(1L)
+				.maxRange(2L)
+				.alphaCode("\\N")
+				.bankName("Tab\tLine\nReturn\rBackslash\\")
+				.build());
+
+		// A literal \N must not read back as null, so its backslash is escaped like any other.
+		assertThat(text.toString()).isEqualTo("411111\t1\t2\t\\\\N\tTab\\tLine\\nReturn\\rBackslash\\\\\n");
+	}
+
+	@Test
+	void writesNullsAsCopyNullMarker() {
+		StringBuilder text = new StringBuilder();
+
+		BankEmitmentBulkLoader.appendCopyRow(text, BankEmitment.builder().bin(411111).build());
+
+		assertThat(text.toString()).isEqualTo("411111\t\\N\t\\N\t\\N\t\\N\n");
+	}
+
+	@Test
+	@Timeout(10)
+	void reportsWriterFailureToFeederAndRollsBack() throws SQLException {
+		DataSource dataSource = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		PreparedStatement statement = mock(PreparedStatement.class);
+		SQLException diskFull = new SQLException("Disk full.");
+		when(dataSource.getConnection()).thenReturn(connection);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeBatch()).thenThrow(diskFull);
+
+		try (BankEmitmentBulkLoader.Session session = new BankEmitmentBulkLoader(dataSource, new IoThreads(false)).open("staging")) {
+			// The writers fail on their first batch; the feeder notices on one of the next chunks.
+			assertThatThrownBy(() -> {
+				while (true)
+					session.accept(List.of(ROW));
+			}).isInstanceOf(IllegalStateException.class).hasCauseInstanceOf(SQLException.class);
+
+			assertThatThrownBy(session::finish).isSameAs(diskFull);
+		}
+
+		verify(connection, atLeastOnce()).rollback();
+		verify(connection, never()).commit();
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.BankEmitentService.repositories;
+
+import com.example.BankEmitentService.index.BinRangeIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class BankEmitmentJdbcRepositoryTests {
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private JdbcTemplate jdbcTemplate;
+	private BankEmitmentJdbcRepository repository;
+
+	@BeforeEach
+	void createLegacyTable() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+		repository = new BankEmitmentJdbcRepository(jdbcTemplate);
+
+		jdbcTemplate.execute("DROP TABLE IF EXISTS bank_emitments, bank_emitments_staging");
+		// The structure Hibernate created while the range columns were mapped as strings.
+		jdbcTemplate.execute("""
+				CREATE TABLE bank_emitments (
+				    id serial PRIMARY KEY,
+				    bin integer NOT NULL,
+				    min_range varchar(255),
+				    max_range varchar(255),
+				    alpha_code varchar(255),
+				    bank_name varchar(255))
+				""");
+		jdbcTemplate.execute("CREATE TABLE bank_emitments_staging (LIKE bank_emitments INCLUDING ALL)");
+		jdbcTemplate.update("""
+				INSERT INTO bank_emitments (bin, min_range, max_range, alpha_code, bank_name) VALUES
+				    (411111, '4111110000000000000', '4111119999999999999', 'UKR', 'PrivatBank'),
+				    (411111, '4111115000000000000', '4111115999999999999', 'UKR', 'Nested'),
+				    (520000, '', '5200009999999999999', 'POL', 'Blank'),
+				    (530000, 'n/a', '5300009999999999999', 'DEU', 'Text'),
+				    (540000, '5400000000000000000', '9999999999999999999', 'FRA', 'Overflow')
+				""");
+	}
+
+	@Test
+	void migratesRangeColumnsToBigint() {
+		assertThat(repository.migrateRangeColumns()).isTrue();
+
+		assertThat(jdbcTemplate.queryForList(
+				"SELECT data_type FROM information_schema.columns WHERE table_name = 'bank_emitments' AND column_name IN ('min_range', 'max_range')",
+				String.class)).containsExactly("bigint", "bigint");
+		assertThat(jdbcTemplate.queryForList("SELECT min_range FROM bank_emitments ORDER BY id", Long.class))
+				.containsExactly(4111110000000000000L, 4111115000000000000L, null, null, 5400000000000000000L);
+		assertThat(jdbcTemplate.queryForList("SELECT max_range FROM bank_emitments ORDER BY id", Long.class))
+				.containsExactly(4111119999999999999L, 4111115999999999999L, 5200009999999999999L, 5300009999999999999L, null);
+		assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = 'bank_emitments'", String.class))
+				.contains("idx_bank_emitments_bin_range");
+		assertThat(jdbcTemplate.queryForList("SELECT tablename FROM pg_tables WHERE tablename = 'bank_emitments_staging'", String.class))
+				.isEmpty();
+
+		assertThat(repository.migrateRangeColumns()).isFalse();
+	}
+
+	@Test
+	void doesNothingWithoutTable() {
+		jdbcTemplate.execute("DROP TABLE bank_emitments");
+
+		assertThat(repository.migrateRangeColumns()).isFalse();
+	}
+
+	@Test
+	void comparesMigratedRangesNumerically() {
+		repository.migrateRangeColumns();
+
+		List<String> matches = jdbcTemplate.queryForList(
+				"SELECT bank_name FROM bank_emitments WHERE bin = ? AND min_range <= ? AND max_range >= ? ORDER BY min_range DESC",
+				String.class, 411111, 4111115500000000000L, 4111115500000000000L);
+		assertThat(matches).containsExactly("Nested", "PrivatBank");
+
+		BinRangeIndex.Builder builder = repository.loadIndexForUpdate();
+		assertThat(builder.size()).isEqualTo(2);
+		assertThat(builder.rejected()).isEqualTo(3);
+
+		BinRangeIndex index = builder.build();
+		assertThat(index.bankName(index.indexOf(4111115500000000000L))).isEqualTo("Nested");
+		assertThat(index.bankName(index.indexOf(4111119000000000000L))).isEqualTo("PrivatBank");
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.BankEmitentService.services;
+
+import com.example.BankEmitentService.cluster.CatalogGeneration;
+import com.example.BankEmitentService.cluster.RefreshCoordinator;
+import com.example.BankEmitentService.index.BinRangeIndex;
+import com.example.BankEmitentService.index.BinRangeIndexHolder;
+import com.example.BankEmitentService.metrics.RefreshMetrics;
+import com.example.BankEmitentService.repositories.BankEmitmentBulkLoader;
+import com.example.BankEmitentService.repositories.BankEmitmentJdbcRepository;
+import com.example.BankEmitentService.utils.CatalogSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BankEmitmentDataUpdaterTests {
+
+	private final BankEmitmentJdbcRepository jdbcRepository = mock(BankEmitmentJdbcRepository.class);
+	private final BinRangeIndexHolder indexHolder = new BinRangeIndexHolder();
+	private final CatalogGeneration announced = new CatalogGeneration(4, Instant.parse("2024-06-01T12:00:00Z"), "node-b",
+			Instant.parse("2024-06-01T12:00:00Z"));
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void reloadsAnnouncedGenerationThroughWriterPool() {
+		when(jdbcRepository.loadIndexForUpdate()).thenReturn(BinRangeIndex.builder()
+				.add(411111, 4111110000000000000L, 4111119999999999999L, "UKR", "PrivatBank"));
+
+		updater().reloadIndex(announced);
+
+		verify(jdbcRepository).loadIndexForUpdate();
+		verify(jdbcRepository, never()).loadIndex();
+		assertThat(indexHolder.current().size()).isEqualTo(1);
+		assertThat(indexHolder.current().bankName(0)).isEqualTo("PrivatBank");
+		assertThat(folder.resolve("bininfo.snap")).exists();
+	}
+
+	@Test
+	void keepsCurrentIndexWhenAnnouncedGenerationIsEmpty() {
+		indexHolder.publish(BinRangeIndex.builder()
+				.add(520000, 5200000000000000000L, 5200009999999999999L, "POL", "PKO")
+				.build());
+		long generation = indexHolder.generation();
+		when(jdbcRepository.loadIndexForUpdate()).thenReturn(BinRangeIndex.builder());
+
+		updater().reloadIndex(announced);
+
+		assertThat(indexHolder.generation()).isEqualTo(generation);
+		assertThat(indexHolder.current().bankName(0)).isEqualTo("PKO");
+	}
+
+	private BankEmitmentDataUpdater updater() {
+		return new BankEmitmentDataUpdater(jdbcRepository, mock(BankEmitmentBulkLoader.class), indexHolder,
+				mock(CatalogPipeline.class), new RefreshMetrics(new SimpleMeterRegistry(), indexHolder),
+				mock(RefreshCoordinator.class), new CatalogSettings("http://127.0.0.1/bininfo.json.zip", folder.toString(),
+						"ZipDownload", "ZipOutput", "bininfo.json.zip", "bininfo.json", "bininfo.snap", "catalog.state", "full"));
+	}
+}
@@ -0,0 +1,134 @@
+package com.example.BankEmitentService.services;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import com.example.BankEmitentService.utils.CatalogDownload;
+import com.example.BankEmitentService.utils.CatalogState;
+import com.example.BankEmitentService.utils.IoThreads;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class CatalogPipelineTests {
+
+	private static final int RECORDS = 3;
+
+	/**
+	 * Far more than the 64 buffers of 64 KB the download stage can queue ahead of the parser.
+	 */
+	private static final int TRAILING_BYTES = 8 * 1024 * 1024;
+
+	private final CatalogPipeline pipeline = new CatalogPipeline(new IoThreads(false));
+	private HttpServer server;
+	private byte[] archive;
+	private String catalogUrl;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/bininfo.json.zip", exchange -> {
+			exchange.sendResponseHeaders(200, archive.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(archive);
+			}
+		});
+		server.start();
+		catalogUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/bininfo.json.zip";
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void drainsEntriesAfterTheCatalog() throws Exception {
+		archive = zip(catalog(), "readme.txt", noise(TRAILING_BYTES), "notes.txt", "done".getBytes(StandardCharsets.UTF_8));
+
+		assertStreamsWholeArchive();
+	}
+
+	@Test
+	void drainsDataAfterTheArchive() throws Exception {
+		ByteArrayOutputStream padded = new ByteArrayOutputStream();
+		padded.write(zip(catalog()));
+		padded.write(noise(TRAILING_BYTES));
+		archive = padded.toByteArray();
+
+		assertStreamsWholeArchive();
+	}
+
+	private void assertStreamsWholeArchive() throws Exception {
+		List<BankEmitment> records = new ArrayList<>();
+		try (CatalogPipeline.Run run = pipeline.open(catalogUrl, CatalogState.EMPTY)) {
+			int parsed = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> run.stream(records::addAll));
+
+			assertThat(parsed).isEqualTo(RECORDS);
+			assertThat(records).extracting(BankEmitment::getBin).containsExactly(400000, 400001, 400002);
+
+			CatalogDownload download = run.download();
+			assertThat(download.status()).isEqualTo(CatalogDownload.Status.DOWNLOADED);
+			assertThat(download.bytes()).isEqualTo(archive.length);
+			assertThat(download.state().sha256())
+					.isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(archive)));
+		}
+	}
+
+	private static byte[] catalog() {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < RECORDS; i++) {
+			if (i > 0)
+				json.append(',');
+			long min = (400000L + i) * 10_000_000_000_000L;
+			json.append("{\"bin\":").append(400000 + i)
+					.append(",\"min_range\":\"").append(min)
+					.append("\",\"max_range\":\"").append(min + 9_999_999_999_999L)
+					.append("\",\"alpha_code\":\"UKR\",\"bank_name\":\"Bank ").append(i).append("\"}");
+		}
+		return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Zips the catalog as bininfo.json, followed by the given name and content pairs.
+	 */
+	private static byte[] zip(byte[] catalog, Object... moreEntries) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("bininfo.json"));
+			zip.write(catalog);
+			zip.closeEntry();
+			for (int i = 0; i < moreEntries.length; i += 2) {
+				zip.putNextEntry(new ZipEntry((String) moreEntries[i]));
+				zip.write((byte[]) moreEntries[i + 1]);
+				zip.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Random bytes, which do not compress.
+	 */
+	private static byte[] noise(int size) {
+		byte[] bytes = new byte[size];
+		new Random(7).nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,167 @@
+package com.example.BankEmitentService.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardNumberParserTests {
+
+	@ParameterizedTest
+	@CsvSource({
+			// Separators
+			"4111111111111111,        4111111111111111000",
+			"4111 1111 1111 1111,     4111111111111111000",
+			"4111-1111-1111-1111,     4111111111111111000",
+			"' 4111 - 1111 1111-1111 ', 4111111111111111000",
+			"4111.1111.1111.1111,     -1",
+			"4111/1111/1111/1111,     -1",
+			"4111111111111111a,       -1",
+			"'',                      -1",
+			// Masked digits count as zeros
+			"411111******1111,        4111110000001111000",
+			"4111 11** **** 1111,     4111110000001111000",
+			"****************,        0",
+			// 12 to 19 digits, right-padded to 19
+			"41111111111,             -1",
+			"411111111111,            4111111111110000000",
+			"4111111111111,           4111111111111000000",
+			"411111111111111,         4111111111111110000",
+			"4111111111111111111,     4111111111111111111",
+			"41111111111111111111,    -1",
+			// Overflow of the 19-digit value
+			"9223372036854775807,     9223372036854775807",
+			"9223372036854775808,     -1",
+			"9999999999999999999,     -1",
+			"999999999999,            -1",
+			"922337203685,            9223372036850000000",
+	})
+	void normalizesCardNumbers(String cardNumber, long expected) {
+		assertThat(CardNumberParser.normalize(cardNumber)).isEqualTo(expected);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			// Valid and invalid check digits for odd and even lengths
+			"411111111117,            4111111111170000000",
+			"411111111118,            -1",
+			"4222222222222,           4222222222222000000",
+			"4222222222223,           -1",
+			"41111111111114,          4111111111111400000",
+			"41111111111115,          -1",
+			"545454545454549,         5454545454545490000",
+			"545454545454540,         -1",
+			"4111 1111 1111 1111,     4111111111111111000",
+			"4111111111111112,        -1",
+			"4111111111111111110,     4111111111111111110",
+			"4111111111111111111,     -1",
+			// Masked numbers cannot be checked
+			"411111******1112,        4111110000001112000",
+	})
+	void checksLuhnDigitOfUnmaskedNumbers(String cardNumber, long expected) {
+		assertThat(CardNumberParser.normalize(cardNumber, true)).isEqualTo(expected);
+	}
+
+	@Test
+	void rejectsNull() {
+		assertThat(CardNumberParser.normalize(null)).isEqualTo(CardNumberParser.INVALID);
+		assertThat(CardNumberParser.normalize(null, true)).isEqualTo(CardNumberParser.INVALID);
+		assertThat(CardNumberParser.normalizePrefix(null)).isEqualTo(CardNumberParser.INVALID);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"414949,                  4149490000000000000",
+			"41494912,                4149491200000000000",
+			"4149491234567890123,     4149491234567890123",
+			"41494,                   -1",
+			"41494912345678901234,    -1",
+			"4149 49,                 -1",
+			"414-949,                 -1",
+			"4149**,                  -1",
+			"'',                      -1",
+			"922337,                  9223370000000000000",
+			"922338,                  -1",
+			"9223372036854775808,     -1",
+	})
+	void normalizesPrefixesOfPlainDigits(String prefix, long expected) {
+		assertThat(CardNumberParser.normalizePrefix(prefix)).isEqualTo(expected);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"4111111111111111,        411111******1111",
+			"4111 1111 1111 1111,     411111******1111",
+			"4111111111111111111,     411111*********1111",
+			"41111111111,             411111*1111",
+			"4111111111,              **********",
+			"1234,                    ****",
+			"'',                      <none>",
+	})
+	void masksAllButFirstSixAndLastFourDigits(String cardNumber, String expected) {
+		assertThat(CardNumberParser.mask(cardNumber)).isEqualTo(expected);
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"411111******1111,        411111******1111",
+			"4111 11** **** 1111,     411111******1111",
+			"****************,        ****************",
+			"******1111111111111111,  ******************1111",
+			"4111111111111111****,    411111**************",
+			"'4111-1111 1111/1111',   411111******1111",
+			"'4 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1', 411111******1111",
+			"4111111111111111111111111, 411111***************1111",
+	})
+	void masksCardNumbersWithSeparatorsAndMaskedDigits(String cardNumber, String expected) {
+		String masked = CardNumberParser.mask(cardNumber);
+
+		assertThat(masked).isEqualTo(expected);
+		assertThat(revealsOnlyFirstSixAndLastFour(cardNumber, masked)).isTrue();
+	}
+
+	@Test
+	void neverRevealsMoreThanFirstSixAndLastFourDigits() {
+		String alphabet = "0123456789* -/";
+		SplittableRandom random = new SplittableRandom(11);
+		for (int i = 0; i < 10_000; i++) {
+			StringBuilder cardNumber = new StringBuilder();
+			int length = random.nextInt(30);
+			for (int j = 0; j < length; j++)
+				cardNumber.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+			String masked = CardNumberParser.mask(cardNumber);
+
+			assertThat(revealsOnlyFirstSixAndLastFour(cardNumber.toString(), masked))
+					.as("%s masked as %s", cardNumber, masked)
+					.isTrue();
+		}
+	}
+
+	@Test
+	void extractsBin() {
+		assertThat(CardNumberParser.bin(4111110000001111000L)).isEqualTo(411111);
+		assertThat(CardNumberParser.bin(CardNumberParser.normalize("5454 5454 5454 5454"))).isEqualTo(545454);
+	}
+
+	/**
+	 * Checks that the digits left in the masked number are some of the first six
+	 * digits of the input followed by some of its last four.
+	 */
+	private static boolean revealsOnlyFirstSixAndLastFour(String cardNumber, String masked) {
+		String digits = cardNumber.replaceAll("[^0-9]", "");
+		String revealed = masked.replaceAll("[^0-9]", "");
+		for (int first = 0; first <= Math.min(6, revealed.length()); first++) {
+			int last = revealed.length() - first;
+			if (last <= 4
+					&& digits.startsWith(revealed.substring(0, first))
+					&& digits.endsWith(revealed.substring(first))
+					&& (first == 0 || last == 0 || digits.length() >= first + last))
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,138 @@
+package com.example.BankEmitentService.utils;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelCatalogParserTests {
+
+	private static final String[] TRICKY_NAMES = {
+			"Plain Bank",
+			"Bank, with commas, inside",
+			"Bank {with} [brackets]",
+			"Bank \\\"Quoted\\\" \\\\ escaped",
+			"Банк Ünïcödé 银行",
+			"Ends with backslash \\\\",
+	};
+
+	@TempDir
+	Path dir;
+
+	@ParameterizedTest
+	@CsvSource({"1, 1", "2, 3", "4, 8", "8, 64"})
+	void matchesSequentialParser(int parallelism, int chunks) throws IOException {
+		String json = catalog(500);
+		Path file = write(json);
+
+		List<BankEmitment> expected = new ArrayList<>();
+		ParseUtils.jsonStreamParser(new StringReader(json), 100, expected::addAll);
+
+		ParallelCatalogParser.ParsedCatalog parsed = ParallelCatalogParser.parse(file, parallelism, chunks);
+
+		assertThat(parsed.size()).isEqualTo(expected.size());
+		for (int i = 0; i < expected.size(); i++) {
+			BankEmitment want = expected.get(i);
+			BankEmitment got = parsed.get(i);
+			assertThat(got.getBin()).as("bin #%d", i).isEqualTo(want.getBin());
+			assertThat(got.getMinRange()).as("min_range #%d", i).isEqualTo(want.getMinRange());
+			assertThat(got.getMaxRange()).as("max_range #%d", i).isEqualTo(want.getMaxRange());
+			assertThat(got.getAlphaCode()).as("alpha_code #%d", i).isEqualTo(want.getAlphaCode());
+			assertThat(got.getBankName()).as("bank_name #%d", i).isEqualTo(want.getBankName());
+		}
+	}
+
+	@Test
+	void feedsRecordsInFileOrderAndChunks() throws IOException {
+		Path file = write(catalog(25));
+		List<Integer> chunkSizes = new ArrayList<>();
+		List<Integer> bins = new ArrayList<>();
+
+		int count = ParallelCatalogParser.parse(file, 4, 7).feed(10, chunk -> {
+			chunkSizes.add(chunk.size());
+			chunk.forEach(emitment -> bins.add(emitment.getBin()));
+		});
+
+		assertThat(count).isEqualTo(25);
+		assertThat(chunkSizes).containsExactly(10, 10, 5);
+		assertThat(bins).isSorted().hasSize(25);
+	}
+
+	@Test
+	void parsesNameEndingWithEscapedBackslash() throws IOException {
+		Path file = write("[{\"bin\": 400000, \"bank_name\": \"Bank \\\\\"}, {\"bin\": 400001, \"bank_name\": \"\\\\\"}]");
+
+		ParallelCatalogParser.ParsedCatalog parsed = ParallelCatalogParser.parse(file, 2, 4);
+
+		assertThat(parsed.size()).isEqualTo(2);
+		assertThat(parsed.get(0).getBankName()).isEqualTo("Bank \\");
+		assertThat(parsed.get(1).getBankName()).isEqualTo("\\");
+	}
+
+	@Test
+	void parsesEmptyArray() throws IOException {
+		assertThat(ParallelCatalogParser.parse(write("  [ ]\n"), 4, 8).size()).isZero();
+	}
+
+	@Test
+	void rejectsNonArray() throws IOException {
+		Path file = write("{\"bin\": 400000}");
+
+		assertThatThrownBy(() -> ParallelCatalogParser.parse(file, 2, 4)).isInstanceOf(IOException.class);
+		assertThat(ParseUtils.jsonFileParallelParser(file.toString(), 2, 10, chunk -> {})).isEqualTo(-1);
+	}
+
+	@Test
+	void rejectsTruncatedArray() throws IOException {
+		String json = catalog(10);
+		Path file = write(json.substring(0, json.length() / 2));
+
+		assertThatThrownBy(() -> ParallelCatalogParser.parse(file, 2, 4)).isInstanceOf(IOException.class);
+	}
+
+	private Path write(String json) throws IOException {
+		return Files.writeString(dir.resolve("bininfo.json"), json, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Builds a catalog mixing numeric and string ranges, nulls, unparsable ranges
+	 * and bank names full of JSON punctuation.
+	 */
+	private static String catalog(int size) {
+		StringBuilder json = new StringBuilder("[\n");
+		for (int i = 0; i < size; i++) {
+			if (i > 0)
+				json.append(",\n");
+
+			long min = 4000000000000000L + i * 1000L;
+			String minRange = switch (i % 4) {
+				case 0 -> Long.toString(min);
+				case 1 -> "\"" + min + "\"";
+				case 2 -> "null";
+				default -> "\"n/a\"";
+			};
+			String bankName = i % 7 == 6 ? "null" : "\"" + i + " " + TRICKY_NAMES[i % TRICKY_NAMES.length] + "\"";
+			String alphaCode = i % 5 == 4 ? "null" : "\"" + (i % 2 == 0 ? "RUS" : "U,A") + "\"";
+
+			json.append("  {\"bin\": ").append(400000 + i)
+			    .append(", \"min_range\": ").append(minRange)
+			    .append(", \"max_range\": \"").append(min + 999).append('"')
+			    .append(", \"alpha_code\": ").append(alphaCode)
+			    .append(", \"bank_name\": ").append(bankName)
+			    .append('}');
+		}
+		return json.append("\n]\n").toString();
+	}
+}
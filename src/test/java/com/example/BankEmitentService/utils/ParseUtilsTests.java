@@ -0,0 +1,98 @@
+package com.example.BankEmitentService.utils;
+
+import com.example.BankEmitentService.entity.BankEmitment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParseUtilsTests {
+
+	private static final String CATALOG = """
+			[{"bin": 411111, "min_range": "4111110000000000", "max_range": 4111119999999999, "alpha_code": "UKR", "bank_name": "A"},
+			 {"bin": 522222, "min_range": null, "max_range": "n/a", "alpha_code": "POL", "bank_name": "B"},
+			 {"bin": 533333, "min_range": 5333330000000000, "max_range": 5333339999999999, "alpha_code": "DEU", "bank_name": "C"}]
+			""";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsJsonArrayOfCardNumbers() throws IOException {
+		List<String> cards = new ArrayList<>();
+
+		int count = ParseUtils.readCardNumbers(new StringReader("[\"4111 1111\", \"5222\"]"), false, 10, cards::add);
+
+		assertThat(count).isEqualTo(2);
+		assertThat(cards).containsExactly("4111 1111", "5222");
+	}
+
+	@Test
+	void readsNdjsonLines() throws IOException {
+		List<String> cards = new ArrayList<>();
+
+		int count = ParseUtils.readCardNumbers(new StringReader("\"4111\"\n\n5222\n"), true, 10, cards::add);
+
+		assertThat(count).isEqualTo(2);
+		assertThat(cards).containsExactly("4111", "5222");
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"", "not json", "{}", "[{}]", "[[\"4111\"]]", "[\"4111\"", "[\"4111\" \"5222\"]", "[4111,"})
+	void rejectsMalformedJsonAsInvalidArgument(String body) {
+		assertThatThrownBy(() -> ParseUtils.readCardNumbers(new StringReader(body), false, 10, card -> { }))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rejectsOversizedBatch() {
+		assertThatThrownBy(() -> ParseUtils.readCardNumbers(new StringReader("[\"1\",\"2\",\"3\"]"), false, 2, card -> { }))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void streamsCatalogInChunks() throws IOException {
+		List<List<BankEmitment>> chunks = new ArrayList<>();
+
+		int count = ParseUtils.jsonFileStreamParser(catalog(CATALOG), 2, chunks::add);
+
+		assertThat(count).isEqualTo(3);
+		assertThat(chunks.stream().map(List::size).toList()).containsExactly(2, 1);
+		assertThat(chunks.get(0).get(0).getMinRange()).isEqualTo(4111110000000000L);
+		assertThat(chunks.get(0).get(1).getMinRange()).isNull();
+		assertThat(chunks.get(0).get(1).getMaxRange()).isNull();
+		assertThat(chunks.get(1).get(0).getBankName()).isEqualTo("C");
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"", "{}", "[1]", "[[]]", "[{\"bin\": \"x\"}]", "[{\"bin\": 1}"})
+	void reportsMalformedCatalogAsParseFailure(String json) throws IOException {
+		assertThat(ParseUtils.jsonFileStreamParser(catalog(json), 2, chunk -> { })).isEqualTo(-1);
+	}
+
+	@Test
+	void passesConsumerFailureToCaller() throws IOException {
+		String path = catalog(CATALOG);
+		IllegalStateException failure = new IllegalStateException("Bulk load aborted: a writer failed.");
+
+		assertThatThrownBy(() -> ParseUtils.jsonFileStreamParser(path, 2, chunk -> {
+			throw failure;
+		})).isSameAs(failure);
+	}
+
+	private String catalog(String json) throws IOException {
+		Path path = directory.resolve("catalog.json");
+		Files.writeString(path, json);
+		return path.toString();
+	}
+}
@@ -0,0 +1,271 @@
+package com.example.BankEmitentService.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ZipFileUtilsTests {
+
+	private static final byte[] ARCHIVE = "catalog-archive".getBytes(StandardCharsets.UTF_8);
+	private static final String ETAG = "\"v1\"";
+	private static final byte[] LARGE_ARCHIVE = new byte[256 * 1024];
+	private static final String LARGE_ETAG;
+	private static final DownloadSettings FAST_RETRIES = new DownloadSettings(1000, 300, 4, 10, 50);
+
+	static {
+		new Random(42).nextBytes(LARGE_ARCHIVE);
+		try {
+			LARGE_ETAG = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(LARGE_ARCHIVE)) + "\"";
+		} catch (Exception e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * A fault the stub injects into one response of the large archive.
+	 */
+	private enum Fault {
+		UNAVAILABLE, NOT_FOUND, DROP_HALFWAY, STALL, CORRUPT
+	}
+
+	@TempDir
+	Path downloadDir;
+
+	private HttpServer server;
+	private ExecutorService serverExecutor;
+	private final AtomicInteger fullResponses = new AtomicInteger();
+	private final Deque<Fault> faults = new ArrayDeque<>();
+	private final List<String> rangeRequests = new CopyOnWriteArrayList<>();
+	private final AtomicInteger largeRequests = new AtomicInteger();
+	private String catalogUrl;
+	private String largeCatalogUrl;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/bininfo.json.zip", exchange -> {
+			if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+			fullResponses.incrementAndGet();
+			exchange.getResponseHeaders().add("ETag", ETAG);
+			exchange.sendResponseHeaders(200, ARCHIVE.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(ARCHIVE);
+			}
+		});
+		server.createContext("/large/bininfo.json.zip", this::serveLargeArchive);
+		serverExecutor = Executors.newCachedThreadPool();
+		server.setExecutor(serverExecutor);
+		server.start();
+		catalogUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/bininfo.json.zip";
+		largeCatalogUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/large/bininfo.json.zip";
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	/**
+	 * Serves the large archive with Range support, injecting the next queued fault.
+	 */
+	private void serveLargeArchive(HttpExchange exchange) throws IOException {
+		largeRequests.incrementAndGet();
+		Fault fault;
+		synchronized (faults) {
+			fault = faults.poll();
+		}
+
+		try (exchange) {
+			if (fault == Fault.UNAVAILABLE || fault == Fault.NOT_FOUND) {
+				exchange.sendResponseHeaders(fault == Fault.UNAVAILABLE ? 503 : 404, -1);
+				return;
+			}
+
+			String range = exchange.getRequestHeaders().getFirst("Range");
+			int offset = 0;
+			if (range != null && LARGE_ETAG.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+				rangeRequests.add(range);
+				offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+				exchange.getResponseHeaders().add("Content-Range", "bytes " + offset + "-" + (LARGE_ARCHIVE.length - 1) + "/" + LARGE_ARCHIVE.length);
+			}
+			byte[] body = Arrays.copyOfRange(LARGE_ARCHIVE, offset, LARGE_ARCHIVE.length);
+			if (fault == Fault.CORRUPT)
+				body[body.length / 2] ^= 1;
+
+			exchange.getResponseHeaders().add("ETag", LARGE_ETAG);
+			exchange.sendResponseHeaders(offset > 0 ? 206 : 200, body.length);
+			OutputStream output = exchange.getResponseBody();
+			switch (fault) {
+				case DROP_HALFWAY -> {
+					output.write(body, 0, body.length / 2);
+					output.flush();
+				}
+				case STALL -> {
+					output.write(body, 0, body.length / 4);
+					output.flush();
+					Thread.sleep(2_000);
+					output.write(body, body.length / 4, body.length - body.length / 4);
+				}
+				case null, default -> output.write(body);
+			}
+		} catch (IOException | InterruptedException e) {
+			// The fault closed the connection or the client gave up on it.
+		}
+	}
+
+	@Test
+	void downloadsNewCatalogAndRecordsValidators() throws Exception {
+		CatalogDownload download = ZipFileUtils.downloadZipFile(catalogUrl, downloadDir.toString());
+
+		assertThat(download.status()).isEqualTo(CatalogDownload.Status.DOWNLOADED);
+		assertThat(download.bytes()).isEqualTo(ARCHIVE.length);
+		assertThat(download.state().etag()).isEqualTo(ETAG);
+		assertThat(download.state().sha256()).hasSize(64);
+		assertThat(downloadDir.resolve("bininfo.json.zip")).hasBinaryContent(ARCHIVE);
+	}
+
+	@Test
+	void skipsWhenServerReportsNotModified() throws Exception {
+		CatalogState applied = ZipFileUtils.downloadZipFile(catalogUrl, downloadDir.toString()).state();
+
+		CatalogDownload download = ZipFileUtils.downloadZipFile(catalogUrl, downloadDir.toString(), applied);
+
+		assertThat(download.status()).isEqualTo(CatalogDownload.Status.NOT_MODIFIED);
+		assertThat(download.isUnchanged()).isTrue();
+		assertThat(fullResponses).hasValue(1);
+	}
+
+	@Test
+	void skipsWhenArchiveHashMatchesAppliedCatalog() throws Exception {
+		CatalogState applied = ZipFileUtils.downloadZipFile(catalogUrl, downloadDir.toString()).state();
+		CatalogState withoutValidators = new CatalogState(null, null, applied.sha256());
+
+		CatalogDownload download = ZipFileUtils.downloadZipFile(catalogUrl, downloadDir.toString(), withoutValidators);
+
+		assertThat(download.status()).isEqualTo(CatalogDownload.Status.UNCHANGED);
+		assertThat(fullResponses).hasValue(2);
+	}
+
+	@Test
+	void stateSurvivesRoundTripThroughFile(@TempDir Path stateDir) throws IOException {
+		Path stateFile = stateDir.resolve("catalog.state");
+		CatalogState state = new CatalogState(ETAG, "Wed, 21 Oct 2026 07:28:00 GMT", "ab".repeat(32));
+
+		state.save(stateFile);
+
+		assertThat(CatalogState.load(stateFile)).isEqualTo(state);
+		assertThat(CatalogState.load(stateDir.resolve("missing"))).isEqualTo(CatalogState.EMPTY);
+	}
+
+	@Test
+	void resumesDroppedDownloadWithRangeRequest() throws Exception {
+		faults.add(Fault.DROP_HALFWAY);
+
+		CatalogDownload download = ZipFileUtils.downloadZipFile(largeCatalogUrl, downloadDir.toString(), CatalogState.EMPTY, FAST_RETRIES);
+
+		assertThat(download.status()).isEqualTo(CatalogDownload.Status.DOWNLOADED);
+		assertThat(download.attempts()).isEqualTo(2);
+		assertThat(download.resumedBytes()).isEqualTo(LARGE_ARCHIVE.length / 2);
+		assertThat(download.bytes()).isEqualTo(LARGE_ARCHIVE.length);
+		assertThat(rangeRequests).containsExactly("bytes=" + LARGE_ARCHIVE.length / 2 + "-");
+		assertThat(downloadDir.resolve("bininfo.json.zip")).hasBinaryContent(LARGE_ARCHIVE);
+		assertThat(downloadDir.resolve("bininfo.json.zip.part")).doesNotExist();
+	}
+
+	@Test
+	void resumesStalledDownloadAfterReadTimeout() throws Exception {
+		faults.add(Fault.STALL);
+
+		CatalogDownload download = ZipFileUtils.downloadZipFile(largeCatalogUrl, downloadDir.toString(), CatalogState.EMPTY, FAST_RETRIES);
+
+		assertThat(download.attempts()).isEqualTo(2);
+		assertThat(download.resumedBytes()).isEqualTo(LARGE_ARCHIVE.length / 4);
+		assertThat(downloadDir.resolve("bininfo.json.zip")).hasBinaryContent(LARGE_ARCHIVE);
+	}
+
+	@Test
+	void retriesServerErrors() throws Exception {
+		faults.add(Fault.UNAVAILABLE);
+		faults.add(Fault.UNAVAILABLE);
+
+		CatalogDownload download = ZipFileUtils.downloadZipFile(largeCatalogUrl, downloadDir.toString(), CatalogState.EMPTY, FAST_RETRIES);
+
+		assertThat(download.status()).isEqualTo(CatalogDownload.Status.DOWNLOADED);
+		assertThat(download.attempts()).isEqualTo(3);
+		assertThat(largeRequests).hasValue(3);
+	}
+
+	@Test
+	void discardsDownloadFailingChecksumAndStartsOver() throws Exception {
+		faults.add(Fault.CORRUPT);
+
+		CatalogDownload download = ZipFileUtils.downloadZipFile(largeCatalogUrl, downloadDir.toString(), CatalogState.EMPTY, FAST_RETRIES);
+
+		assertThat(download.attempts()).isEqualTo(2);
+		assertThat(download.resumedBytes()).isZero();
+		assertThat(rangeRequests).isEmpty();
+		assertThat(downloadDir.resolve("bininfo.json.zip")).hasBinaryContent(LARGE_ARCHIVE);
+	}
+
+	@Test
+	void restartsPartialDownloadOfAnOutdatedCatalog() throws Exception {
+		Files.write(downloadDir.resolve("bininfo.json.zip.part"), Arrays.copyOf(LARGE_ARCHIVE, 1000));
+		Files.writeString(downloadDir.resolve("bininfo.json.zip.part.validator"), "\"outdated\"");
+
+		CatalogDownload download = ZipFileUtils.downloadZipFile(largeCatalogUrl, downloadDir.toString(), CatalogState.EMPTY, FAST_RETRIES);
+
+		assertThat(download.attempts()).isEqualTo(1);
+		assertThat(download.resumedBytes()).isZero();
+		assertThat(downloadDir.resolve("bininfo.json.zip")).hasBinaryContent(LARGE_ARCHIVE);
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		for (int i = 0; i < FAST_RETRIES.maxAttempts(); i++)
+			faults.add(Fault.UNAVAILABLE);
+
+		assertThatThrownBy(() -> ZipFileUtils.downloadZipFile(largeCatalogUrl, downloadDir.toString(), CatalogState.EMPTY, FAST_RETRIES))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("after 4 attempts");
+		assertThat(largeRequests).hasValue(FAST_RETRIES.maxAttempts());
+	}
+
+	@Test
+	void doesNotRetryRejectedRequest() {
+		faults.add(Fault.NOT_FOUND);
+
+		assertThatThrownBy(() -> ZipFileUtils.downloadZipFile(largeCatalogUrl, downloadDir.toString(), CatalogState.EMPTY, FAST_RETRIES))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("404");
+		assertThat(largeRequests).hasValue(1);
+	}
+}